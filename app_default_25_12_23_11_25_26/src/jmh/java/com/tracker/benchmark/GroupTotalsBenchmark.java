@@ -0,0 +1,80 @@
+package com.tracker.benchmark;
+
+import com.tracker.model.Category;
+import com.tracker.service.RollupService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulating 100k imported expenses into rollup groups, in batches of 1000 as
+ * ImportService does. {@code legacy} is the previous GroupTotals, a HashMap of boxed
+ * keys to double[2]; {@code primitive} is the current one, reused across batches the
+ * same way. Run with {@code -prof gc} to compare gc.alloc.rate.norm, the bytes
+ * allocated per 100k rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupTotalsBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int BATCH = 1000;
+
+    private LocalDate[] dates;
+    private Category[] categories;
+    private double[] amounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Category[] all = Category.values();
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        dates = new LocalDate[ROWS];
+        categories = new Category[ROWS];
+        amounts = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            dates[i] = first.plusDays(random.nextInt(3650));
+            categories[i] = all[random.nextInt(all.length)];
+            amounts[i] = Math.round(random.nextDouble() * 50000) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        for (int from = 0; from < ROWS; from += BATCH) {
+            Map<Long, double[]> sums = new HashMap<>();
+            for (int i = from; i < from + BATCH; i++) {
+                addLegacy(sums, (long) RollupService.period(dates[i]) * 16 + categories[i].ordinal(), amounts[i]);
+                addLegacy(sums, (long) RollupService.day(dates[i]) * 16 + 14, amounts[i]);
+            }
+            bh.consume(sums);
+        }
+    }
+
+    @Benchmark
+    public void primitive(Blackhole bh) {
+        RollupService.GroupTotals groups = new RollupService.GroupTotals();
+        for (int from = 0; from < ROWS; from += BATCH) {
+            groups.clear();
+            for (int i = from; i < from + BATCH; i++) {
+                groups.addExpense(dates[i], categories[i], amounts[i]);
+            }
+            bh.consume(groups);
+        }
+    }
+
+    private static void addLegacy(Map<Long, double[]> sums, long key, double amount) {
+        double[] sum = sums.computeIfAbsent(key, k -> new double[2]);
+        sum[0] += amount;
+        sum[1]++;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tracker.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Jackson serialization of an expense list, as returned by the listing endpoints. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"50", "10000"})
+    private int expenses;
+
+    private ObjectMapper mapper;
+    private List<Expense> list;
+
+    @Setup
+    public void setUp() {
+        // The same builder Spring Boot configures its ObjectMapper from (ISO dates, Java time module).
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        Category[] categories = Category.values();
+        list = new ArrayList<>(expenses);
+        for (int i = 0; i < expenses; i++) {
+            list.add(new Expense((long) i, 10.0 + i % 500, categories[i % categories.length],
+                    LocalDate.of(2025, 1, 1).plusDays(i % 365), "expense " + i, null));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(list);
+    }
+}
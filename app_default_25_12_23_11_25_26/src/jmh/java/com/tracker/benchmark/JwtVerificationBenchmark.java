@@ -0,0 +1,79 @@
+package com.tracker.benchmark;
+
+import com.tracker.config.JwtAuthenticationFilter;
+import com.tracker.config.JwtTokenVerifier;
+import com.tracker.config.JwtUtils;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token in JwtAuthenticationFilter.
+ * {@code legacy} reproduces the old path: the key rebuilt from the secret and a new
+ * parser for each of the two parses. {@code parseOnce} is a single parse with the shared
+ * parser, and {@code cached} is the filter's path for a token seen before. {@code filter}
+ * runs the whole filter on a mock request, with the user details lookup as a cache hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyThatIsAtLeast256BitsLongForHS256!!";
+
+    private JwtUtils jwtUtils;
+    private JwtTokenVerifier verifier;
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils(SECRET, 86400000);
+        verifier = new JwtTokenVerifier(jwtUtils, 10000);
+        User principal = new User("alice", "", Collections.emptyList());
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+        verifier.verify(token);
+        filter = new JwtAuthenticationFilter(verifier, username -> principal);
+    }
+
+    @Benchmark
+    public String legacy() {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String parseOnce() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+
+    @Benchmark
+    public String cached() {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public Authentication filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/expenses");
+        request.setServletPath("/api/expenses");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
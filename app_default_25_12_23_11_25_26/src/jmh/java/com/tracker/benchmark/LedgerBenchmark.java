@@ -0,0 +1,81 @@
+package com.tracker.benchmark;
+
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.service.Ledger;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getSummary-style category aggregation over N expenses spread over ten years.
+ * {@code perRowLoop} is the original controller loop over loaded entities;
+ * {@code ledgerMonth} and {@code ledgerAllTime} are the in-memory ledger's range sums,
+ * and {@code ledgerBuild} is the one-time cost of building a user's ledger from rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int expenses;
+
+    private List<Expense> rows;
+    private Ledger ledger;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Category[] categories = Category.values();
+        LocalDate last = LocalDate.of(2025, 12, 31);
+        rows = new ArrayList<>(expenses);
+        for (int i = 0; i < expenses; i++) {
+            Expense e = new Expense();
+            // Newest first, the order the ledger is loaded in.
+            e.setDate(last.minusDays((long) i * 3650 / expenses));
+            e.setCategory(categories[random.nextInt(categories.length)]);
+            e.setAmount(Math.round(random.nextDouble() * 50000) / 100.0);
+            rows.add(e);
+        }
+        ledger = ledgerBuild();
+    }
+
+    @Benchmark
+    public Map<String, Double> perRowLoop() {
+        Map<String, Double> categorySums = new HashMap<>();
+        for (Expense e : rows) {
+            categorySums.put(e.getCategory().name(),
+                    categorySums.getOrDefault(e.getCategory().name(), 0.0) + e.getAmount());
+        }
+        return categorySums;
+    }
+
+    @Benchmark
+    public Map<String, Double> ledgerMonth() {
+        return ledger.categoryTotals(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 31));
+    }
+
+    @Benchmark
+    public Map<String, Double> ledgerAllTime() {
+        return ledger.categoryTotals();
+    }
+
+    @Benchmark
+    public Ledger ledgerBuild() {
+        Ledger.Builder builder = new Ledger.Builder();
+        for (Expense e : rows) {
+            builder.expense(e.getCategory(), e.getDate(), e.getAmount());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.tracker.benchmark;
+
+import com.tracker.ExpenseTrackerApplication;
+import com.tracker.model.Category;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import com.tracker.service.AiTipService;
+import com.tracker.service.ExpenseExportService;
+import com.tracker.service.ImportService;
+import com.tracker.service.TrendSeries;
+import com.tracker.service.TrendService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service paths behind the dashboard endpoints, run in the application context against an
+ * in-memory H2 seeded with one user's expenses (over ten years) and monthly incomes.
+ * {@code ledger} switches the in-memory ledger (LedgerCache) on or off, so the trend and
+ * tip numbers show both the ledger and the database paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeededAppBenchmark {
+
+    @Param({"10000", "100000"})
+    private int expenses;
+
+    @Param({"true", "false"})
+    private boolean ledger;
+
+    private ConfigurableApplicationContext context;
+    private TrendService trendService;
+    private AiTipService tipService;
+    private ExpenseExportService exportService;
+    private User user;
+
+    @Setup
+    public void setUp() throws Exception {
+        // As arguments, which take precedence over application.properties.
+        context = new SpringApplicationBuilder(ExpenseTrackerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--tracker.tips.precompute=false",
+                        "--tracker.ledger.enabled=" + ledger);
+        trendService = context.getBean(TrendService.class);
+        tipService = context.getBean(AiTipService.class);
+        exportService = context.getBean(ExpenseExportService.class);
+
+        User u = new User();
+        u.setUsername("bench");
+        u.setPassword("unused");
+        user = context.getBean(UserRepository.class).save(u);
+        ImportService importService = context.getBean(ImportService.class);
+        importService.importExpenses(user, csv(expenseRows()), ImportService.Format.CSV);
+        importService.importIncomes(user, csv(incomeRows()), ImportService.Format.CSV);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TrendSeries monthlyTrends() {
+        return trendService.yearlyTrends(user, 2020);
+    }
+
+    @Benchmark
+    public TrendSeries weeklyTrends() {
+        return trendService.trends(user, LocalDate.of(2019, 1, 1), LocalDate.of(2021, 12, 31),
+                TrendService.Granularity.WEEKLY);
+    }
+
+    @Benchmark
+    public List<String> generateTips() {
+        return tipService.generateTips(user);
+    }
+
+    @Benchmark
+    public void downloadCsv() throws Exception {
+        exportService.writeCsv(user, null, null, null, false, OutputStream.nullOutputStream());
+    }
+
+    private String expenseRows() {
+        Random random = new Random(42);
+        Category[] categories = Category.values();
+        LocalDate first = LocalDate.now().minusYears(10);
+        StringBuilder csv = new StringBuilder("date,category,amount,description\n");
+        for (int i = 0; i < expenses; i++) {
+            csv.append(first.plusDays(random.nextInt(3653))).append(',')
+                    .append(categories[random.nextInt(categories.length)]).append(',')
+                    .append(Math.round(random.nextDouble() * 50000) / 100.0).append(",expense ").append(i).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String incomeRows() {
+        LocalDate first = LocalDate.now().minusYears(10).withDayOfMonth(1);
+        StringBuilder csv = new StringBuilder("date,amount,description\n");
+        for (int i = 0; i <= 120; i++) {
+            csv.append(first.plusMonths(i)).append(",4000.0,salary\n");
+        }
+        return csv.toString();
+    }
+
+    private static ByteArrayInputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,217 @@
+package com.tracker.loadtest;
+
+import com.tracker.ExpenseTrackerApplication;
+import com.tracker.service.Journal;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long the application takes to start in durable mode with a large data set to
+ * restore. The first run seeds {@code dir} with {@link DataGenerator} data through a journaled
+ * application and writes a snapshot; later runs reuse it while the data options are unchanged.
+ * Each measured start is a fresh JVM (same classpath, plus {@code java-options}), timed from
+ * launch until the application reports it has started, and restores from the snapshot.
+ * It prints the start time, the restore time and rows per second of each run, and exits with
+ * status 1 if the slowest start exceeds {@code max-seconds} (or {@code coldstart.max-seconds}
+ * in the baseline file).
+ *
+ * <p>Options, as {@code name=value} or {@code --name=value}: users, years,
+ * expenses-per-month, seed, end (as for {@link LoadTest}; the defaults make about ten million
+ * rows), dir, runs, java-options, max-seconds, baseline and report. Any other option is
+ * passed to the application in every run. Seeding holds the whole data set in memory, so give
+ * the JVM running this class enough heap for it, as {@code java-options} does for the runs.
+ */
+public class ColdStart {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "users", "2500",
+            "years", "5",
+            "expenses-per-month", "100",
+            "seed", "42",
+            "end", "2025-12-31",
+            "dir", "target/coldstart",
+            "runs", "3",
+            "java-options", "-Xmx6g");
+    private static final List<String> DATA = List.of("users", "years", "expenses-per-month", "seed", "end");
+    private static final Pattern RESTORED = Pattern.compile("Restored (\\d+) rows .* in (\\d+) ms");
+    private static final Pattern STARTED = Pattern.compile("Started ExpenseTrackerApplication");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            String name = arg.replaceFirst("^--", "").split("=", 2)[0];
+            if (DEFAULTS.containsKey(name) || List.of("max-seconds", "baseline", "report").contains(name)) {
+                options.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                appArgs.add(arg.startsWith("--") ? arg : "--" + arg);
+            }
+        }
+        Path dir = Path.of(options.get("dir")).toAbsolutePath();
+        appArgs.add("--tracker.journal.enabled=true");
+        appArgs.add("--tracker.journal.dir=" + dir);
+        // The runs only start; a snapshot triggered by the restored bytes would change the next run's input.
+        appArgs.add("--tracker.journal.snapshot-after=1TB");
+        appArgs.add("--tracker.journal.snapshot-interval=1000d");
+
+        seedIfNeeded(options, dir, appArgs);
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Cold start with %s (%s): %.1f MB in %s%n", describe(options),
+                options.get("java-options"), size(dir) / 1e6, dir));
+        report.append(String.format("%-5s %10s %12s %10s %12s%n", "run", "start (s)", "restore (s)", "rows", "rows/s"));
+        double slowest = 0;
+        int runs = Integer.parseInt(options.get("runs"));
+        for (int run = 1; run <= runs; run++) {
+            Start start = start(options.get("java-options"), appArgs);
+            slowest = Math.max(slowest, start.seconds());
+            report.append(String.format("%-5d %10.1f %12.1f %10d %12.0f%n", run, start.seconds(),
+                    start.restoreMillis() / 1e3, start.rows(), start.rows() / (start.restoreMillis() / 1e3)));
+        }
+        System.out.println();
+        System.out.print(report);
+        if (options.containsKey("report")) {
+            Path path = Path.of(options.get("report"));
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.writeString(path, report);
+        }
+        String limit = options.get("max-seconds");
+        if (limit == null && !options.getOrDefault("baseline", "").isEmpty()) {
+            limit = load(options.get("baseline")).getProperty("coldstart.max-seconds");
+        }
+        if (limit == null) {
+            System.exit(0);
+        }
+        boolean within = slowest <= Double.parseDouble(limit);
+        System.out.printf("%nSlowest start %.1f s, %s the limit of %s s%n", slowest, within ? "within" : "over", limit);
+        System.exit(within ? 0 : 1);
+    }
+
+    /** Generates the data set into {@code dir} unless it already holds one made with the same options. */
+    private static void seedIfNeeded(Map<String, String> options, Path dir, List<String> appArgs) throws Exception {
+        Path marker = dir.resolve("coldstart.properties");
+        Properties data = new Properties();
+        DATA.forEach(name -> data.setProperty(name, options.get(name)));
+        if (Files.exists(marker) && load(marker.toString()).equals(data)) {
+            return;
+        }
+        if (Files.exists(dir)) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(dir);
+        List<String> seedArgs = new ArrayList<>(appArgs);
+        seedArgs.add("--server.port=0");
+        seedArgs.add("--spring.datasource.url=jdbc:h2:mem:coldstart-" + UUID.randomUUID());
+        seedArgs.add("--logging.level.root=WARN");
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ExpenseTrackerApplication.class)
+                .run(seedArgs.toArray(String[]::new))) {
+            int users = new DataGenerator(context).generate(Long.parseLong(options.get("seed")),
+                    Integer.parseInt(options.get("users")), Integer.parseInt(options.get("years")),
+                    Integer.parseInt(options.get("expenses-per-month")), LocalDate.parse(options.get("end"))).size();
+            long rows = context.getBean(Journal.class).snapshot();
+            System.out.printf("Seeded %d users, %d rows in %.1f s%n", users, rows, (System.nanoTime() - started) / 1e9);
+        }
+        try (var out = Files.newOutputStream(marker)) {
+            data.store(out, "Options the data set in this directory was generated with");
+        }
+    }
+
+    private record Start(double seconds, long rows, long restoreMillis) {
+    }
+
+    /** Starts the application in a new JVM, waits until it is up, then stops it. */
+    private static Start start(String javaOptions, List<String> appArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String option : javaOptions.trim().split("\\s+")) {
+            if (!option.isEmpty()) {
+                command.add(option);
+            }
+        }
+        command.add("-classpath");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ExpenseTrackerApplication.class.getName());
+        command.addAll(appArgs);
+        command.add("--server.port=0");
+        command.add("--spring.datasource.url=jdbc:h2:mem:coldstart");
+        command.add("--spring.jpa.show-sql=false");
+        command.add("--logging.level.root=WARN");
+        command.add("--logging.level.com.tracker.service.Journal=INFO");
+        command.add("--logging.level.com.tracker.ExpenseTrackerApplication=INFO");
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long rows = 0;
+        long restoreMillis = 0;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                Matcher restored = RESTORED.matcher(line);
+                if (restored.find()) {
+                    rows = Long.parseLong(restored.group(1));
+                    restoreMillis = Long.parseLong(restored.group(2));
+                } else if (STARTED.matcher(line).find()) {
+                    double seconds = (System.nanoTime() - launched) / 1e9;
+                    return new Start(seconds, rows, restoreMillis);
+                }
+            }
+            throw new IllegalStateException("The application exited with status " + process.waitFor()
+                    + " before it started");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static String describe(Map<String, String> options) {
+        StringBuilder description = new StringBuilder();
+        for (String name : DATA) {
+            description.append(description.isEmpty() ? "" : " ").append(name).append('=').append(options.get(name));
+        }
+        return description.toString();
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            long bytes = 0;
+            for (Path file : files.toList()) {
+                bytes += Files.size(file);
+            }
+            return bytes;
+        }
+    }
+
+    private static Properties load(String file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+}
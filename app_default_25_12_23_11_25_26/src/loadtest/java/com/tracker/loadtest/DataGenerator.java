@@ -0,0 +1,169 @@
+package com.tracker.loadtest;
+
+import com.tracker.config.AuthenticatedUser;
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import com.tracker.service.BudgetService;
+import com.tracker.service.ImportService;
+import com.tracker.service.Journal;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds users with multi-year histories of expenses and incomes, and a budget for most of
+ * them, through the same services the API uses, so rollups and caches see the data as they
+ * would in production. Users differ in activity (a quarter to twice the configured expenses
+ * per month) and in history length (one year up to the configured number), all ending on
+ * {@code end}. The same seed, sizes and end date always produce the same data.
+ * Every user's password is {@link #PASSWORD}.
+ */
+public class DataGenerator {
+
+    public static final String PASSWORD = "loadtest";
+
+    private final UserRepository userRepo;
+    private final ImportService importService;
+    private final BudgetService budgetService;
+    private final PasswordEncoder encoder;
+    private final Journal journal;
+
+    public DataGenerator(ApplicationContext context) {
+        this.userRepo = context.getBean(UserRepository.class);
+        this.importService = context.getBean(ImportService.class);
+        this.budgetService = context.getBean(BudgetService.class);
+        this.encoder = context.getBean(PasswordEncoder.class);
+        this.journal = context.getBean(Journal.class);
+    }
+
+    /** Creates {@code users} users named load-user-0, load-user-1, ... and returns them in that order. */
+    public List<User> generate(long seed, int users, int years, int expensesPerMonth, LocalDate end) throws IOException {
+        // One hash for everyone: BCrypt per user would dominate the seeding time.
+        String password = encoder.encode(PASSWORD);
+        List<User> created = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            // Seeded per user, so a user's data does not depend on how many others there are.
+            Random random = new Random(seed * 1_000_003 + i);
+            User user = new User();
+            user.setUsername("load-user-" + i);
+            user.setPassword(password);
+            user = userRepo.save(user);
+            journal.userSaved(user);
+
+            int months = 12 + random.nextInt(Math.max(1, years * 12 - 11));
+            int perMonth = Math.max(1, (int) Math.round(expensesPerMonth * (0.25 + random.nextDouble() * 1.75)));
+            double salary = 2500 + random.nextInt(65) * 100;
+            signIn(user);
+            try {
+                importService.importExpenses(user, csv(expenseRows(random, months, perMonth, end)), ImportService.Format.CSV);
+                importService.importIncomes(user, csv(incomeRows(random, months, salary, end)), ImportService.Format.CSV);
+                if (random.nextInt(4) != 0) {
+                    budgetService.update(user, budget(random, salary));
+                }
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+            created.add(user);
+        }
+        return created;
+    }
+
+    /**
+     * Makes the calling thread act as {@code user}, as a request with their token would, until
+     * the security context is cleared. Needed for service calls with sharded storage, which
+     * routes a user's rows by it.
+     */
+    static void signIn(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    /**
+     * Rent on the first of each month, one to three utility bills, and the rest spread over
+     * food, shopping and travel with amounts skewed towards the low end of each range.
+     */
+    static String expenseRows(Random random, int months, int perMonth, LocalDate end) {
+        StringBuilder csv = new StringBuilder("date,category,amount,description\n");
+        double rent = 600 + random.nextInt(30) * 50;
+        LocalDate first = end.withDayOfMonth(1).minusMonths(months - 1);
+        for (int m = 0; m < months; m++) {
+            LocalDate month = first.plusMonths(m);
+            int days = month.equals(end.withDayOfMonth(1)) ? end.getDayOfMonth() : month.lengthOfMonth();
+            row(csv, month, Category.RENT, rent, "rent");
+            int utilities = 1 + random.nextInt(3);
+            for (int i = 0; i < utilities; i++) {
+                row(csv, month.plusDays(random.nextInt(days)), Category.UTILITIES, amount(random, 20, 180), "bill");
+            }
+            for (int i = utilities + 1; i < perMonth; i++) {
+                LocalDate date = month.plusDays(random.nextInt(days));
+                int pick = random.nextInt(100);
+                if (pick < 60) {
+                    row(csv, date, Category.FOOD, amount(random, 3, 60), "groceries");
+                } else if (pick < 85) {
+                    row(csv, date, Category.SHOPPING, amount(random, 10, 250), "shop");
+                } else {
+                    row(csv, date, Category.TRAVEL, amount(random, 15, 600), "trip");
+                }
+            }
+        }
+        return csv.toString();
+    }
+
+    /** A monthly salary on the first, and a side income in about one month in six. */
+    static String incomeRows(Random random, int months, double salary, LocalDate end) {
+        StringBuilder csv = new StringBuilder("date,amount,description\n");
+        LocalDate first = end.withDayOfMonth(1).minusMonths(months - 1);
+        for (int m = 0; m < months; m++) {
+            LocalDate month = first.plusMonths(m);
+            csv.append(month).append(',').append(salary).append(",salary\n");
+            if (random.nextInt(6) == 0) {
+                int days = month.equals(end.withDayOfMonth(1)) ? end.getDayOfMonth() : month.lengthOfMonth();
+                csv.append(month.plusDays(random.nextInt(days))).append(',')
+                        .append(amount(random, 100, 1500)).append(",freelance\n");
+            }
+        }
+        return csv.toString();
+    }
+
+    private static Budget budget(Random random, double salary) {
+        Budget budget = new Budget();
+        double monthly = (double) Math.round(salary * (0.5 + random.nextDouble() * 0.4));
+        budget.setMonthlyLimit(monthly);
+        budget.setDailyLimit((double) Math.round(monthly / 20));
+        Map<Category, Double> limits = new EnumMap<>(Category.class);
+        limits.put(Category.FOOD, (double) Math.round(monthly * 0.25));
+        limits.put(Category.SHOPPING, (double) Math.round(monthly * 0.15));
+        if (random.nextBoolean()) {
+            limits.put(Category.TRAVEL, (double) Math.round(monthly * 0.2));
+        }
+        budget.setCategoryLimits(limits);
+        return budget;
+    }
+
+    private static void row(StringBuilder csv, LocalDate date, Category category, double amount, String description) {
+        csv.append(date).append(',').append(category).append(',').append(amount).append(',').append(description).append('\n');
+    }
+
+    private static double amount(Random random, double min, double max) {
+        double r = random.nextDouble();
+        return Math.round((min + (max - min) * r * r) * 100) / 100.0;
+    }
+
+    private static ByteArrayInputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
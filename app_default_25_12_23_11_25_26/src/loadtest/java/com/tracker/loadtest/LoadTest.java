@@ -0,0 +1,204 @@
+package com.tracker.loadtest;
+
+import com.tracker.ExpenseTrackerApplication;
+import com.tracker.config.JwtUtils;
+import com.tracker.config.QueryBudget;
+import com.tracker.controller.ExpenseController;
+import com.tracker.model.User;
+import com.tracker.service.DashboardService;
+import com.tracker.service.SyncLog;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application on a random port with an in-memory database, seeds it with
+ * {@link DataGenerator}, and drives the {@link Mix} against it over HTTP:
+ * <ol>
+ *   <li>a SQL pass, running every scenario a few times one request at a time to count the
+ *   statements each endpoint sends;</li>
+ *   <li>a warm-up at full concurrency, not recorded;</li>
+ *   <li>the measured run, where {@code concurrency} workers each loop over picking a user
+ *   (80% of picks from a fixed fifth of the users) and a scenario by weight.</li>
+ * </ol>
+ * Before the HTTP phases it checks the {@link QueryBudget}s of the main read paths.
+ * It then prints p50/p99/p99.9 latency, throughput, statements per request and errors by
+ * endpoint, and exits with status 1 if any threshold in the baseline file is exceeded.
+ * Workers are closed-loop (each waits for its response before the next request), so
+ * latencies understate what open arrivals at the same rate would see under saturation.
+ *
+ * <p>Options, as {@code name=value} or {@code --name=value}: users, years,
+ * expenses-per-month, seed, end (the last day of the generated history, default today),
+ * concurrency, warmup and duration (in seconds), sql-samples, baseline and report (file
+ * paths; an empty baseline skips the check). Any other option is passed to the
+ * application, e.g. {@code tracker.ledger.enabled=false}.
+ */
+public class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "users", "200",
+            "years", "3",
+            "expenses-per-month", "40",
+            "seed", "42",
+            "concurrency", "8",
+            "warmup", "15",
+            "duration", "60",
+            "sql-samples", "5");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID(),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--tracker.sql.count-header=true"));
+        for (String arg : args) {
+            String name = arg.replaceFirst("^--", "").split("=", 2)[0];
+            if (DEFAULTS.containsKey(name) || List.of("end", "baseline", "report").contains(name)) {
+                options.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                appArgs.add(arg.startsWith("--") ? arg : "--" + arg);
+            }
+        }
+        int violations = run(options, appArgs.toArray(String[]::new));
+        System.exit(violations == 0 ? 0 : 1);
+    }
+
+    private static int run(Map<String, String> options, String[] appArgs) throws Exception {
+        long seed = Long.parseLong(options.get("seed"));
+        LocalDate end = options.containsKey("end") ? LocalDate.parse(options.get("end")) : LocalDate.now();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                ExpenseTrackerApplication.class, SqlStatementCounter.class).run(appArgs);
+        try {
+            long started = System.nanoTime();
+            List<User> users = new DataGenerator(context).generate(seed, intOption(options, "users"),
+                    intOption(options, "years"), intOption(options, "expenses-per-month"), end);
+            System.out.printf("Seeded %d users in %.1f s%n", users.size(), (System.nanoTime() - started) / 1e9);
+
+            checkQueryBudgets(context, users.get(0), end);
+
+            JwtUtils jwtUtils = context.getBean(JwtUtils.class);
+            List<String> tokens = new ArrayList<>(users.size());
+            for (User user : users) {
+                tokens.add(jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                        org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                                .password("").authorities(List.of()).build(), null)));
+            }
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            Stats stats = new Stats();
+
+            SqlStatementCounter counter = context.getBean(SqlStatementCounter.class);
+            Random sqlRandom = new Random(seed);
+            int samples = intOption(options, "sql-samples");
+            for (Mix.Scenario scenario : Mix.SCENARIOS) {
+                for (int i = 0; i < samples; i++) {
+                    int u = sqlRandom.nextInt(users.size());
+                    scenario.action().run(new Session(http, baseUrl, users.get(u).getUsername(), tokens.get(u),
+                            sqlRandom, end, stats, counter::statements));
+                }
+            }
+
+            int concurrency = intOption(options, "concurrency");
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(intOption(options, "warmup"));
+            long runEnd = warmupEnd + TimeUnit.SECONDS.toNanos(intOption(options, "duration"));
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                Random random = new Random(seed + 7919L * (w + 1));
+                running.add(workers.submit(() -> {
+                    while (System.nanoTime() < runEnd) {
+                        int u = random.nextInt(10) < 8
+                                ? random.nextInt(Math.max(1, users.size() / 5)) : random.nextInt(users.size());
+                        Session session = new Session(http, baseUrl, users.get(u).getUsername(), tokens.get(u),
+                                random, end, stats, null);
+                        Mix.pick(random).action().run(session);
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(warmupEnd - System.nanoTime())));
+            stats.recording = true;
+            long measureStart = System.nanoTime();
+            workers.shutdown();
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+            stats.recording = false;
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+            String report = stats.report(seconds);
+            System.out.println();
+            System.out.print(report);
+            if (options.containsKey("report")) {
+                Path path = Path.of(options.get("report"));
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                Files.writeString(path, report);
+            }
+            if (options.getOrDefault("baseline", "").isEmpty()) {
+                return 0;
+            }
+            List<String> violations = stats.violations(load(options.get("baseline")), seconds);
+            System.out.println(violations.isEmpty() ? "\nWithin baseline " + options.get("baseline")
+                    : "\nBaseline exceeded (" + options.get("baseline") + "):");
+            violations.forEach(v -> System.out.println("  " + v));
+            return violations.size();
+        } finally {
+            context.close();
+        }
+    }
+
+    /** Statement budgets for the main read paths, called directly once with a cold ledger and once warm. */
+    private static void checkQueryBudgets(ConfigurableApplicationContext context, User user, LocalDate end) throws Exception {
+        ExpenseController expenses = context.getBean(ExpenseController.class);
+        DashboardService dashboard = context.getBean(DashboardService.class);
+        SyncLog syncLog = context.getBean(SyncLog.class);
+        // Starts the user's change log outside the budget.
+        syncLog.changes(user, 0, 1, null);
+        DataGenerator.signIn(user);
+        try {
+            for (int pass = 0; pass < 2; pass++) {
+                QueryBudget.atMost(3, "getMonthlyTrends", () -> expenses.getMonthlyTrends(end.getYear(), user));
+                QueryBudget.atMost(5, "getSummary", () -> expenses.getSummary(end.getYear(), end.getMonthValue(), user));
+                QueryBudget.atMost(8, "dashboard", () -> dashboard.load(user, end.getYear(), end.getMonthValue(),
+                        DashboardService.DEFAULT_MONTHS));
+                QueryBudget.atMost(4, "sync", () -> syncLog.changes(user, 0, SyncLog.MAX_LIMIT, null));
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static int intOption(Map<String, String> options, String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private static Properties load(String file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+}
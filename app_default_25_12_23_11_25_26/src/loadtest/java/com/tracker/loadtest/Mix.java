@@ -0,0 +1,152 @@
+package com.tracker.loadtest;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The request mix: one scenario per user action, weighted by how often users take it.
+ * Reads dominate, led by the dashboard; writes go through the add/edit/delete flows, and
+ * the expensive or rare endpoints (full lists, export, import, sign-in, rollup rebuild)
+ * have small weights. Every /api endpoint is in at least one scenario. Request labels
+ * name the endpoint, so a scenario with several requests reports each on its own.
+ */
+final class Mix {
+
+    interface Action {
+        void run(Session s) throws InterruptedException;
+    }
+
+    record Scenario(String name, double weight, Action action) {
+    }
+
+    private static final String[] CATEGORIES = {"FOOD", "SHOPPING", "TRAVEL", "UTILITIES", "RENT"};
+    private static final AtomicLong SIGNUPS = new AtomicLong();
+
+    static final List<Scenario> SCENARIOS = List.of(
+            new Scenario("dashboard", 25, s -> s.get("dashboard", "/api/dashboard")),
+            new Scenario("expense listing", 10, s -> {
+                s.get("expenses.page", "/api/expenses/page?limit=50");
+                if (s.random.nextBoolean()) {
+                    s.get("expenses.page", "/api/expenses/page?limit=50&category=" + category(s.random)
+                            + "&from=" + s.today.minusMonths(3));
+                }
+            }),
+            new Scenario("income listing", 3, s -> s.get("incomes.page", "/api/incomes/page?limit=50")),
+            new Scenario("month summary", 6, s -> s.get("expenses.summary", "/api/expenses/summary?" + month(s))),
+            new Scenario("all-time summary", 2, s -> s.get("expenses.summary", "/api/expenses/summary")),
+            new Scenario("yearly trends", 5, s -> s.get("expenses.trends-year",
+                    "/api/expenses/trends/" + s.today.minusYears(s.random.nextInt(2)).getYear())),
+            new Scenario("weekly trends", 4, s -> s.get("expenses.trends",
+                    "/api/expenses/trends?granularity=WEEKLY&start=" + s.today.minusMonths(6) + "&end=" + s.today)),
+            new Scenario("category spending", 4, s -> s.get("expenses.category-spending",
+                    "/api/expenses/category-spending?" + month(s))),
+            new Scenario("income vs expense", 4, s -> s.get("expenses.income-vs-expense",
+                    "/api/expenses/income-vs-expense?" + month(s))),
+            new Scenario("budget status", 5, s -> s.get("budget.status", "/api/budget/status")),
+            new Scenario("budget view", 3, s -> {
+                s.get("budget.get", "/api/budget");
+                s.get("budget.categories", "/api/budget/categories");
+            }),
+            new Scenario("tips", 4, s -> s.get("tips", "/api/tips")),
+            new Scenario("add, edit and delete expense", 12, s -> {
+                long id = Session.id(s.post("expenses.add", "/api/expenses", expense(s)));
+                if (id < 0) {
+                    return;
+                }
+                if (s.random.nextInt(3) == 0) {
+                    s.put("expenses.update", "/api/expenses/" + id, expense(s));
+                }
+                if (s.random.nextBoolean()) {
+                    s.delete("expenses.delete", "/api/expenses/" + id);
+                }
+            }),
+            new Scenario("add and delete income", 3, s -> {
+                long id = Session.id(s.post("incomes.add", "/api/incomes", Map.of(
+                        "amount", amount(s.random, 50, 2000), "date", s.today.toString(), "description", "load test")));
+                if (id >= 0 && s.random.nextBoolean()) {
+                    s.delete("incomes.delete", "/api/incomes/" + id);
+                }
+            }),
+            new Scenario("budget update", 2, s -> {
+                double monthly = 1000 + s.random.nextInt(40) * 100;
+                s.post("budget.update", "/api/budget", Map.of("monthlyLimit", monthly, "dailyLimit", monthly / 20));
+                Map<String, Double> limits = Map.of(category(s.random), monthly * 0.2);
+                if (s.random.nextBoolean()) {
+                    s.post("budget.category", "/api/budget/category", limits);
+                } else {
+                    s.post("budget.categories-update", "/api/budget/categories", limits);
+                }
+            }),
+            new Scenario("export", 3, s -> s.get(s.random.nextBoolean() ? "expenses.download" : "expenses.download-gzip",
+                    "/api/expenses/download?from=" + s.today.minusYears(1))),
+            new Scenario("import", 1, s -> {
+                if (s.random.nextBoolean()) {
+                    s.postCsv("expenses.import", "/api/expenses/import", expenseCsv(s, 20));
+                } else {
+                    s.postCsv("incomes.import", "/api/incomes/import", "date,amount,description\n"
+                            + s.today + "," + amount(s.random, 50, 500) + ",import\n");
+                }
+            }),
+            new Scenario("full lists", 1, s -> {
+                s.get("expenses.list", "/api/expenses");
+                s.get("incomes.list", "/api/incomes");
+            }),
+            new Scenario("sign in", 1, s -> s.post("auth.signin", "/api/auth/signin",
+                    Map.of("username", s.username, "password", DataGenerator.PASSWORD))),
+            new Scenario("sign up", 0.3, s -> s.post("auth.signup", "/api/auth/signup",
+                    Map.of("username", "load-signup-" + SIGNUPS.incrementAndGet(), "password", DataGenerator.PASSWORD))),
+            new Scenario("rollup check", 0.3, s -> s.get("rollups.verify", "/api/rollups/verify")),
+            new Scenario("rollup rebuild", 0.1, s -> s.post("rollups.rebuild", "/api/rollups/rebuild", Map.of())));
+
+    private static final double TOTAL_WEIGHT = SCENARIOS.stream().mapToDouble(Scenario::weight).sum();
+
+    private Mix() {
+    }
+
+    static Scenario pick(Random random) {
+        double r = random.nextDouble() * TOTAL_WEIGHT;
+        for (Scenario scenario : SCENARIOS) {
+            r -= scenario.weight();
+            if (r < 0) {
+                return scenario;
+            }
+        }
+        return SCENARIOS.get(SCENARIOS.size() - 1);
+    }
+
+    /** This month or one of the eleven before it, as year and month parameters. */
+    private static String month(Session s) {
+        LocalDate month = s.today.minusMonths(s.random.nextInt(12));
+        return "year=" + month.getYear() + "&month=" + month.getMonthValue();
+    }
+
+    private static Map<String, Object> expense(Session s) {
+        Map<String, Object> expense = new LinkedHashMap<>();
+        expense.put("amount", amount(s.random, 3, 120));
+        expense.put("category", category(s.random));
+        expense.put("date", s.today.minusDays(s.random.nextInt(30)).toString());
+        expense.put("description", "load test");
+        return expense;
+    }
+
+    private static String expenseCsv(Session s, int rows) {
+        StringBuilder csv = new StringBuilder("date,category,amount,description\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(s.today.minusDays(s.random.nextInt(60))).append(',').append(category(s.random)).append(',')
+                    .append(amount(s.random, 3, 120)).append(",import\n");
+        }
+        return csv.toString();
+    }
+
+    private static String category(Random random) {
+        return CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    private static double amount(Random random, double min, double max) {
+        return Math.round((min + (max - min) * random.nextDouble()) * 100) / 100.0;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tracker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * One signed-in user's requests from one worker. Each request is recorded under its
+ * label: latency and errors while the stats are recording, and in the SQL pass (a
+ * {@code sqlCounter} is given and requests run one at a time) the statements the
+ * application sent for it, including background work it triggered that finishes shortly
+ * after the response.
+ */
+class Session {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    final Random random;
+    final LocalDate today;
+    final String username;
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final String token;
+    private final Stats stats;
+    private final LongSupplier sqlCounter;
+
+    Session(HttpClient http, String baseUrl, String username, String token, Random random, LocalDate today,
+            Stats stats, LongSupplier sqlCounter) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.token = token;
+        this.random = random;
+        this.today = today;
+        this.stats = stats;
+        this.sqlCounter = sqlCounter;
+    }
+
+    String get(String label, String path) throws InterruptedException {
+        return send(label, request(path).GET());
+    }
+
+    String post(String label, String path, Object json) throws InterruptedException {
+        return send(label, request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(write(json))));
+    }
+
+    String postCsv(String label, String path, String csv) throws InterruptedException {
+        return send(label, request(path).header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv)));
+    }
+
+    String put(String label, String path, Object json) throws InterruptedException {
+        return send(label, request(path).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(write(json))));
+    }
+
+    String delete(String label, String path) throws InterruptedException {
+        return send(label, request(path).DELETE());
+    }
+
+    /** The id field of a JSON response body, or -1 if there is none. */
+    static long id(String body) {
+        try {
+            return body == null ? -1 : JSON.readTree(body).path("id").asLong(-1);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        return token == null ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    /** The response body, or null if the request failed. */
+    private String send(String label, HttpRequest.Builder request) throws InterruptedException {
+        long statementsBefore = sqlCounter != null ? sqlCounter.getAsLong() : 0;
+        long start = System.nanoTime();
+        String body = null;
+        boolean failed;
+        try {
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            failed = response.statusCode() >= 400;
+            body = failed ? null : response.body();
+        } catch (IOException e) {
+            failed = true;
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        Stats.Endpoint endpoint = stats.endpoint(label);
+        if (stats.recording) {
+            endpoint.latency.recordValue(micros);
+            if (failed) {
+                endpoint.errors.incrementAndGet();
+            }
+        }
+        if (sqlCounter != null) {
+            endpoint.sqlRequests.incrementAndGet();
+            endpoint.sqlStatements.addAndGet(settledCount(sqlCounter) - statementsBefore);
+        }
+        return body;
+    }
+
+    /** The counter once it has not moved for 50 ms, so asynchronous follow-up work is included (at most 2 s). */
+    private static long settledCount(LongSupplier counter) throws InterruptedException {
+        long last = counter.getAsLong();
+        for (int i = 0; i < 40; i++) {
+            Thread.sleep(50);
+            long now = counter.getAsLong();
+            if (now == last) {
+                return now;
+            }
+            last = now;
+        }
+        return last;
+    }
+
+    private static String write(Object json) {
+        try {
+            return JSON.writeValueAsString(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.tracker.loadtest;
+
+import com.tracker.ExpenseTrackerApplication;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import com.tracker.service.ExpenseService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures expense insert throughput against the number of shards. For each count in
+ * {@code shards} (0 runs without sharding) it starts the application with that many
+ * in-memory shards, creates {@code users} users, and has {@code concurrency} workers add
+ * expenses for random users through {@link ExpenseService} (the path POST /api/expenses
+ * takes, rollups and events included, without the HTTP layer) for {@code warmup} and then
+ * {@code duration} seconds. Each count runs in a fresh JVM (same classpath), so none
+ * starts with code the JIT compiled for another. It prints inserts per second for each
+ * count and the speed-up over the first. With H2 in memory all shards share one JVM and
+ * its CPUs, so the gain comes from spreading lock and write contention over several
+ * databases and is bounded by the cores available; on a single core expect none.
+ *
+ * <p>Options, as {@code name=value} or {@code --name=value}: shards (comma-separated,
+ * default 0,1,2,4), users, concurrency, warmup, duration, seed and report. Any other option
+ * is passed to the application in every run.
+ */
+public class ShardScaling {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "shards", "0,1,2,4",
+            "users", "200",
+            "concurrency", "16",
+            "warmup", "15",
+            "duration", "20",
+            "seed", "42");
+
+    private static final String RESULT = "inserts/s=";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            String name = arg.replaceFirst("^--", "").split("=", 2)[0];
+            if (DEFAULTS.containsKey(name) || List.of("report", "measure").contains(name)) {
+                options.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank() && !name.equals("baseline")) {
+                appArgs.add(arg.startsWith("--") ? arg : "--" + arg);
+            }
+        }
+        if (options.containsKey("measure")) {
+            System.out.println(RESULT + run(Integer.parseInt(options.get("measure")), options, appArgs));
+            System.exit(0);
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Expense inserts with %s users, %s workers, %s s measured (%d CPUs)%n",
+                options.get("users"), options.get("concurrency"), options.get("duration"),
+                Runtime.getRuntime().availableProcessors()));
+        report.append(String.format("%-7s %12s %9s%n", "shards", "inserts/s", "speed-up"));
+        double first = 0;
+        for (String count : options.get("shards").split(",")) {
+            int shards = Integer.parseInt(count.trim());
+            double rate = fork(shards, args);
+            first = first == 0 ? rate : first;
+            report.append(String.format("%-7s %12.0f %8.2fx%n", shards == 0 ? "off" : shards, rate, rate / first));
+        }
+        System.out.println();
+        System.out.print(report);
+        if (options.containsKey("report")) {
+            Path path = Path.of(options.get("report"));
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.writeString(path, report);
+        }
+        System.exit(0);
+    }
+
+    /** Runs {@link #run} in a new JVM and returns its result. */
+    private static double fork(int shards, String[] args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-classpath");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardScaling.class.getName());
+        command.addAll(List.of(args));
+        command.add("--measure=" + shards);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Double rate = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(RESULT)) {
+                    rate = Double.valueOf(line.substring(RESULT.length()));
+                } else {
+                    System.out.println(line);
+                }
+            }
+        }
+        int status = process.waitFor();
+        if (rate == null) {
+            throw new IllegalStateException("The run with " + shards + " shards exited with status " + status);
+        }
+        return rate;
+    }
+
+    /** Inserts per second with {@code shards} shards. */
+    private static double run(int shards, Map<String, String> options, List<String> appArgs) throws Exception {
+        String run = UUID.randomUUID().toString();
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:scaling-" + run,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        if (shards > 0) {
+            List<String> urls = new ArrayList<>();
+            for (int i = 1; i <= shards; i++) {
+                urls.add("jdbc:h2:mem:scaling-" + run + "-shard" + i + ";DB_CLOSE_DELAY=-1");
+            }
+            args.add("--tracker.shards.enabled=true");
+            args.add("--tracker.shards.urls=" + String.join(",", urls));
+        }
+        args.addAll(appArgs);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ExpenseTrackerApplication.class)
+                .run(args.toArray(String[]::new))) {
+            UserRepository userRepo = context.getBean(UserRepository.class);
+            ExpenseService expenses = context.getBean(ExpenseService.class);
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < Integer.parseInt(options.get("users")); i++) {
+                User user = new User();
+                user.setUsername("scaling-user-" + i);
+                user.setPassword("-");
+                users.add(userRepo.save(user));
+            }
+
+            int concurrency = Integer.parseInt(options.get("concurrency"));
+            long seed = Long.parseLong(options.get("seed"));
+            AtomicBoolean recording = new AtomicBoolean();
+            AtomicLong inserts = new AtomicLong();
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+            long runEnd = warmupEnd + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                Random random = new Random(seed + 7919L * (w + 1));
+                running.add(workers.submit(() -> {
+                    LocalDate today = LocalDate.now();
+                    while (System.nanoTime() < runEnd) {
+                        User user = users.get(random.nextInt(users.size()));
+                        Expense expense = new Expense();
+                        expense.setAmount(1 + random.nextInt(10_000) / 100.0);
+                        expense.setCategory(Category.FOOD);
+                        expense.setDate(today.minusDays(random.nextInt(90)));
+                        DataGenerator.signIn(user);
+                        try {
+                            expenses.add(user, expense);
+                        } finally {
+                            SecurityContextHolder.clearContext();
+                        }
+                        if (recording.get()) {
+                            inserts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(warmupEnd - System.nanoTime())));
+            recording.set(true);
+            long measureStart = System.nanoTime();
+            workers.shutdown();
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+            double rate = inserts.get() / seconds;
+            System.out.printf("%s: %d inserts in %.1f s, %.0f/s%n", shards == 0 ? "no sharding" : shards + " shards",
+                    inserts.get(), seconds, rate);
+            return rate;
+        }
+    }
+}
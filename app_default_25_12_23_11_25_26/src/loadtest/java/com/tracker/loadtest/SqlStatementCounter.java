@@ -0,0 +1,60 @@
+package com.tracker.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the SQL statements the application sends, by wrapping its DataSource so every
+ * statement a connection prepares or creates is counted. JPA and JdbcTemplate are both
+ * covered; a JDBC batch counts once, like the single round trip it is. Registered only
+ * in the load test's application context.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("prepareStatement", "createStatement", "prepareCall");
+
+    private final AtomicLong statements = new AtomicLong();
+
+    public long statements() {
+        return statements.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return proxy(DataSource.class, dataSource, (method, result) ->
+                result instanceof Connection c && method.getName().equals("getConnection")
+                        ? proxy(Connection.class, c, this::counted)
+                        : result);
+    }
+
+    private Object counted(Method method, Object result) {
+        if (STATEMENT_FACTORIES.contains(method.getName())) {
+            statements.incrementAndGet();
+        }
+        return result;
+    }
+
+    private interface AfterCall {
+        Object apply(Method method, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, AfterCall after) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            try {
+                return after.apply(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }));
+    }
+}
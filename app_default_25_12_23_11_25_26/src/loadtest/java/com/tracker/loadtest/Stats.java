@@ -0,0 +1,118 @@
+package com.tracker.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results by request label: a latency histogram in microseconds and an error count from
+ * the measured run, and the statements per request from the serial SQL pass.
+ */
+class Stats {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /** Whether latencies and errors are recorded; off during warm-up and the SQL pass. */
+    volatile boolean recording;
+
+    Endpoint endpoint(String label) {
+        return endpoints.computeIfAbsent(label, l -> new Endpoint());
+    }
+
+    long requests() {
+        return endpoints.values().stream().mapToLong(e -> e.latency.getTotalCount()).sum();
+    }
+
+    long errors() {
+        return endpoints.values().stream().mapToLong(e -> e.errors.get()).sum();
+    }
+
+    static class Endpoint {
+        final Histogram latency = new ConcurrentHistogram(3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong sqlRequests = new AtomicLong();
+        final AtomicLong sqlStatements = new AtomicLong();
+
+        /** Mean statements per request in the SQL pass, or -1 if the label was not sampled. */
+        double sqlPerRequest() {
+            long n = sqlRequests.get();
+            return n == 0 ? -1 : (double) sqlStatements.get() / n;
+        }
+    }
+
+    String report(double seconds) {
+        StringBuilder out = new StringBuilder(String.format("%-28s %8s %8s %9s %9s %9s %9s %8s %7s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "sql/req", "errors"));
+        for (Map.Entry<String, Endpoint> e : new TreeMap<>(endpoints).entrySet()) {
+            Histogram h = e.getValue().latency;
+            out.append(String.format("%-28s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %8s %7d%n",
+                    e.getKey(), h.getTotalCount(), h.getTotalCount() / seconds,
+                    millis(h, 50), millis(h, 99), millis(h, 99.9), h.getMaxValue() / 1000.0,
+                    e.getValue().sqlPerRequest() < 0 ? "-" : String.format("%.1f", e.getValue().sqlPerRequest()),
+                    e.getValue().errors.get()));
+        }
+        long requests = requests();
+        out.append(String.format("%ntotal %d requests, %.1f req/s, %d errors (%.3f%%)%n",
+                requests, requests / seconds, errors(), requests == 0 ? 0 : 100.0 * errors() / requests));
+        return out.toString();
+    }
+
+    /**
+     * Threshold violations against a baseline. Keys are {@code throughput.min} (requests per
+     * second over the whole mix), {@code errors.max-rate} (a fraction of all requests), and
+     * per endpoint {@code <label>.p99-ms}, {@code <label>.p999-ms} and {@code <label>.sql}
+     * (statements per request). Endpoints without samples are not checked.
+     */
+    List<String> violations(Properties baseline, double seconds) {
+        List<String> violations = new ArrayList<>();
+        long requests = requests();
+        double throughput = requests / seconds;
+        double errorRate = requests == 0 ? 0 : (double) errors() / requests;
+        for (String key : new TreeMap<>(baseline).keySet().stream().map(Object::toString).toList()) {
+            double limit = Double.parseDouble(baseline.getProperty(key).trim());
+            if (key.equals("throughput.min")) {
+                if (throughput < limit) {
+                    violations.add(String.format("throughput %.1f req/s below %s", throughput, limit));
+                }
+                continue;
+            }
+            if (key.equals("errors.max-rate")) {
+                if (errorRate > limit) {
+                    violations.add(String.format("error rate %.4f above %s", errorRate, limit));
+                }
+                continue;
+            }
+            int dot = key.lastIndexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Unknown baseline key: " + key);
+            }
+            Endpoint endpoint = endpoints.get(key.substring(0, dot));
+            if (endpoint == null) {
+                continue;
+            }
+            String metric = key.substring(dot + 1);
+            double value = switch (metric) {
+                case "p99-ms" -> millis(endpoint.latency, 99);
+                case "p999-ms" -> millis(endpoint.latency, 99.9);
+                case "sql" -> endpoint.sqlPerRequest();
+                default -> throw new IllegalArgumentException("Unknown baseline key: " + key);
+            };
+            boolean sampled = metric.equals("sql") ? value >= 0 : endpoint.latency.getTotalCount() > 0;
+            if (sampled && value > limit) {
+                violations.add(String.format("%s is %.2f, above %s", key, value, limit));
+            }
+        }
+        return violations;
+    }
+
+    private static double millis(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
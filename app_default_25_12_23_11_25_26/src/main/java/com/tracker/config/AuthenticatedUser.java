@@ -0,0 +1,73 @@
+package com.tracker.config;
+
+import com.tracker.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The principal put in the security context for every authenticated request. It carries
+ * the user id so controllers never have to look the user up again. Instances are cached
+ * and shared between requests, so it is immutable and deliberately not a
+ * CredentialsContainer (which would let Spring Security erase the cached password hash).
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private final String password;
+
+    public AuthenticatedUser(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /** A detached User carrying the id, usable in queries and as an association target. */
+    public User toUser() {
+        return new User(id, username, password);
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
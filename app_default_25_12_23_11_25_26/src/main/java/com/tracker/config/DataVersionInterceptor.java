@@ -0,0 +1,47 @@
+package com.tracker.config;
+
+import com.tracker.service.DataVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.LocalDate;
+
+/**
+ * Conditional GET for the user's data endpoints. The ETag is built from the user's
+ * {@link DataVersions} counter plus today's date, because several responses (current month,
+ * today's limit, tips) depend on the date. A matching If-None-Match is answered with 304
+ * here, before the handler or any of its argument resolvers touch the database.
+ */
+@Component
+public class DataVersionInterceptor implements HandlerInterceptor {
+
+    private final DataVersions dataVersions;
+
+    public DataVersionInterceptor(DataVersions dataVersions) {
+        this.dataVersions = dataVersions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof AuthenticatedUser user)) {
+            return true;
+        }
+        String etag = "\"" + user.getId()
+                + "-" + Long.toString(dataVersions.epoch(), 36)
+                + "-" + dataVersions.current(user.getId())
+                + "-" + LocalDate.now() + "\"";
+        // Let the browser keep the response but revalidate it on every use.
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
@@ -0,0 +1,347 @@
+package com.tracker.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.api.Trigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for database replication, for running with read replicas locally on H2
+ * ({@code tracker.replicas.replicate}, the {@code replicas} profile). Row triggers on every
+ * table of the primary capture each changed row. The rows a transaction changed take their
+ * place in the replication log as it is about to commit (after flushing, so rows that
+ * conflict are in commit order), and are shipped once it has committed. A single thread
+ * copies shipped rows to every replica, {@code replicate-delay} after the commit to
+ * simulate lag, as MERGE and DELETE by primary key. On start the schema and current rows
+ * are scripted from the primary onto each replica, with the triggers already capturing, so
+ * nothing written meanwhile is lost.
+ */
+public class H2Replication implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(H2Replication.class);
+    private static final Map<String, H2Replication> RUNNING = new ConcurrentHashMap<>();
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final EntityManagerFactory entityManagerFactory;
+    private final long delayNanos;
+    private final String id = "REPLICATE_" + IDS.incrementAndGet();
+    private final Map<String, Table> tables = new HashMap<>();
+    private final BlockingQueue<Batch> shipped = new LinkedBlockingQueue<>();
+    private Thread applier;
+    private volatile boolean capturing;
+    private volatile boolean running;
+
+    public H2Replication(DataSource primary, List<DataSource> replicas, EntityManagerFactory entityManagerFactory,
+                         Duration delay) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.entityManagerFactory = entityManagerFactory;
+        this.delayNanos = delay.toNanos();
+    }
+
+    /** Before the web server starts, so the replicas have the data by the time anyone reads. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void start() {
+        RUNNING.put(id, this);
+        capturing = true;
+        List<Connection> followers = new ArrayList<>();
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            for (Table table : tables(connection)) {
+                tables.put(table.name, table);
+                statement.execute("create trigger \"" + id + "_" + table.name + "\" after insert, update, delete on \""
+                        + table.name + "\" for each row call '" + Capture.class.getName() + "'");
+            }
+            List<String> script = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("script nopasswords nosettings")) {
+                while (rs.next()) {
+                    String sql = rs.getString(1);
+                    if (!sql.startsWith("CREATE USER") && !sql.startsWith("CREATE FORCE TRIGGER")
+                            && !sql.startsWith("CREATE TRIGGER")) {
+                        script.add(sql);
+                    }
+                }
+            }
+            for (DataSource replica : replicas) {
+                Connection follower = replica.getConnection();
+                followers.add(follower);
+                try (Statement copy = follower.createStatement()) {
+                    for (String sql : script) {
+                        copy.execute(sql);
+                    }
+                }
+                follower.setAutoCommit(false);
+            }
+        } catch (SQLException e) {
+            capturing = false;
+            RUNNING.remove(id);
+            followers.forEach(H2Replication::closeQuietly);
+            throw new IllegalStateException("Could not set up replication to the replicas", e);
+        }
+        log.info("Replicating {} tables to {} replicas", tables.size(), replicas.size());
+        running = true;
+        applier = new Thread(() -> apply(followers), "replication");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @Override
+    public void stop() {
+        capturing = false;
+        running = false;
+        RUNNING.remove(id);
+        if (applier != null) {
+            applier.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void captured(String tableName, Object[] oldRow, Object[] newRow, Connection connection)
+            throws SQLException {
+        Table table = tables.get(tableName);
+        Change change = newRow != null ? new Change(table, newRow, false) : new Change(table, oldRow, true);
+        if (!connection.getAutoCommit() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending().changes.add(change);
+            return;
+        }
+        Batch batch = new Batch(new ArrayList<>(List.of(change)));
+        batch.shipped(true);
+        shipped.add(batch);
+    }
+
+    private Pending pending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Pending pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        Pending pending = new Pending();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void apply(List<Connection> followers) {
+        Map<String, PreparedStatement> statements = new HashMap<>();
+        try {
+            while (running) {
+                Batch batch = shipped.take();
+                if (!batch.committed.get()) {
+                    continue;
+                }
+                long wait = batch.committedAt + delayNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                for (int i = 0; i < followers.size(); i++) {
+                    apply(i, followers.get(i), batch, statements);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            followers.forEach(H2Replication::closeQuietly);
+        }
+    }
+
+    private void apply(int follower, Connection connection, Batch batch, Map<String, PreparedStatement> statements) {
+        try {
+            for (Change change : batch.changes) {
+                String key = follower + (change.deleted ? ":delete:" : ":merge:") + change.table.name;
+                PreparedStatement ps = statements.get(key);
+                if (ps == null) {
+                    ps = connection.prepareStatement(change.deleted ? change.table.delete() : change.table.merge());
+                    statements.put(key, ps);
+                }
+                if (change.deleted) {
+                    for (int k = 0; k < change.table.keys.length; k++) {
+                        ps.setObject(k + 1, change.row[change.table.keys[k]]);
+                    }
+                } else {
+                    for (int c = 0; c < change.row.length; c++) {
+                        ps.setObject(c + 1, change.row[c]);
+                    }
+                }
+                ps.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            // A stand-in: the replica misses this transaction, and reads from it may show that.
+            log.error("Could not apply a transaction to replica {}", follower + 1, e);
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // The next batch reports it again if the connection is gone.
+            }
+        }
+    }
+
+    private static List<Table> tables(Connection connection) throws SQLException {
+        Map<String, List<String>> columns = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select c.table_name, c.column_name "
+                     + "from information_schema.columns c join information_schema.tables t "
+                     + "on t.table_schema = c.table_schema and t.table_name = c.table_name "
+                     + "where t.table_schema = 'PUBLIC' and t.table_type = 'BASE TABLE' "
+                     + "order by c.table_name, c.ordinal_position")) {
+            while (rs.next()) {
+                columns.computeIfAbsent(rs.getString(1), t -> new ArrayList<>()).add(rs.getString(2));
+            }
+        }
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<Table> tables = new ArrayList<>();
+        for (Map.Entry<String, List<String>> table : columns.entrySet()) {
+            List<Integer> keys = new ArrayList<>();
+            try (ResultSet rs = metaData.getPrimaryKeys(null, "PUBLIC", table.getKey())) {
+                while (rs.next()) {
+                    keys.add(table.getValue().indexOf(rs.getString("COLUMN_NAME")));
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new SQLException("Table " + table.getKey() + " has no primary key to replicate by");
+            }
+            tables.add(new Table(table.getKey(), table.getValue(), keys.stream().mapToInt(Integer::intValue).toArray()));
+        }
+        return tables;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Shutting down.
+        }
+    }
+
+    private record Table(String name, List<String> columns, int[] keys) {
+        String merge() {
+            return "merge into \"" + name + "\" (" + quoted(columns) + ") key (" + quoted(keyColumns())
+                    + ") values (" + "?, ".repeat(columns.size() - 1) + "?)";
+        }
+
+        String delete() {
+            StringBuilder sql = new StringBuilder("delete from \"").append(name).append("\" where ");
+            List<String> keyColumns = keyColumns();
+            for (int k = 0; k < keyColumns.size(); k++) {
+                sql.append(k == 0 ? "" : " and ").append('"').append(keyColumns.get(k)).append("\" = ?");
+            }
+            return sql.toString();
+        }
+
+        private List<String> keyColumns() {
+            List<String> keyColumns = new ArrayList<>();
+            for (int k : keys) {
+                keyColumns.add(columns.get(k));
+            }
+            return keyColumns;
+        }
+
+        private static String quoted(List<String> names) {
+            return "\"" + String.join("\", \"", names) + "\"";
+        }
+    }
+
+    /** A row's new values, or for a delete its old ones. */
+    private record Change(Table table, Object[] row, boolean deleted) {
+    }
+
+    /** The changes of one transaction, in the log from its commit on; applied only if it committed. */
+    private static final class Batch {
+        final List<Change> changes;
+        final CompletableFuture<Boolean> committed = new CompletableFuture<>();
+        volatile long committedAt;
+
+        Batch(List<Change> changes) {
+            this.changes = changes;
+        }
+
+        void shipped(boolean commit) {
+            committedAt = System.nanoTime();
+            committed.complete(commit);
+        }
+    }
+
+    private class Pending implements TransactionSynchronization {
+        final List<Change> changes = new ArrayList<>();
+        Batch batch;
+
+        H2Replication owner() {
+            return H2Replication.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(
+                    entityManagerFactory);
+            if (holder != null) {
+                holder.getEntityManager().flush();
+            }
+            // Rows changed from here on still join this batch; it is not applied before the commit completes.
+            batch = new Batch(changes);
+            shipped.add(batch);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (batch != null) {
+                batch.shipped(status == STATUS_COMMITTED);
+            }
+        }
+    }
+
+    /** The H2 trigger installed on the primary's tables; hands each changed row to its {@link H2Replication}. */
+    public static class Capture implements Trigger {
+        private H2Replication replication;
+        private String table;
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+                         int type) {
+            this.replication = RUNNING.get(triggerName.substring(0, triggerName.length() - tableName.length() - 1));
+            this.table = tableName;
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            if (replication != null && replication.capturing) {
+                replication.captured(table, oldRow, newRow, conn);
+            }
+        }
+    }
+}
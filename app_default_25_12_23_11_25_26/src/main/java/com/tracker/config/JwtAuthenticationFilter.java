@@ -18,13 +18,13 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtils jwtUtils;
+    private final JwtTokenVerifier tokenVerifier;
     private final UserDetailsService userDetailsService;
 
     public JwtAuthenticationFilter(
-            JwtUtils jwtUtils,
+            JwtTokenVerifier tokenVerifier,
             UserDetailsService userDetailsService) {
-        this.jwtUtils = jwtUtils;
+        this.tokenVerifier = tokenVerifier;
         this.userDetailsService = userDetailsService;
     }
 
@@ -44,9 +44,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String jwt = parseJwt(request);
 
-        if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+        String username = jwt != null ? tokenVerifier.verify(jwt) : null;
 
-            String username = jwtUtils.getUserNameFromJwtToken(jwt);
+        if (username != null) {
 
             UserDetails userDetails =
                     userDetailsService.loadUserByUsername(username);
@@ -74,6 +74,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
             return headerAuth.substring(7);
         }
+        // EventSource cannot send headers. Only accepted for the stream, as query strings end up in logs.
+        if (request.getServletPath().equals("/api/stream")) {
+            return request.getParameter("token");
+        }
         return null;
     }
 }
@@ -0,0 +1,84 @@
+package com.tracker.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies bearer tokens for the JWT filter. A token is parsed and checked once; after that
+ * it is served from a bounded cache keyed by its SHA-256 digest, so the raw token is never
+ * retained. An entry lives until the token's own {@code exp}, never longer.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JwtUtils jwtUtils;
+    private final Cache<ByteBuffer, Verified> cache;
+
+    public JwtTokenVerifier(JwtUtils jwtUtils,
+                            @Value("${tracker.jwt-cache.max-size:10000}") long maxSize) {
+        this.jwtUtils = jwtUtils;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    /** Returns the token's subject, or null if the token is malformed, forged or expired. */
+    public String verify(String token) {
+        ByteBuffer key = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        Verified hit = cache.getIfPresent(key);
+        if (hit != null) {
+            return hit.username;
+        }
+        Claims claims;
+        try {
+            claims = jwtUtils.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getExpiration() != null) {
+            cache.put(key, new Verified(claims.getSubject(), claims.getExpiration().getTime()));
+        }
+        return claims.getSubject();
+    }
+
+    private record Verified(String username, long expiresAtMillis) {
+    }
+
+    private static class UntilTokenExpiry implements Expiry<ByteBuffer, Verified> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Verified value, long currentTime) {
+            long remainingMs = value.expiresAtMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Verified value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Verified value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
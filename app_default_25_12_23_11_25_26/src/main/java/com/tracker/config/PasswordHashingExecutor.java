@@ -0,0 +1,95 @@
+package com.tracker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work (sign-in checks, sign-up encoding) off the Tomcat request threads on a
+ * small fixed pool with a bounded queue, so a login storm can only use that pool's CPU
+ * and never starves the API endpoints. When the queue is full, work is refused at once
+ * with {@link SaturatedException} instead of piling up.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor pool;
+    private final Timer queueWait;
+    private final Timer duration;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(
+            @Value("${tracker.auth.hash-threads:0}") int threads,
+            @Value("${tracker.auth.hash-queue-capacity:64}") int queueCapacity,
+            MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWait = Timer.builder("auth.hash.queue.wait")
+                .description("Time password hashing work waited for a hashing thread")
+                .register(registry);
+        this.duration = Timer.builder("auth.hash.duration")
+                .description("Time spent running password hashing work")
+                .register(registry);
+        this.rejected = Counter.builder("auth.hash.rejected")
+                .description("Password hashing work refused because the queue was full")
+                .register(registry);
+        Gauge.builder("auth.hash.queue.size", pool, p -> p.getQueue().size()).register(registry);
+        Gauge.builder("auth.hash.active", pool, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    /**
+     * Queues {@code task} on the hashing pool. Throws {@link SaturatedException} right away
+     * when the queue is full; failures of the task itself complete the future exceptionally.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueued = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                long started = System.nanoTime();
+                queueWait.record(started - enqueued, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    duration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SaturatedException();
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public static class SaturatedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public SaturatedException() {
+            super("Too many sign-in requests in progress, please retry shortly");
+        }
+    }
+}
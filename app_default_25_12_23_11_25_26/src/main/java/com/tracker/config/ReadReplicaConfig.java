@@ -0,0 +1,88 @@
+package com.tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, on with {@code tracker.replicas.enabled} (the {@code replicas} profile).
+ * The application's DataSource then routes each connection to the primary
+ * ({@code spring.datasource.*}, with its {@code hikari} pool settings) or to one of the
+ * databases in {@code tracker.replicas.urls}, which share its credentials and driver; see
+ * {@link ReplicaRoutingDataSource} for which reads go where. Each database gets its own pool.
+ * With {@code tracker.replicas.replicate} the replicas are kept in sync by
+ * {@link H2Replication}, for trying this out with in-memory H2 databases.
+ *
+ * <p>Needs {@code spring.jpa.open-in-view=false}: an EntityManager held open for the whole
+ * request keeps its first connection, so later transactions of the request would not be routed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReadReplicas readReplicas(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                     @Value("${tracker.replicas.urls}") List<String> urls,
+                                     @Value("${tracker.replicas.pool-size:10}") int poolSize,
+                                     @Value("${tracker.replicas.connection-timeout:1s}") Duration connectionTimeout,
+                                     @Value("${tracker.replicas.read-your-writes:5s}") Duration readYourWrites,
+                                     @Value("${tracker.replicas.health-interval:1s}") Duration healthInterval,
+                                     @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("tracker.replicas.enabled needs spring.jpa.open-in-view=false");
+        }
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("tracker.replicas.urls lists no replicas");
+        }
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(registry);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(metrics);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setMaximumPoolSize(poolSize);
+            // A replica that is down should cost a read a moment, not the primary's 30 second wait.
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metrics);
+            replicas.add(replica);
+        }
+        return new ReadReplicas(primary, replicas, readYourWrites, healthInterval, registry);
+    }
+
+    @Bean
+    public DataSource dataSource(ReadReplicas readReplicas, MeterRegistry registry) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(readReplicas, registry));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracker.replicas.replicate", havingValue = "true")
+    public H2Replication h2Replication(ReadReplicas readReplicas, EntityManagerFactory entityManagerFactory,
+                                       @Value("${tracker.replicas.replicate-delay:0ms}") Duration delay) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReadReplicas.Replica replica : readReplicas.all()) {
+            replicas.add(replica.dataSource);
+        }
+        return new H2Replication(readReplicas.primary(), replicas, entityManagerFactory, delay);
+    }
+}
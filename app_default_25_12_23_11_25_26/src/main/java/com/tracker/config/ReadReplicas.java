@@ -0,0 +1,197 @@
+package com.tracker.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The primary and the read replicas behind {@link ReplicaRoutingDataSource}, and the state
+ * routing decides on. Every {@code health-interval} the primary stamps the time into a
+ * one-row {@value #HEARTBEAT} table, and each replica is checked by reading it back: a
+ * replica is in rotation while it answers and the stamp it holds is recent enough that it
+ * cannot be more than the read-your-writes window behind, even by the next check. A replica
+ * that fails to hand out a connection is taken out at once, until a check passes again.
+ *
+ * <p>Users who ran a read-write transaction in the last window are remembered, and their
+ * reads stay on the primary. So a user sees their own writes immediately, and everything
+ * read from a replica, including what the caches keep, is at most one window old.
+ */
+public class ReadReplicas {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicas.class);
+
+    static final String HEARTBEAT = "replica_heartbeat";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final Cache<Long, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checks;
+
+    public ReadReplicas(HikariDataSource primary, List<HikariDataSource> replicas, Duration readYourWrites,
+                        Duration healthInterval, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        for (HikariDataSource replica : replicas) {
+            this.replicas.add(new Replica(replica.getPoolName(), replica));
+        }
+        this.maxLagMillis = readYourWrites.minus(healthInterval).toMillis();
+        if (maxLagMillis <= 0) {
+            throw new IllegalStateException("tracker.replicas.health-interval must be shorter than "
+                    + "tracker.replicas.read-your-writes");
+        }
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWrites)
+                .build();
+        for (Replica replica : this.replicas) {
+            Gauge.builder("replica.lag", replica, r -> r.lagMillis)
+                    .description("How far the replica was behind the primary at the last check")
+                    .tag("replica", replica.name)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("replica.up", replica, r -> r.up ? 1 : 0)
+                    .description("Whether the replica is serving reads")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + HEARTBEAT + " (id int primary key, millis bigint not null)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the " + HEARTBEAT + " table on the primary", e);
+        }
+        this.checks = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-health");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = healthInterval.toMillis();
+        checks.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public DataSource primary() {
+        return primary;
+    }
+
+    List<Replica> all() {
+        return replicas;
+    }
+
+    Replica named(String name) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(name)) {
+                return replica;
+            }
+        }
+        throw new IllegalArgumentException("No replica " + name);
+    }
+
+    /** The next replica in rotation for a read by {@code userId}, or null when it has to go to the primary. */
+    Replica pick(Long userId) {
+        if (userId == null || recentWriters.getIfPresent(userId) != null) {
+            return null;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.up) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /** Starts (or restarts) the read-your-writes window of {@code userId}. */
+    void wrote(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    void failed(Replica replica, SQLException e) {
+        if (replica.up) {
+            log.warn("Replica {} taken out of rotation: {}", replica.name, e.getMessage());
+        }
+        replica.up = false;
+    }
+
+    private void check() {
+        try (Connection connection = primary.getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                     "update " + HEARTBEAT + " set millis = ? where id = 1")) {
+            update.setLong(1, System.currentTimeMillis());
+            if (update.executeUpdate() == 0) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "insert into " + HEARTBEAT + " (id, millis) values (1, ?)")) {
+                    insert.setLong(1, System.currentTimeMillis());
+                    insert.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(Replica replica) {
+        long lag;
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select millis from " + HEARTBEAT + " where id = 1")) {
+            lag = rs.next() ? Math.max(0, System.currentTimeMillis() - rs.getLong(1)) : Long.MAX_VALUE;
+        } catch (SQLException e) {
+            failed(replica, e);
+            replica.lagMillis = Double.NaN;
+            return;
+        }
+        boolean up = lag <= maxLagMillis;
+        if (up && !replica.up) {
+            log.info("Replica {} in rotation, {} ms behind", replica.name, lag);
+        } else if (!up && replica.up) {
+            log.warn("Replica {} taken out of rotation: {} ms behind", replica.name, lag);
+        }
+        replica.lagMillis = lag == Long.MAX_VALUE ? Double.NaN : lag;
+        replica.up = up;
+    }
+
+    @PreDestroy
+    public void close() {
+        checks.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primary.close();
+    }
+
+    static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        volatile boolean up;
+        volatile double lagMillis = Double.NaN;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
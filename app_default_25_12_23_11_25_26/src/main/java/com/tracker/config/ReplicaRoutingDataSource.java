@@ -0,0 +1,124 @@
+package com.tracker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends the connections of read-only transactions ({@code @Transactional(readOnly = true)},
+ * and Spring Data's own finder methods) to a {@link ReadReplicas replica}, and everything
+ * else to the primary. A read goes to the primary too when it does not run as an
+ * authenticated user, or when that user wrote within the read-your-writes window; a
+ * read-write transaction of a user starts that window again when it completes.
+ *
+ * <p>The routing decision needs the transaction's read-only flag, which is only set after
+ * the transaction has begun, so this must sit behind a {@code LazyConnectionDataSourceProxy}
+ * that fetches the connection on the first statement. A replica that cannot hand out a
+ * connection is taken out of rotation and the next one (or the primary) is used instead.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final ReadReplicas replicas;
+    private final Map<Object, Counter> routed = new HashMap<>();
+
+    public ReplicaRoutingDataSource(ReadReplicas replicas, MeterRegistry registry) {
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, replicas.primary());
+        for (ReadReplicas.Replica replica : replicas.all()) {
+            targets.put(replica.name, replica.dataSource);
+        }
+        for (Object name : targets.keySet()) {
+            routed.put(name, Counter.builder("datasource.routed")
+                    .description("Connections handed out by the routing DataSource, by target")
+                    .tag("target", name.toString())
+                    .register(registry));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicas.primary());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(target -> target.getConnection(username, password));
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        while (true) {
+            Object target = determineCurrentLookupKey();
+            try {
+                Connection connection = connector.connect(resolve(target));
+                routed.get(target).increment();
+                return connection;
+            } catch (SQLFeatureNotSupportedException e) {
+                // Says nothing about the replica's health (pools that only use their own credentials).
+                throw e;
+            } catch (SQLException e) {
+                if (target.equals(PRIMARY)) {
+                    throw e;
+                }
+                replicas.failed(replicas.named(target.toString()), e);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Statements outside a transaction (the ledger loads, say) are reads as far as the window goes.
+            if (userId != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                wrote(userId);
+            }
+            return PRIMARY;
+        }
+        ReadReplicas.Replica replica = replicas.pick(userId);
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    private DataSource resolve(Object target) {
+        return getResolvedDataSources().get(target);
+    }
+
+    /** Opens the user's window now, and again once the transaction has committed or rolled back. */
+    private void wrote(Long userId) {
+        replicas.wrote(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    replicas.wrote(userId);
+                }
+            });
+        }
+    }
+
+    private static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser principal ? principal.getId() : null;
+    }
+
+    private interface Connector {
+        Connection connect(DataSource target) throws SQLException;
+    }
+}
@@ -1,22 +1,39 @@
 package com.tracker.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * BCrypt at the configured cost. A stored hash made with any other cost is reported as
+     * needing an upgrade, so it is re-hashed on the user's next successful sign-in.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${tracker.auth.bcrypt-strength:10}") int strength) {
+        String costPrefix = String.format("$%02d$", strength);
+        return new BCryptPasswordEncoder(strength) {
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return encodedPassword != null && encodedPassword.length() > 7
+                        && !encodedPassword.startsWith(costPrefix, 3);
+            }
+        };
     }
 
     @Bean
@@ -28,9 +45,20 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authz -> authz
+                .requestMatchers(AntPathRequestMatcher.antMatcher("/actuator/shards/**")).access(localOnly())
+                .requestMatchers(AntPathRequestMatcher.antMatcher("/actuator/metrics/**"),
+                        AntPathRequestMatcher.antMatcher("/actuator/prometheus")).access(localOnly())
                 .anyRequest().permitAll()
             );
 
         return http.build();
     }
+
+    /** For endpoints that act on or describe the deployment itself, such as adding a shard or its metrics. */
+    private static AuthorizationManager<RequestAuthorizationContext> localOnly() {
+        IpAddressMatcher ipv4 = new IpAddressMatcher("127.0.0.1");
+        IpAddressMatcher ipv6 = new IpAddressMatcher("::1");
+        return (authentication, context) -> new AuthorizationDecision(
+                ipv4.matches(context.getRequest()) || ipv6.matches(context.getRequest()));
+    }
 }
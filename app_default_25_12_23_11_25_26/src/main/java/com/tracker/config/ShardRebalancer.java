@@ -0,0 +1,294 @@
+package com.tracker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adds shards and moves users onto the shard the ring now picks for them, online. Users are
+ * moved one at a time on a background thread: the user's connections are held back and the
+ * open ones waited for (up to {@code move-timeout}), their rows in every table with a
+ * {@code user_id} column are copied to the new shard in one transaction, the directory is
+ * pointed at it and the user is let go; the old rows are deleted afterwards. Other users are
+ * not held up at all. A user whose connections stay open past the timeout (a long export,
+ * say) is left for the next pass; passes repeat while they make progress.
+ */
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final Shards shards;
+    private final ShardSchema schema;
+    private final Duration moveTimeout;
+    private final Counter moved;
+    private final Counter deferred;
+    private final Counter failed;
+    private final ExecutorService worker;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Status status = new Status(false, 0, 0, 0, 0, null, null);
+
+    public ShardRebalancer(Shards shards, ShardSchema schema, Duration moveTimeout, MeterRegistry registry) {
+        this.shards = shards;
+        this.schema = schema;
+        this.moveTimeout = moveTimeout;
+        this.moved = moves(registry, "moved");
+        this.deferred = moves(registry, "deferred");
+        this.failed = moves(registry, "failed");
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "shard-rebalance");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Counter moves(MeterRegistry registry, String outcome) {
+        return Counter.builder("shard.moves")
+                .description("Users the rebalancer tried to move to another shard, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /** Adds a shard on {@code url} to the ring and starts moving users onto it. */
+    public Shards.Shard add(String url) {
+        Shards.Shard shard = shards.create(url);
+        try {
+            schema.prepare(shard);
+            shards.publish(shard);
+        } catch (SQLException | RuntimeException e) {
+            shard.dataSource().close();
+            throw new IllegalStateException("Could not add a shard on " + url, e);
+        }
+        rebalance();
+        return shard;
+    }
+
+    /** Starts moving misplaced users in the background; false if that is already under way. */
+    public boolean rebalance() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        status = new Status(true, 0, 0, 0, 0, Instant.now(), null);
+        worker.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Rebalancing stopped", e);
+            } finally {
+                status = status.done();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    private void run() throws SQLException, InterruptedException {
+        while (true) {
+            ShardRing ring = shards.ring();
+            List<Move> misplaced = new ArrayList<>();
+            shards.forEachPlacement((userId, shard) -> {
+                String target = ring.locate(userId);
+                if (!target.equals(shard)) {
+                    misplaced.add(new Move(userId, shard, target));
+                }
+            });
+            if (misplaced.isEmpty()) {
+                return;
+            }
+            log.info("Moving {} users to their shards", misplaced.size());
+            int progress = 0;
+            for (int i = 0; i < misplaced.size(); i++) {
+                status = status.withPending(misplaced.size() - i);
+                Move move = misplaced.get(i);
+                try {
+                    if (move(move)) {
+                        moved.increment();
+                        status = status.plusMoved();
+                        progress++;
+                    } else {
+                        deferred.increment();
+                        status = status.plusDeferred();
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    log.error("Could not move user {} from {} to {}", move.userId(), move.from(), move.to(), e);
+                    failed.increment();
+                    status = status.plusFailed();
+                }
+            }
+            status = status.withPending(0);
+            if (progress == 0) {
+                log.warn("No user could be moved in the last pass; rebalance again to retry");
+                return;
+            }
+        }
+    }
+
+    private boolean move(Move move) throws SQLException, InterruptedException {
+        Shards.Shard from = shards.named(move.from());
+        Shards.Shard to = shards.named(move.to());
+        if (!shards.fence(move.userId(), moveTimeout)) {
+            return false;
+        }
+        try {
+            copy(move.userId(), from, to);
+            shards.moved(move.userId(), to.name());
+        } finally {
+            shards.unfence(move.userId());
+        }
+        try (Connection connection = from.dataSource().getConnection()) {
+            delete(connection, move.userId());
+        } catch (SQLException e) {
+            // Nothing routes the user there any more; copying them back later clears the rows first.
+            log.warn("Could not delete the moved rows of user {} from {}: {}", move.userId(), from.name(),
+                    e.getMessage());
+        }
+        return true;
+    }
+
+    private static void copy(Long userId, Shards.Shard from, Shards.Shard to) throws SQLException {
+        try (Connection source = from.dataSource().getConnection();
+             Connection target = to.dataSource().getConnection()) {
+            // Left over if an earlier move to this shard failed after copying.
+            delete(target, userId);
+            target.setAutoCommit(false);
+            try {
+                copyRows(source, target, "USERS", "ID", userId);
+                for (String table : userTables(source)) {
+                    copyRows(source, target, table, "USER_ID", userId);
+                }
+                target.commit();
+            } catch (SQLException | RuntimeException e) {
+                target.rollback();
+                throw e;
+            } finally {
+                target.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void copyRows(Connection source, Connection target, String table, String key, Long userId)
+            throws SQLException {
+        try (PreparedStatement select = source.prepareStatement(
+                "select * from \"" + table + "\" where \"" + key + "\" = ?")) {
+            select.setLong(1, userId);
+            try (ResultSet rs = select.executeQuery()) {
+                ResultSetMetaData columns = rs.getMetaData();
+                StringBuilder names = new StringBuilder();
+                for (int c = 1; c <= columns.getColumnCount(); c++) {
+                    names.append(c == 1 ? "\"" : ", \"").append(columns.getColumnName(c)).append('"');
+                }
+                String insert = "insert into \"" + table + "\" (" + names + ") values ("
+                        + "?, ".repeat(columns.getColumnCount() - 1) + "?)";
+                try (PreparedStatement ps = target.prepareStatement(insert)) {
+                    int batched = 0;
+                    while (rs.next()) {
+                        for (int c = 1; c <= columns.getColumnCount(); c++) {
+                            ps.setObject(c, rs.getObject(c));
+                        }
+                        ps.addBatch();
+                        if (++batched % BATCH_SIZE == 0) {
+                            ps.executeBatch();
+                        }
+                    }
+                    if (batched % BATCH_SIZE != 0) {
+                        ps.executeBatch();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Deletes the rows of {@code userId} from a shard, their users row last. */
+    private static void delete(Connection connection, Long userId) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            for (String table : userTables(connection)) {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "delete from \"" + table + "\" where \"USER_ID\" = ?")) {
+                    ps.setLong(1, userId);
+                    ps.executeUpdate();
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement("delete from \"USERS\" where \"ID\" = ?")) {
+                ps.setLong(1, userId);
+                ps.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /** The tables holding users' rows; they refer to nothing but {@code users}, so any order will do. */
+    private static List<String> userTables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select c.table_name from information_schema.columns c "
+                     + "join information_schema.tables t "
+                     + "on t.table_schema = c.table_schema and t.table_name = c.table_name "
+                     + "where t.table_schema = 'PUBLIC' and t.table_type = 'BASE TABLE' "
+                     + "and c.column_name = 'USER_ID' order by c.table_name")) {
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+        }
+        return tables;
+    }
+
+    @PreDestroy
+    public void close() {
+        worker.shutdownNow();
+    }
+
+    private record Move(Long userId, String from, String to) {
+    }
+
+    /** Progress of the current or last rebalance; {@code pending} counts users still to try in this pass. */
+    public record Status(boolean running, int pending, int moved, int deferred, int failed,
+                         Instant started, Instant finished) {
+        Status withPending(int pending) {
+            return new Status(running, pending, moved, deferred, failed, started, finished);
+        }
+
+        Status plusMoved() {
+            return new Status(running, pending, moved + 1, deferred, failed, started, finished);
+        }
+
+        Status plusDeferred() {
+            return new Status(running, pending, moved, deferred + 1, failed, started, finished);
+        }
+
+        Status plusFailed() {
+            return new Status(running, pending, moved, deferred, failed + 1, started, finished);
+        }
+
+        Status done() {
+            return new Status(false, pending, moved, deferred, failed, started, Instant.now());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tracker.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A consistent-hash ring over shard names. Each shard takes {@code virtualNodes} points on
+ * the ring and a user belongs to the shard owning the first point at or after the hash of
+ * their id, so adding a shard only takes users over from the others (about 1/n of them)
+ * and never moves users between the shards already there. Immutable; adding a shard makes
+ * a new ring.
+ */
+final class ShardRing {
+
+    private final List<String> shards;
+    private final int virtualNodes;
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    ShardRing(List<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A shard ring needs at least one shard");
+        }
+        this.shards = List.copyOf(shards);
+        this.virtualNodes = virtualNodes;
+        MessageDigest md5 = md5();
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                byte[] digest = md5.digest((shard + "#" + i).getBytes(StandardCharsets.UTF_8));
+                long point = 0;
+                for (int b = 0; b < Long.BYTES; b++) {
+                    point = point << 8 | (digest[b] & 0xff);
+                }
+                points.put(point, shard);
+            }
+        }
+    }
+
+    ShardRing with(String shard) {
+        List<String> more = new ArrayList<>(shards);
+        more.add(shard);
+        return new ShardRing(more, virtualNodes);
+    }
+
+    String locate(long userId) {
+        Map.Entry<Long, String> owner = points.ceilingEntry(mix(userId));
+        return owner != null ? owner.getValue() : points.firstEntry().getValue();
+    }
+
+    /** Spreads sequential ids over the ring (the SplitMix64 finalizer). */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tracker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends each connection to the shard of the authenticated user it is opened for, and
+ * connections opened for nobody (sign-up, sign-in, the token filter's user lookup) to the
+ * directory. Everything that reads or writes a user's rows must therefore run as that
+ * user, which request threads, the dashboard fan-out, tip precompute and stream updates do. A connection to a shard counts
+ * as open for its user until it is closed; see {@link Shards#fence}.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final Shards shards;
+    private final MeterRegistry registry;
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+
+    public ShardRoutingDataSource(Shards shards, MeterRegistry registry) {
+        this.shards = shards;
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(target -> target.getConnection(username, password));
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        AuthenticatedUser user = currentUser();
+        if (user == null) {
+            routed(Shards.DIRECTORY).increment();
+            return connector.connect(shards.directory());
+        }
+        Shards.Shard shard = shards.enter(user);
+        Connection connection;
+        try {
+            connection = connector.connect(shard.dataSource());
+        } catch (SQLException | RuntimeException e) {
+            shards.leave(user.getId());
+            throw e;
+        }
+        routed(shard.name()).increment();
+        return counted(connection, user.getId());
+    }
+
+    private Counter routed(String target) {
+        return routed.computeIfAbsent(target, name -> Counter.builder("datasource.routed")
+                .description("Connections handed out by the routing DataSource, by target")
+                .tag("target", name)
+                .register(registry));
+    }
+
+    /** {@code connection}, telling {@link Shards#leave} when it is closed. */
+    private Connection counted(Connection connection, Long userId) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "close" -> {
+                        if (closed.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                shards.leave(userId);
+                            }
+                        }
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private static AuthenticatedUser currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser principal ? principal : null;
+    }
+
+    private interface Connector {
+        Connection connect(DataSource target) throws SQLException;
+    }
+}
@@ -0,0 +1,114 @@
+package com.tracker.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the shards' schema in step with the entities. Hibernate's own schema update only
+ * reaches the directory (where the routing DataSource sends connections nobody is signed in
+ * for), so as the session factory is built this runs the same update on every shard, and
+ * {@link ShardRebalancer} runs it on shards added later.
+ *
+ * <p>Each shard also gets its own range of ids: its sequences and identity columns start at
+ * its ordinal shifted left by {@value #ID_RANGE_BITS} bits. Ids are then unique across
+ * shards, and a user's rows keep theirs when they are moved to another shard.
+ */
+public class ShardSchema implements Integrator {
+
+    static final int ID_RANGE_BITS = 40;
+
+    private final Shards shards;
+    private volatile Metadata metadata;
+
+    public ShardSchema(Shards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        for (Shards.Shard shard : shards.all()) {
+            prepare(shard);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // The shards' pools are closed with Shards.
+    }
+
+    /** Creates or updates the tables of {@code shard} and moves its id generators into its range. */
+    void prepare(Shards.Shard shard) {
+        if (metadata == null) {
+            throw new IllegalStateException("The entities' metadata is not known yet");
+        }
+        // The shard's pool is handed over as the connection provider: a registry built outside JPA
+        // bootstrap does not read jakarta.persistence.nonJtaDataSource, only the deprecated
+        // hibernate.connection.datasource.
+        DatasourceConnectionProviderImpl connections = new DatasourceConnectionProviderImpl();
+        connections.setDataSource(shard.dataSource());
+        connections.configure(Map.of());
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .addService(ConnectionProvider.class, connections)
+                .applySetting(AvailableSettings.DIALECT, metadata.getDatabase().getDialect())
+                .build();
+        try {
+            SchemaManagementToolCoordinator.process(metadata, registry,
+                    Map.of(AvailableSettings.HBM2DDL_AUTO, "update", AvailableSettings.HBM2DDL_HALT_ON_ERROR, true),
+                    action -> {
+                    });
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+        try {
+            moveIds(shard.dataSource(), (long) shard.ordinal() << ID_RANGE_BITS);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not set the id range of " + shard.name(), e);
+        }
+    }
+
+    private static void moveIds(DataSource dataSource, long base) throws SQLException {
+        List<String> restarts = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("select sequence_name, base_value, increment "
+                    + "from information_schema.sequences where sequence_schema = 'PUBLIC'")) {
+                while (rs.next()) {
+                    if (rs.getLong(2) < base) {
+                        // A pooled sequence value is the top of a block, so the first block is (base, base + increment].
+                        restarts.add("alter sequence \"" + rs.getString(1) + "\" restart with " + (base + rs.getLong(3)));
+                    }
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("select table_name, column_name, identity_base "
+                    + "from information_schema.columns where table_schema = 'PUBLIC' and is_identity = 'YES'")) {
+                while (rs.next()) {
+                    if (rs.getLong(3) < base) {
+                        restarts.add("alter table \"" + rs.getString(1) + "\" alter column \"" + rs.getString(2)
+                                + "\" restart with " + (base + 1));
+                    }
+                }
+            }
+            for (String restart : restarts) {
+                statement.execute(restart);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * User-sharded storage, on with {@code tracker.shards.enabled} (the {@code sharded}
+ * profile). {@code spring.datasource.*} becomes the directory, holding the users, and each
+ * user's expenses, incomes, budget and rollups live on one of the shards in
+ * {@code tracker.shards.urls} (or added later through {@link ShardsEndpoint}), which share
+ * the directory's credentials and driver. See {@link ShardRoutingDataSource} for how
+ * connections are routed and {@link ShardRebalancer} for adding shards.
+ *
+ * <p>Needs {@code spring.jpa.open-in-view=false}, as read replicas do, and cannot be
+ * combined with them or with durable mode, whose journal restores a single database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.shards.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public Shards shards(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                         @Value("${tracker.shards.urls}") List<String> urls,
+                         @Value("${tracker.shards.pool-size:10}") int poolSize,
+                         @Value("${tracker.shards.virtual-nodes:128}") int virtualNodes,
+                         @Value("${tracker.shards.directory-cache-size:100000}") long directoryCacheSize,
+                         @Value("${spring.jpa.open-in-view:true}") boolean openInView,
+                         @Value("${tracker.replicas.enabled:false}") boolean replicas,
+                         @Value("${tracker.journal.enabled:false}") boolean journal) {
+        if (openInView) {
+            throw new IllegalStateException("tracker.shards.enabled needs spring.jpa.open-in-view=false");
+        }
+        if (replicas || journal) {
+            throw new IllegalStateException("tracker.shards.enabled cannot be combined with "
+                    + (replicas ? "tracker.replicas.enabled" : "tracker.journal.enabled"));
+        }
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(registry);
+        HikariDataSource directory = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(directory));
+        directory.setPoolName(Shards.DIRECTORY);
+        directory.setMetricsTrackerFactory(metrics);
+        return new Shards(directory, urls.stream().map(String::trim).toList(), (name, url) -> {
+            HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            shard.setPoolName(name);
+            shard.setMaximumPoolSize(poolSize);
+            shard.setMetricsTrackerFactory(metrics);
+            return shard;
+        }, virtualNodes, directoryCacheSize);
+    }
+
+    @Bean
+    public ShardSchema shardSchema(Shards shards) {
+        return new ShardSchema(shards);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardSchema shardSchema) {
+        return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(shardSchema));
+    }
+
+    @Bean
+    public DataSource dataSource(Shards shards, MeterRegistry registry) {
+        return new ShardRoutingDataSource(shards, registry);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(Shards shards, ShardSchema shardSchema, MeterRegistry registry,
+                                           @Value("${tracker.shards.move-timeout:5s}") Duration moveTimeout) {
+        return new ShardRebalancer(shards, shardSchema, moveTimeout, registry);
+    }
+
+    @Bean
+    public ShardsEndpoint shardsEndpoint(Shards shards, ShardRebalancer shardRebalancer) {
+        return new ShardsEndpoint(shards, shardRebalancer);
+    }
+}
@@ -0,0 +1,318 @@
+package com.tracker.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * The directory database and the shards behind {@link ShardRoutingDataSource}. The
+ * directory keeps the {@code users} table, the list of shards ({@value #REGISTRY}) and
+ * which shard each user's rows are on ({@value #PLACEMENTS}). A user is placed when their
+ * data is first used, on the shard the {@link ShardRing} picks then, and stays there until
+ * the {@link ShardRebalancer} moves them; a placed user also gets a copy of their
+ * {@code users} row on the shard, without the password, for the foreign keys.
+ *
+ * <p>Shards listed in {@code tracker.shards.urls} are registered on first start; the
+ * registry then lists them for good, together with any shard added later. Every open
+ * connection to a user's shard is counted, so a move can stop new ones for the user, wait
+ * for the open ones to close and then copy a consistent set of rows.
+ */
+public class Shards {
+
+    private static final Logger log = LoggerFactory.getLogger(Shards.class);
+
+    static final String DIRECTORY = "directory";
+    static final String REGISTRY = "shard_registry";
+    static final String PLACEMENTS = "user_shard";
+
+    private final HikariDataSource directory;
+    private final BiFunction<String, String, HikariDataSource> pools;
+    private final Cache<Long, String> placements;
+    private final ConcurrentHashMap<Long, Fence> fences = new ConcurrentHashMap<>();
+    private volatile Map<String, Shard> shards;
+    private volatile ShardRing ring;
+    private int nextOrdinal = 1;
+
+    /**
+     * @param pools makes the connection pool of a shard from its name and URL
+     */
+    public Shards(HikariDataSource directory, List<String> urls, BiFunction<String, String, HikariDataSource> pools,
+                  int virtualNodes, long directoryCacheSize) {
+        this.directory = directory;
+        this.pools = pools;
+        this.placements = Caffeine.newBuilder()
+                .maximumSize(directoryCacheSize)
+                .build();
+        Map<String, Shard> registered = new LinkedHashMap<>();
+        try (Connection connection = directory.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + REGISTRY
+                    + " (ordinal int primary key, name varchar(64) not null unique, url varchar(1024) not null unique)");
+            statement.execute("create table if not exists " + PLACEMENTS
+                    + " (user_id bigint primary key, shard varchar(64) not null)");
+            List<String> known = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("select ordinal, name, url from " + REGISTRY + " order by ordinal")) {
+                while (rs.next()) {
+                    registered.put(rs.getString(2), new Shard(rs.getInt(1), rs.getString(2), rs.getString(3), null));
+                    known.add(rs.getString(3));
+                    nextOrdinal = rs.getInt(1) + 1;
+                }
+            }
+            for (String url : urls) {
+                if (!known.contains(url)) {
+                    Shard shard = new Shard(nextOrdinal, "shard-" + nextOrdinal, url, null);
+                    nextOrdinal++;
+                    insert(connection, shard);
+                    registered.put(shard.name(), shard);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the shard registry from the directory", e);
+        }
+        if (registered.isEmpty()) {
+            throw new IllegalStateException("tracker.shards.urls lists no shards");
+        }
+        Map<String, Shard> opened = new LinkedHashMap<>();
+        for (Shard shard : registered.values()) {
+            opened.put(shard.name(), new Shard(shard.ordinal(), shard.name(), shard.url(),
+                    pools.apply(shard.name(), shard.url())));
+        }
+        this.shards = opened;
+        this.ring = new ShardRing(List.copyOf(opened.keySet()), virtualNodes);
+        log.info("Sharding user data over {}", opened.keySet());
+    }
+
+    public DataSource directory() {
+        return directory;
+    }
+
+    Collection<Shard> all() {
+        return shards.values();
+    }
+
+    Shard named(String name) {
+        Shard shard = shards.get(name);
+        if (shard == null) {
+            throw new IllegalArgumentException("No shard " + name);
+        }
+        return shard;
+    }
+
+    ShardRing ring() {
+        return ring;
+    }
+
+    /**
+     * The shard of {@code user}, placing them if they are new, and counts a connection to it
+     * until {@link #leave}. Waits while the user is being moved.
+     */
+    Shard enter(AuthenticatedUser user) throws SQLException {
+        Long userId = user.getId();
+        while (true) {
+            CountDownLatch[] moving = new CountDownLatch[1];
+            fences.compute(userId, (id, fence) -> {
+                fence = fence != null ? fence : new Fence();
+                if (fence.moved != null) {
+                    moving[0] = fence.moved;
+                } else {
+                    fence.connections++;
+                }
+                return fence;
+            });
+            if (moving[0] == null) {
+                break;
+            }
+            try {
+                moving[0].await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for user " + userId + " to be moved", e);
+            }
+        }
+        try {
+            return named(placements.get(userId, id -> place(user)));
+        } catch (RuntimeException e) {
+            leave(userId);
+            throw e;
+        }
+    }
+
+    /** Counts a connection from {@link #enter} as closed. */
+    void leave(Long userId) {
+        fences.computeIfPresent(userId, (id, fence) -> {
+            fence.connections--;
+            if (fence.connections == 0 && fence.drained != null) {
+                fence.drained.countDown();
+            }
+            return fence.connections == 0 && fence.moved == null ? null : fence;
+        });
+    }
+
+    /**
+     * Holds new connections for {@code userId} and waits for the open ones to close. Returns
+     * false, with the user released again, if they are not all closed within {@code timeout}.
+     */
+    boolean fence(Long userId, Duration timeout) throws InterruptedException {
+        CountDownLatch[] drained = new CountDownLatch[1];
+        fences.compute(userId, (id, fence) -> {
+            fence = fence != null ? fence : new Fence();
+            fence.moved = new CountDownLatch(1);
+            fence.drained = new CountDownLatch(fence.connections == 0 ? 0 : 1);
+            drained[0] = fence.drained;
+            return fence;
+        });
+        if (drained[0].await(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        unfence(userId);
+        return false;
+    }
+
+    void unfence(Long userId) {
+        fences.computeIfPresent(userId, (id, fence) -> {
+            fence.moved.countDown();
+            fence.moved = null;
+            fence.drained = null;
+            return fence.connections == 0 ? null : fence;
+        });
+    }
+
+    /** Records that the rows of a fenced user are now on {@code shard}. */
+    void moved(Long userId, String shard) throws SQLException {
+        try (Connection connection = directory.getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                     "update " + PLACEMENTS + " set shard = ? where user_id = ?")) {
+            update.setString(1, shard);
+            update.setLong(2, userId);
+            update.executeUpdate();
+        }
+        placements.put(userId, shard);
+    }
+
+    /** Calls {@code placement} with every placed user and their shard. */
+    void forEachPlacement(BiConsumer<Long, String> placement) throws SQLException {
+        try (Connection connection = directory.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select user_id, shard from " + PLACEMENTS)) {
+            while (rs.next()) {
+                placement.accept(rs.getLong(1), rs.getString(2));
+            }
+        }
+    }
+
+    /** Placed users by shard. */
+    Map<String, Long> users() throws SQLException {
+        Map<String, Long> users = new LinkedHashMap<>();
+        shards.keySet().forEach(name -> users.put(name, 0L));
+        try (Connection connection = directory.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select shard, count(*) from " + PLACEMENTS + " group by shard")) {
+            while (rs.next()) {
+                users.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return users;
+    }
+
+    /** A new shard on {@code url}, with its pool open; not used until {@link #publish}ed. */
+    synchronized Shard create(String url) {
+        for (Shard shard : shards.values()) {
+            if (shard.url().equals(url)) {
+                throw new IllegalArgumentException(shard.name() + " is already on " + url);
+            }
+        }
+        int ordinal = nextOrdinal++;
+        String name = "shard-" + ordinal;
+        return new Shard(ordinal, name, url, pools.apply(name, url));
+    }
+
+    /** Registers {@code shard} and adds it to the ring: users placed from now on may go there. */
+    synchronized void publish(Shard shard) throws SQLException {
+        try (Connection connection = directory.getConnection()) {
+            insert(connection, shard);
+        }
+        Map<String, Shard> more = new LinkedHashMap<>(shards);
+        more.put(shard.name(), shard);
+        shards = more;
+        ring = ring.with(shard.name());
+        log.info("Added {} on {}; sharding user data over {}", shard.name(), shard.url(), more.keySet());
+    }
+
+    private String place(AuthenticatedUser user) {
+        try (Connection connection = directory.getConnection()) {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "select shard from " + PLACEMENTS + " where user_id = ?")) {
+                select.setLong(1, user.getId());
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getString(1);
+                    }
+                }
+            }
+            String shard = ring.locate(user.getId());
+            try (Connection target = named(shard).dataSource().getConnection();
+                 PreparedStatement copy = target.prepareStatement(
+                         "merge into users (id, username, password) key (id) values (?, ?, '')")) {
+                copy.setLong(1, user.getId());
+                copy.setString(2, user.getUsername());
+                copy.executeUpdate();
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into " + PLACEMENTS + " (user_id, shard) values (?, ?)")) {
+                insert.setLong(1, user.getId());
+                insert.setString(2, shard);
+                insert.executeUpdate();
+            }
+            return shard;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not place user " + user.getId() + " on a shard", e);
+        }
+    }
+
+    private static void insert(Connection connection, Shard shard) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into " + REGISTRY + " (ordinal, name, url) values (?, ?, ?)")) {
+            insert.setInt(1, shard.ordinal());
+            insert.setString(2, shard.name());
+            insert.setString(3, shard.url());
+            insert.executeUpdate();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Shard shard : shards.values()) {
+            shard.dataSource().close();
+        }
+        directory.close();
+    }
+
+    /** A shard; {@code ordinal} numbers shards in the order they were registered, from 1. */
+    record Shard(int ordinal, String name, String url, HikariDataSource dataSource) {
+    }
+
+    /** Open connections of one user, and while the user is being moved, the latches of the move. */
+    private static final class Fence {
+        int connections;
+        CountDownLatch moved;
+        CountDownLatch drained;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tracker.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/shards}: the shards with how many users are placed on each, and the
+ * rebalancer's progress. A POST with {@code {"url": "jdbc:..."}} adds a shard and starts
+ * moving users onto it; an empty POST starts a rebalance, e.g. to retry users it had to
+ * leave. Only answered for local requests (see SecurityConfig), as it opens connections to
+ * whatever URL it is given.
+ */
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final Shards shards;
+    private final ShardRebalancer rebalancer;
+
+    public ShardsEndpoint(Shards shards, ShardRebalancer rebalancer) {
+        this.shards = shards;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() throws SQLException {
+        Map<String, Long> users = shards.users();
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Shards.Shard shard : shards.all()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", shard.name());
+            entry.put("url", shard.url());
+            entry.put("users", users.getOrDefault(shard.name(), 0L));
+            list.add(entry);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("shards", list);
+        body.put("rebalance", rebalancer.status());
+        return body;
+    }
+
+    @WriteOperation
+    public Map<String, Object> addShard(@Nullable String url) throws SQLException {
+        if (url != null && !url.isBlank()) {
+            rebalancer.add(url.trim());
+        } else {
+            rebalancer.rebalance();
+        }
+        return shards();
+    }
+}
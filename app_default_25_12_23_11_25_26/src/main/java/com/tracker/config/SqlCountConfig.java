@@ -0,0 +1,106 @@
+package com.tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Development aid, on with {@code tracker.sql.count-header=true} (set in the dev profile):
+ * every response carries {@value #HEADER}, the number of SQL statements sent for the
+ * request before its response started, including sub-queries run on the task executor.
+ * For a streamed body (the CSV download) that is the count before the first byte.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.sql.count-header", havingValue = "true")
+public class SqlCountConfig {
+
+    public static final String HEADER = "X-SQL-Statements";
+
+    @Bean
+    public static BeanPostProcessor sqlCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? SqlStatements.counting(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public TaskDecorator sqlStatementsPropagation() {
+        return SqlStatements.propagating();
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlCountFilter> sqlCountFilter() {
+        FilterRegistrationBean<SqlCountFilter> registration = new FilterRegistrationBean<>(new SqlCountFilter());
+        // Ahead of security, so the user lookup for the token is counted too.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    static class SqlCountFilter extends OncePerRequestFilter {
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            try (SqlStatements.Scope scope = SqlStatements.open()) {
+                CountingResponse counting = new CountingResponse(response, scope);
+                chain.doFilter(request, counting);
+                if (!request.isAsyncStarted()) {
+                    counting.writeHeader();
+                }
+            }
+        }
+    }
+
+    /** Adds the header when the body is first written, the last moment headers can change. */
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        private final SqlStatements.Scope scope;
+        private boolean written;
+
+        CountingResponse(HttpServletResponse response, SqlStatements.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeHeader() {
+            if (!written && !isCommitted()) {
+                setHeader(HEADER, Integer.toString(scope.count()));
+            }
+            written = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.tracker.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements sent while a {@link Scope} is open. Counting works on a
+ * DataSource wrapped with {@link #counting}, where every statement a connection prepares
+ * or creates is one statement (a JDBC batch counts once, like the single round trip it
+ * is), so JPA and JdbcTemplate queries are both covered. The scope belongs to the thread
+ * that opened it and to tasks handed to an executor decorated with {@link #propagating}.
+ */
+public final class SqlStatements {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+    private static volatile boolean installed;
+
+    private SqlStatements() {
+    }
+
+    /** Whether a counting DataSource is in use, i.e. whether scopes see any statements. */
+    public static boolean installed() {
+        return installed;
+    }
+
+    /** Starts counting on this thread; nested scopes count into the outer one as well. */
+    public static Scope open() {
+        return new Scope(CURRENT.get());
+    }
+
+    public static DataSource counting(DataSource dataSource) {
+        installed = true;
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return counting(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return counting(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /** Runs tasks in the scope that was open on the thread submitting them. */
+    public static TaskDecorator propagating() {
+        return task -> {
+            AtomicInteger scope = CURRENT.get();
+            if (scope == null) {
+                return task;
+            }
+            return () -> {
+                AtomicInteger previous = CURRENT.get();
+                CURRENT.set(scope);
+                try {
+                    task.run();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            };
+        };
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_FACTORIES.contains(method.getName())) {
+                        AtomicInteger scope = CURRENT.get();
+                        if (scope != null) {
+                            scope.incrementAndGet();
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final AtomicInteger outer;
+        private final int outerStart;
+        private final AtomicInteger count;
+
+        private Scope(AtomicInteger outer) {
+            this.outer = outer;
+            // A nested scope keeps counting into the outer one, and reports its own share.
+            this.count = outer != null ? outer : new AtomicInteger();
+            this.outerStart = count.get();
+            if (outer == null) {
+                CURRENT.set(count);
+            }
+        }
+
+        /** Statements sent in this scope so far. */
+        public int count() {
+            return count.get() - outerStart;
+        }
+
+        @Override
+        public void close() {
+            if (outer == null) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -1,26 +1,58 @@
 package com.tracker.config;
 
-import com.tracker.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.tracker.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.ArrayList;
 
+import java.time.Duration;
+
+/**
+ * Loads users for both login and the per-request JWT filter. Found users are kept in a
+ * bounded cache with a TTL, so steady-state requests do not touch the users table; misses
+ * are not cached. Anything that changes a user row must call {@link #evict}. Also stores
+ * re-hashed passwords when the BCrypt cost changes (see SecurityConfig#passwordEncoder).
+ */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     UserRepository userRepository;
 
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public UserDetailsServiceImpl(
+            @Value("${tracker.user-cache.max-size:10000}") long maxSize,
+            @Value("${tracker.user-cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public AuthenticatedUser loadUserByUsername(String username) throws UsernameNotFoundException {
+        return cache.get(username, name -> userRepository.findByUsername(name)
+                .map(AuthenticatedUser::new)
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + name)));
+    }
+
+    /** Called by the authentication provider to store a re-hashed password after sign-in. */
     @Override
     @Transactional
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+    public AuthenticatedUser updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        evict(user.getUsername());
+        return loadUserByUsername(user.getUsername());
+    }
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), new ArrayList<>());
+    public void evict(String username) {
+        cache.invalidate(username);
     }
 }
@@ -0,0 +1,33 @@
+package com.tracker.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+    private final DataVersionInterceptor dataVersionInterceptor;
+
+    public WebConfig(CurrentUserArgumentResolver currentUserArgumentResolver,
+                     DataVersionInterceptor dataVersionInterceptor) {
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+        this.dataVersionInterceptor = dataVersionInterceptor;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(dataVersionInterceptor)
+                .addPathPatterns("/api/expenses", "/api/expenses/**", "/api/incomes", "/api/incomes/**",
+                        "/api/budget", "/api/budget/**", "/api/tips", "/api/dashboard");
+    }
+}
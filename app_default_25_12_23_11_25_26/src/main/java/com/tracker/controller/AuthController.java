@@ -1,18 +1,23 @@
 package com.tracker.controller;
 
 import com.tracker.config.JwtUtils;
+import com.tracker.config.PasswordHashingExecutor;
+import com.tracker.config.UserDetailsServiceImpl;
 import com.tracker.model.User;
 import com.tracker.repository.UserRepository;
+import com.tracker.service.Journal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -21,33 +26,53 @@ public class AuthController {
     @Autowired UserRepository userRepository;
     @Autowired PasswordEncoder encoder;
     @Autowired JwtUtils jwtUtils;
+    @Autowired UserDetailsServiceImpl userDetailsService;
+    @Autowired PasswordHashingExecutor hashingExecutor;
+    @Autowired Journal journal;
 
+    /**
+     * Sign-in and sign-up run their BCrypt work on the PasswordHashingExecutor, so the
+     * request thread is released while the hash is computed.
+     */
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@RequestBody LoginRequest loginRequest) {
+        return hashingExecutor.submit(() -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
+            String jwt = jwtUtils.generateJwtToken(authentication);
 
-        Map<String, String> response = new HashMap<>();
-        response.put("token", jwt);
-        response.put("username", loginRequest.getUsername());
-        return ResponseEntity.ok(response);
+            Map<String, String> response = new HashMap<>();
+            response.put("token", jwt);
+            response.put("username", loginRequest.getUsername());
+            return ResponseEntity.ok(response);
+        });
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@RequestBody SignupRequest signUpRequest) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
-            return ResponseEntity.badRequest().body("Error: Username is already taken!");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Error: Username is already taken!"));
         }
 
-        User user = new User();
-        user.setUsername(signUpRequest.getUsername());
-        user.setPassword(encoder.encode(signUpRequest.getPassword()));
-        userRepository.save(user);
+        return hashingExecutor.submit(() -> {
+            User user = new User();
+            user.setUsername(signUpRequest.getUsername());
+            user.setPassword(encoder.encode(signUpRequest.getPassword()));
+            userRepository.save(user);
+            journal.userSaved(user);
+            userDetailsService.evict(user.getUsername());
 
-        return ResponseEntity.ok("User registered successfully!");
+            return ResponseEntity.ok("User registered successfully!");
+        });
+    }
+
+    @ExceptionHandler(PasswordHashingExecutor.SaturatedException.class)
+    public ResponseEntity<String> hashingSaturated(PasswordHashingExecutor.SaturatedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Error: " + e.getMessage());
     }
 
     public static class LoginRequest {
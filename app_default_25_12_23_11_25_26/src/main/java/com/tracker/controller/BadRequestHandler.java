@@ -0,0 +1,19 @@
+package com.tracker.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers an IllegalArgumentException from any API controller, which the services throw for
+ * invalid input, with 400 and its message. Limited to this package so actuator endpoints
+ * keep their own error handling.
+ */
+@RestControllerAdvice(basePackageClasses = BadRequestHandler.class)
+public class BadRequestHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+    }
+}
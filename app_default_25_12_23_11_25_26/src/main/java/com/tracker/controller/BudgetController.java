@@ -1,71 +1,55 @@
 package com.tracker.controller;
 
+import com.tracker.config.CurrentUser;
 import com.tracker.model.Budget;
 import com.tracker.model.Category;
 import com.tracker.model.User;
 import com.tracker.repository.BudgetRepository;
-import com.tracker.repository.UserRepository;
+import com.tracker.service.BudgetService;
+import com.tracker.service.BudgetStatusService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/budget")
 public class BudgetController {
     @Autowired BudgetRepository budgetRepo;
-    @Autowired UserRepository userRepo;
-
-    private User getAuthenticatedUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepo.findByUsername(username).orElseThrow();
+    @Autowired BudgetService budgetService;
+    @Autowired BudgetStatusService budgetStatus;
+
+    /** Spend against the daily, monthly and per-category limits for {@code date} (default today). */
+    @GetMapping("/status")
+    public BudgetStatusService.BudgetStatus getStatus(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @CurrentUser User user) {
+        return budgetStatus.status(user, date != null ? date : LocalDate.now());
     }
 
     @GetMapping
-    public Budget getBudget() {
-        User user = getAuthenticatedUser();
-        return budgetRepo.findByUser(user).orElseGet(() -> {
-            Budget b = new Budget();
-            b.setUser(user);
-            return budgetRepo.save(b);
-        });
+    public Budget getBudget(@CurrentUser User user) {
+        return budgetService.get(user);
     }
 
     @PostMapping
-    public Budget updateBudget(@RequestBody Budget budgetData) {
-        User user = getAuthenticatedUser();
-        Budget budget = budgetRepo.findByUser(user).orElse(new Budget());
-        budget.setUser(user);
-        budget.setMonthlyLimit(budgetData.getMonthlyLimit());
-        budget.setDailyLimit(budgetData.getDailyLimit());
-        if (budgetData.getCategoryLimits() != null) {
-            budget.setCategoryLimits(budgetData.getCategoryLimits());
-        }
-        return budgetRepo.save(budget);
+    public Budget updateBudget(@RequestBody Budget budgetData, @CurrentUser User user) {
+        return budgetService.update(user, budgetData);
     }
 
     @PostMapping("/category")
-    public Budget updateCategoryLimits(@RequestBody Map<String, Double> categoryLimits) {
-        User user = getAuthenticatedUser();
-        Budget budget = budgetRepo.findByUser(user).orElse(new Budget());
-        budget.setUser(user);
-        budget.setCategoryLimits(categoryLimits);
-        return budgetRepo.save(budget);
+    public Budget updateCategoryLimits(@RequestBody Map<String, Double> categoryLimits, @CurrentUser User user) {
+        return budgetService.setCategoryLimits(user, categoryLimits);
     }
 
     @GetMapping("/categories")
-    public Map<String, Double> getCategoryBudgets() {
-        User user = getAuthenticatedUser();
-        Budget budget = budgetRepo.findByUser(user).orElse(new Budget());
-        return (Map<String, Double>) budget.getCategoryLimits();
+    public Map<Category, Double> getCategoryBudgets(@CurrentUser User user) {
+        return budgetRepo.findByUser(user).orElseGet(Budget::new).getCategoryLimits();
     }
 
     @PostMapping("/categories")
-    public Budget setCategoryBudgets(@RequestBody Map<String, Double> categoryLimits) {
-        User user = getAuthenticatedUser();
-        Budget budget = budgetRepo.findByUser(user).orElse(new Budget());
-        budget.setUser(user);
-        budget.setCategoryLimits(categoryLimits);
-        return budgetRepo.save(budget);
+    public Budget setCategoryBudgets(@RequestBody Map<String, Double> categoryLimits, @CurrentUser User user) {
+        return budgetService.setCategoryLimits(user, categoryLimits);
     }
 }
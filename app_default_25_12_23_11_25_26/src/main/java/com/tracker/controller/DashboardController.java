@@ -0,0 +1,31 @@
+package com.tracker.controller;
+
+import com.tracker.config.CurrentUser;
+import com.tracker.model.User;
+import com.tracker.service.DashboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/** Summary, charts, budget status and tips for the dashboard in a single response. */
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @GetMapping
+    public DashboardService.Dashboard getDashboard(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month,
+            @RequestParam(defaultValue = "" + DashboardService.DEFAULT_MONTHS) int months,
+            @CurrentUser User user) {
+        LocalDate today = LocalDate.now();
+        return dashboardService.load(user,
+                year != null ? year : today.getYear(),
+                month != null ? month : today.getMonthValue(),
+                months);
+    }
+}
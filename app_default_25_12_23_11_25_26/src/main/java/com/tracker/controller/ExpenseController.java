@@ -1,28 +1,34 @@
 package com.tracker.controller;
 
+import com.tracker.config.CurrentUser;
+import com.tracker.model.Category;
 import com.tracker.model.Expense;
 import com.tracker.model.User;
-import com.tracker.model.Income;
-import com.tracker.model.Budget;
 import com.tracker.repository.ExpenseRepository;
-import com.tracker.repository.IncomeRepository;
-import com.tracker.repository.BudgetRepository;
-import com.tracker.repository.UserRepository;
+import com.tracker.repository.ListingFilter;
+import com.tracker.service.AnalyticsService;
+import com.tracker.service.BudgetStatusService;
+import com.tracker.service.ExpenseExportService;
+import com.tracker.service.ExpenseService;
+import com.tracker.service.ImportService;
+import com.tracker.service.KeysetPage;
+import com.tracker.service.ListingService;
+import com.tracker.service.RollupService;
+import com.tracker.service.TrendSeries;
+import com.tracker.service.TrendService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.Month;
 import java.util.*;
-import java.io.IOException;
-import java.io.StringWriter;
-import java.io.PrintWriter;
 
 @RestController
 @RequestMapping("/api/expenses")
@@ -32,123 +38,113 @@ public class ExpenseController {
     private ExpenseRepository expenseRepo;
 
     @Autowired
-    private IncomeRepository incomeRepo;
+    private ExpenseService expenseService;
 
     @Autowired
-    private BudgetRepository budgetRepo;
+    private ExpenseExportService exportService;
 
     @Autowired
-    private UserRepository userRepo;
+    private ListingService listingService;
 
     @Autowired
-    private PasswordEncoder encoder;
-
-    private User getAuthenticatedUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())) {
-            // For testing purposes, create or return a default user
-            return userRepo.findByUsername("testuser").orElseGet(() -> {
-                User defaultUser = new User();
-                defaultUser.setUsername("testuser");
-                defaultUser.setPassword(encoder.encode("password"));
-                return userRepo.save(defaultUser);
-            });
-        }
-        String username = auth.getName();
-        return userRepo.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private ImportService importService;
+
+    @Autowired
+    private AnalyticsService analytics;
+
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private BudgetStatusService budgetStatus;
 
     @GetMapping
-    public List<Expense> getExpenses() {
-        User user = getAuthenticatedUser();
+    public List<Expense> getExpenses(@CurrentUser User user) {
         return expenseRepo.findByUserOrderByDateDesc(user);
     }
 
+    @GetMapping("/page")
+    public KeysetPage<Expense> getExpensePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ListingService.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Category category,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @CurrentUser User user) {
+        ListingFilter filter = new ListingFilter(from, to, category, minAmount, maxAmount);
+        return listingService.expenses(user, filter, cursor, limit);
+    }
+
     @PostMapping
-    public Expense addExpense(@RequestBody Expense expense) {
-        User user = getAuthenticatedUser();
-        expense.setUser(user);
-        return expenseRepo.save(expense);
+    public Expense addExpense(@RequestBody Expense expense, @CurrentUser User user) {
+        return expenseService.add(user, expense);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Expense> updateExpense(@PathVariable Long id, @RequestBody Expense updatedExpense) {
-        User user = getAuthenticatedUser();
-        Expense expense = expenseRepo.findById(id).orElse(null);
-        if (expense != null && expense.getUser().getId().equals(user.getId())) {
-            expense.setAmount(updatedExpense.getAmount());
-            expense.setCategory(updatedExpense.getCategory());
-            expense.setDate(updatedExpense.getDate());
-            expense.setDescription(updatedExpense.getDescription());
-            Expense saved = expenseRepo.save(expense);
-            return ResponseEntity.ok(saved);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<Expense> updateExpense(@PathVariable Long id, @RequestBody Expense updatedExpense, @CurrentUser User user) {
+        return expenseService.update(user, id, updatedExpense)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Bulk import from the raw request body: CSV with a header row (Content-Type text/csv)
+     * or one JSON object per line (application/x-ndjson).
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/ndjson"})
+    public ImportService.ImportReport importExpenses(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                     InputStream body,
+                                                     @CurrentUser User user) throws IOException {
+        return importService.importExpenses(user, body, ImportService.Format.fromContentType(contentType));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteExpense(@PathVariable Long id) {
-        User user = getAuthenticatedUser();
-        Expense expense = expenseRepo.findById(id).orElse(null);
-        if (expense != null && expense.getUser().getId().equals(user.getId())) {
-            expenseRepo.delete(expense);
+    public ResponseEntity<Void> deleteExpense(@PathVariable Long id, @CurrentUser User user) {
+        if (expenseService.delete(user, id)) {
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
 
     @GetMapping("/summary")
-    public Map<String, Object> getSummary(@RequestParam(required = false) Integer year, @RequestParam(required = false) Integer month) {
-        User user = getAuthenticatedUser();
-        List<Expense> expenses;
+    public Map<String, Object> getSummary(@RequestParam(required = false) Integer year, @RequestParam(required = false) Integer month, @CurrentUser User user) {
+        Map<String, Double> categorySums;
         if (year != null && month != null) {
             LocalDate start = LocalDate.of(year, month, 1);
             LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
-            expenses = expenseRepo.findByUserAndDateBetween(user, start, end);
+            categorySums = analytics.categoryTotals(user, start, end);
         } else {
-            expenses = expenseRepo.findByUser(user);
+            categorySums = analytics.categoryTotals(user);
         }
         Map<String, Object> summary = new HashMap<>();
-        Map<String, Double> categorySums = new HashMap<>();
         double total = 0;
-        for (Expense e : expenses) {
-            categorySums.put(e.getCategory().name(), categorySums.getOrDefault(e.getCategory().name(), 0.0) + e.getAmount());
-            total += e.getAmount();
+        for (double spent : categorySums.values()) {
+            total += spent;
         }
         summary.putAll(categorySums);
         summary.put("totalSpent", total);
 
-        // Check budget exceeded
-        Budget budget = budgetRepo.findByUser(user).orElse(null);
-        boolean budgetExceeded = false;
-        if (budget != null && budget.getMonthlyLimit() != null && total > budget.getMonthlyLimit()) {
-            budgetExceeded = true;
-        }
-        summary.put("budgetExceeded", budgetExceeded);
+        // The monthly limit is checked against the requested month, or the current one.
+        int period = year != null && month != null ? year * 100 + month : RollupService.period(LocalDate.now());
+        summary.put("budgetExceeded", budgetStatus.monthlyLimitExceeded(user, period));
 
         return summary;
     }
 
     @GetMapping("/trends/{year}")
-    public Map<String, Object> getMonthlyTrends(@PathVariable int year) {
-        User user = getAuthenticatedUser();
+    public Map<String, Object> getMonthlyTrends(@PathVariable int year, @CurrentUser User user) {
         Map<String, Object> trends = new HashMap<>();
         List<Double> monthlyExpenses = new ArrayList<>();
         List<Double> monthlyIncomes = new ArrayList<>();
         List<String> months = new ArrayList<>();
 
-        for (int month = 1; month <= 12; month++) {
-            LocalDate start = LocalDate.of(year, month, 1);
-            LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
-            List<Expense> expenses = expenseRepo.findByUserAndDateBetween(user, start, end);
-            List<Income> incomes = incomeRepo.findByUserAndDateBetween(user, start, end);
-
-            double totalExpense = expenses.stream().mapToDouble(Expense::getAmount).sum();
-            double totalIncome = incomes.stream().mapToDouble(Income::getAmount).sum();
-
-            monthlyExpenses.add(totalExpense);
-            monthlyIncomes.add(totalIncome);
-            months.add(start.getMonth().name().substring(0, 3));
+        TrendSeries series = trendService.yearlyTrends(user, year);
+        for (int i = 0; i < 12; i++) {
+            monthlyExpenses.add(series.getExpenses()[i]);
+            monthlyIncomes.add(series.getIncomes()[i]);
+            months.add(Month.of(i + 1).name().substring(0, 3));
         }
 
         trends.put("months", months);
@@ -157,70 +153,47 @@ public class ExpenseController {
         return trends;
     }
 
+    @GetMapping("/trends")
+    public TrendSeries getTrends(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+                                 @RequestParam(defaultValue = "MONTHLY") String granularity,
+                                 @CurrentUser User user) {
+        return trendService.trends(user, start, end, TrendService.Granularity.valueOf(granularity.toUpperCase()));
+    }
+
     @GetMapping("/category-spending")
-    public Map<String, Double> getCategorySpending(@RequestParam int year, @RequestParam int month) {
-        User user = getAuthenticatedUser();
+    public Map<String, Double> getCategorySpending(@RequestParam int year, @RequestParam int month, @CurrentUser User user) {
         LocalDate start = LocalDate.of(year, month, 1);
         LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
-        List<Expense> expenses = expenseRepo.findByUserAndDateBetween(user, start, end);
-
-        Map<String, Double> categorySpending = new HashMap<>();
-        for (Expense e : expenses) {
-            categorySpending.put(e.getCategory().name(), categorySpending.getOrDefault(e.getCategory().name(), 0.0) + e.getAmount());
-        }
-        return categorySpending;
+        return analytics.categoryTotals(user, start, end);
     }
 
     @GetMapping("/income-vs-expense")
-    public Map<String, Double> getIncomeVsExpense(@RequestParam int year, @RequestParam int month) {
-        User user = getAuthenticatedUser();
+    public Map<String, Double> getIncomeVsExpense(@RequestParam int year, @RequestParam int month, @CurrentUser User user) {
         LocalDate start = LocalDate.of(year, month, 1);
         LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
-        List<Expense> expenses = expenseRepo.findByUserAndDateBetween(user, start, end);
-        List<Income> incomes = incomeRepo.findByUserAndDateBetween(user, start, end);
-
-        double totalExpense = expenses.stream().mapToDouble(Expense::getAmount).sum();
-        double totalIncome = incomes.stream().mapToDouble(Income::getAmount).sum();
 
         Map<String, Double> data = new HashMap<>();
-        data.put("income", totalIncome);
-        data.put("expense", totalExpense);
+        data.put("income", analytics.incomeTotal(user, start, end));
+        data.put("expense", analytics.expenseTotal(user, start, end));
         return data;
     }
 
     @GetMapping("/download")
-    public ResponseEntity<String> downloadExpenses() {
-        User user = getAuthenticatedUser();
-        List<Expense> expenses = expenseRepo.findByUserOrderByDateDesc(user);
-        
-        if (expenses.isEmpty()) {
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=expenses.csv")
-                .contentType(MediaType.TEXT_PLAIN)
-                .body("No expenses found");
-        }
-        
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        
-        // CSV Header
-        pw.println("Date,Category,Amount,Description");
-        
-        // CSV Data
-        for (Expense expense : expenses) {
-            pw.printf("%s,%s,%.2f,%s%n",
-                expense.getDate(),
-                expense.getCategory(),
-                expense.getAmount(),
-                expense.getDescription() != null ? expense.getDescription() : "");
-        }
-        
-        pw.flush();
-        pw.close();
-        
-        return ResponseEntity.ok()
+    public ResponseEntity<StreamingResponseBody> downloadExpenses(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Category category,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @CurrentUser User user) {
+        StreamingResponseBody body = out -> exportService.writeCsv(user, from, to, category, gzip, out);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=expenses.csv")
-            .contentType(MediaType.TEXT_PLAIN)
-            .body(sw.toString());
+            .contentType(MediaType.TEXT_PLAIN);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 }
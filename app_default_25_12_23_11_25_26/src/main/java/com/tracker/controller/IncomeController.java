@@ -1,15 +1,21 @@
 package com.tracker.controller;
 
+import com.tracker.config.CurrentUser;
 import com.tracker.model.Income;
 import com.tracker.model.User;
 import com.tracker.repository.IncomeRepository;
-import com.tracker.repository.UserRepository;
+import com.tracker.repository.ListingFilter;
+import com.tracker.service.ImportService;
+import com.tracker.service.IncomeService;
+import com.tracker.service.KeysetPage;
+import com.tracker.service.ListingService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -18,41 +24,45 @@ public class IncomeController {
     @Autowired
     IncomeRepository incomeRepo;
     @Autowired
-    UserRepository userRepo;
+    IncomeService incomeService;
     @Autowired
-    PasswordEncoder encoder;
+    ListingService listingService;
+    @Autowired
+    ImportService importService;
 
-    private User getAuthenticatedUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())) {
-            // For testing purposes, create or return a default user
-            return userRepo.findByUsername("testuser").orElseGet(() -> {
-                User defaultUser = new User();
-                defaultUser.setUsername("testuser");
-                defaultUser.setPassword(encoder.encode("password"));
-                return userRepo.save(defaultUser);
-            });
-        }
-        String username = auth.getName();
-        return userRepo.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+    @GetMapping
+    public List<Income> getIncomes(@CurrentUser User user) {
+        return incomeRepo.findByUser(user);
     }
 
-    @GetMapping
-    public List<Income> getIncomes() {
-        return incomeRepo.findByUser(getAuthenticatedUser());
+    @GetMapping("/page")
+    public KeysetPage<Income> getIncomePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ListingService.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @CurrentUser User user) {
+        ListingFilter filter = new ListingFilter(from, to, null, minAmount, maxAmount);
+        return listingService.incomes(user, filter, cursor, limit);
     }
 
     @PostMapping
-    public Income addIncome(@RequestBody Income income) {
-        income.setUser(getAuthenticatedUser());
-        return incomeRepo.save(income);
+    public Income addIncome(@RequestBody Income income, @CurrentUser User user) {
+        return incomeService.add(user, income);
+    }
+
+    /** Bulk import, same formats as /api/expenses/import without the category column. */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/ndjson"})
+    public ImportService.ImportReport importIncomes(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream body,
+                                                    @CurrentUser User user) throws IOException {
+        return importService.importIncomes(user, body, ImportService.Format.fromContentType(contentType));
     }
 
     @DeleteMapping("/{id}")
-    public void deleteIncome(@PathVariable Long id) {
-        Income income = incomeRepo.findById(id).orElseThrow();
-        if (income.getUser().getId().equals(getAuthenticatedUser().getId())) {
-            incomeRepo.delete(income);
-        }
+    public void deleteIncome(@PathVariable Long id, @CurrentUser User user) {
+        incomeService.delete(user, id);
     }
 }
@@ -0,0 +1,24 @@
+package com.tracker.controller;
+
+import com.tracker.config.CurrentUser;
+import com.tracker.model.User;
+import com.tracker.service.RollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/** Consistency checks for the authenticated user's monthly rollups. */
+@RestController
+@RequestMapping("/api/rollups")
+public class RollupController {
+    @Autowired RollupService rollupService;
+
+    @GetMapping("/verify")
+    public RollupService.DriftReport verify(@CurrentUser User user) {
+        return rollupService.verify(user);
+    }
+
+    @PostMapping("/rebuild")
+    public RollupService.DriftReport rebuild(@CurrentUser User user) {
+        return rollupService.rebuild(user);
+    }
+}
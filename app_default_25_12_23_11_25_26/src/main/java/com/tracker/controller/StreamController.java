@@ -0,0 +1,26 @@
+package com.tracker.controller;
+
+import com.tracker.config.CurrentUser;
+import com.tracker.model.User;
+import com.tracker.service.LiveUpdates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent events with the user's changes as they commit, from any tab or device. Browsers'
+ * EventSource cannot set headers, so the token may be passed as {@code ?token=} here.
+ */
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    @Autowired
+    private LiveUpdates liveUpdates;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@CurrentUser User user) {
+        return liveUpdates.subscribe(user);
+    }
+}
@@ -0,0 +1,29 @@
+package com.tracker.controller;
+
+import com.tracker.config.CurrentUser;
+import com.tracker.model.User;
+import com.tracker.service.SyncLog;
+import com.tracker.service.SyncPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Delta sync of the user's expenses and incomes: each record changed after {@code since} once,
+ * with its current state. Clients keep {@code next} and pass it as {@code since} the next time;
+ * passing a stable {@code client} id lets deletes be forgotten once every client has seen them.
+ */
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    @Autowired
+    private SyncLog syncLog;
+
+    @GetMapping
+    public SyncPage changes(@CurrentUser User user,
+                            @RequestParam(defaultValue = "0") long since,
+                            @RequestParam(defaultValue = "" + SyncLog.DEFAULT_LIMIT) int limit,
+                            @RequestParam(required = false) String client) {
+        return syncLog.changes(user, since, limit, client);
+    }
+}
@@ -0,0 +1,9 @@
+package com.tracker.event;
+
+/** The user's budget limits were changed. */
+public class BudgetChangedEvent extends UserDataChangedEvent {
+
+    public BudgetChangedEvent(Long userId) {
+        super(userId);
+    }
+}
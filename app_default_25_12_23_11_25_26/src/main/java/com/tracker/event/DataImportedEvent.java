@@ -0,0 +1,19 @@
+package com.tracker.event;
+
+import java.util.List;
+
+/** A bulk import committed a batch of expenses or incomes for the user. */
+public class DataImportedEvent extends UserDataChangedEvent {
+
+    private final List<Posting> added;
+
+    public DataImportedEvent(Long userId, List<Posting> added) {
+        super(userId);
+        this.added = added;
+    }
+
+    /** The rows of the batch; incomes have no category. */
+    public List<Posting> getAdded() {
+        return added;
+    }
+}
@@ -0,0 +1,38 @@
+package com.tracker.event;
+
+/** An expense of the user was added, updated or deleted. */
+public class ExpenseChangedEvent extends UserDataChangedEvent {
+
+    private final Long expenseId;
+    private final Posting removed;
+    private final Posting added;
+    private final String description;
+
+    /**
+     * {@code removed} is the expense before the write (null for an add), {@code added} after it (null for a delete);
+     * {@code description} is its description after the write.
+     */
+    public ExpenseChangedEvent(Long userId, Long expenseId, Posting removed, Posting added, String description) {
+        super(userId);
+        this.expenseId = expenseId;
+        this.removed = removed;
+        this.added = added;
+        this.description = description;
+    }
+
+    public Long getExpenseId() {
+        return expenseId;
+    }
+
+    public Posting getRemoved() {
+        return removed;
+    }
+
+    public Posting getAdded() {
+        return added;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tracker.event;
+
+/** An income of the user was added, updated or deleted. */
+public class IncomeChangedEvent extends UserDataChangedEvent {
+
+    private final Posting removed;
+    private final Posting added;
+
+    /** {@code removed} is the income before the write (null for an add), {@code added} after it (null for a delete). */
+    public IncomeChangedEvent(Long userId, Posting removed, Posting added) {
+        super(userId);
+        this.removed = removed;
+        this.added = added;
+    }
+
+    public Posting getRemoved() {
+        return removed;
+    }
+
+    public Posting getAdded() {
+        return added;
+    }
+}
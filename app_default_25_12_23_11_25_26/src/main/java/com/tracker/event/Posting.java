@@ -0,0 +1,31 @@
+package com.tracker.event;
+
+import com.tracker.model.Category;
+
+import java.time.LocalDate;
+
+/** Date, category and amount of one expense or income (category is null for incomes). */
+public class Posting {
+
+    private final LocalDate date;
+    private final Category category;
+    private final double amount;
+
+    public Posting(LocalDate date, Category category, double amount) {
+        this.date = date;
+        this.category = category;
+        this.amount = amount;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+}
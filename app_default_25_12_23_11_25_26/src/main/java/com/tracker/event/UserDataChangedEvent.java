@@ -0,0 +1,19 @@
+package com.tracker.event;
+
+/**
+ * Published by the write paths whenever a user's expenses, incomes or budget change.
+ * Listeners that keep per-user derived state should use
+ * {@code @TransactionalEventListener} so they only react once the write has committed.
+ */
+public abstract class UserDataChangedEvent {
+
+    private final Long userId;
+
+    protected UserDataChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -2,37 +2,102 @@ package com.tracker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import java.util.HashMap;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
 
 @Entity
-@Data @NoArgsConstructor @AllArgsConstructor
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Data @NoArgsConstructor
 public class Budget {
+    private static final Category[] CATEGORIES = Category.values();
+
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private Double dailyLimit = 0.0;
     private Double monthlyLimit = 0.0;
 
-    @ElementCollection
-    @CollectionTable(name = "budget_category_limits", joinColumns = @JoinColumn(name = "budget_id"))
-    @MapKeyColumn(name = "category")
-    @Column(name = "limit_value")
-    private Map<String, Double> categoryLimits = new HashMap<>();
+    /**
+     * Category limits, one ';'-separated slot per {@link Category} in ordinal order, empty
+     * where the category has no limit (e.g. "200.0;;50.0"). Null when no category has one.
+     * The value is a plain string, so an unchanged set of limits is not dirty and saves
+     * nothing. New categories must be appended to the enum to keep stored slots valid.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "category_limits")
+    private String packedCategoryLimits;
 
-    @OneToOne
+    @JsonIgnore
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    public Map<String, Double> getCategoryLimits() {
-        return categoryLimits;
+    /** A copy of the category limits; changes go through {@link #setCategoryLimits}. */
+    public Map<Category, Double> getCategoryLimits() {
+        Map<Category, Double> limits = new EnumMap<>(Category.class);
+        if (packedCategoryLimits == null) {
+            return limits;
+        }
+        String[] slots = packedCategoryLimits.split(";");
+        for (int i = 0; i < slots.length && i < CATEGORIES.length; i++) {
+            if (!slots[i].isEmpty()) {
+                limits.put(CATEGORIES[i], Double.valueOf(slots[i]));
+            }
+        }
+        return limits;
+    }
+
+    /**
+     * Replaces the category limits. Keys are {@link Category} values or their names in any
+     * case; a null value removes the limit.
+     */
+    public void setCategoryLimits(Map<?, ? extends Number> categoryLimits) {
+        Double[] slots = new Double[CATEGORIES.length];
+        for (Map.Entry<?, ? extends Number> limit : categoryLimits.entrySet()) {
+            Category category = toCategory(limit.getKey());
+            Number value = limit.getValue();
+            if (value != null && (!Double.isFinite(value.doubleValue()) || value.doubleValue() < 0)) {
+                throw new IllegalArgumentException("limit for " + category + " must be a non-negative number");
+            }
+            slots[category.ordinal()] = value != null ? value.doubleValue() : null;
+        }
+        this.packedCategoryLimits = pack(slots);
+    }
+
+    private static String pack(Double[] slots) {
+        int used = slots.length;
+        while (used > 0 && slots[used - 1] == null) {
+            used--;
+        }
+        if (used == 0) {
+            return null;
+        }
+        StringBuilder packed = new StringBuilder();
+        for (int i = 0; i < used; i++) {
+            if (i > 0) {
+                packed.append(';');
+            }
+            if (slots[i] != null) {
+                packed.append(slots[i]);
+            }
+        }
+        return packed.toString();
     }
 
-    public void setCategoryLimits(Object categoryLimits) {
-        if (categoryLimits instanceof Map) {
-            this.categoryLimits = (Map<String, Double>) categoryLimits;
-        } else {
-            throw new IllegalArgumentException("categoryLimits must be a Map<String, Double>");
+    private static Category toCategory(Object key) {
+        if (key instanceof Category category) {
+            return category;
+        }
+        try {
+            return Category.valueOf(String.valueOf(key).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown category: " + key);
         }
     }
 }
@@ -2,12 +2,16 @@ package com.tracker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_expense_user_date_id", columnList = "user_id, date desc, id desc"))
 @Data @NoArgsConstructor @AllArgsConstructor
 public class Expense {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts.
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_seq")
+    @SequenceGenerator(name = "expense_seq", sequenceName = "expense_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -22,6 +26,7 @@ public class Expense {
     
     private String description;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -2,12 +2,16 @@ package com.tracker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_income_user_date_id", columnList = "user_id, date desc, id desc"))
 @Data @NoArgsConstructor @AllArgsConstructor
 public class Income {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts.
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "income_seq")
+    @SequenceGenerator(name = "income_seq", sequenceName = "income_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -18,6 +22,7 @@ public class Income {
 
     private String description;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -0,0 +1,42 @@
+package com.tracker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running totals of a user's expenses per (month, category), expenses per day and incomes
+ * per month. Rows are adjusted in the same transaction as the expense/income write that
+ * changes them.
+ */
+@Entity
+@Table(name = "monthly_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "kind", "period", "category"}))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class MonthlyRollup {
+    /** EXPENSE and INCOME rows are per month; EXPENSE_DAY rows hold one day's expenses. */
+    public enum Kind { EXPENSE, INCOME, EXPENSE_DAY }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    /** Month as {@code year * 100 + month}, e.g. 202610; for EXPENSE_DAY rows the day as 20261018. */
+    @Column(nullable = false)
+    private int period;
+
+    /** Expense category; always null for income and EXPENSE_DAY rows. */
+    @Enumerated(EnumType.STRING)
+    private Category category;
+
+    @Column(nullable = false)
+    private double total;
+
+    @Column(nullable = false)
+    private long entryCount;
+}
@@ -0,0 +1,28 @@
+package com.tracker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/** How far a client that identified itself has synced; tombstones behind every live cursor are pruned. */
+@Entity
+@Table(name = "sync_cursor",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "client"}))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class SyncCursor {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 64)
+    private String client;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(nullable = false)
+    private Instant seenAt;
+}
@@ -0,0 +1,38 @@
+package com.tracker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The last change of one of a user's expenses or incomes, for delta sync. There is one row
+ * per record, replaced on every write with the user's next sequence number, so the log
+ * stays compacted: a client that syncs gets each changed record once, however often it
+ * changed. A delete leaves the row as a tombstone until every known client has seen it.
+ */
+@Entity
+@Table(name = "sync_entry",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "kind", "entity_id"}),
+        indexes = @Index(name = "idx_sync_entry_user_seq", columnList = "user_id, seq"))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class SyncEntry {
+    public enum Kind { EXPENSE, INCOME }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(nullable = false)
+    private boolean deleted;
+}
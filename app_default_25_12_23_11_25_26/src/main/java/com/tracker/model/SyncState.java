@@ -0,0 +1,32 @@
+package com.tracker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A user's delta-sync sequence. Writes take the next numbers under this row's lock, so
+ * they are handed out in commit order.
+ */
+@Entity
+@Table(name = "sync_state")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class SyncState {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** The last sequence number handed out. */
+    @Column(nullable = false)
+    private long seq;
+
+    /** Tombstones up to here have been pruned (every known client had synced past them). */
+    @Column(nullable = false)
+    private long pruned;
+
+    /**
+     * The newest pruned tombstone: a {@code since} below it may have missed a delete and
+     * can no longer be served incrementally.
+     */
+    @Column(nullable = false)
+    private long horizon;
+}
@@ -0,0 +1,109 @@
+package com.tracker.repository;
+
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Aggregate queries over expenses and incomes. Sums are computed by the database and
+ * returned as small projections, so the cost of a call depends on the number of groups
+ * rather than the number of rows. Read-only transactions, so with read replicas they are
+ * served by a replica unless the caller's own transaction writes.
+ */
+@Transactional(readOnly = true)
+public interface AnalyticsRepository extends Repository<Expense, Long> {
+
+    interface CategoryTotal {
+        Category getCategory();
+        Double getTotal();
+    }
+
+    interface DayTotal {
+        LocalDate getDate();
+        Double getTotal();
+    }
+
+    interface MonthTotal {
+        Integer getYear();
+        Integer getMonth();
+        Double getTotal();
+    }
+
+    interface DayGroup {
+        LocalDate getDate();
+        Double getTotal();
+        Long getEntries();
+    }
+
+    interface MonthGroup {
+        Integer getYear();
+        Integer getMonth();
+        Category getCategory();
+        Double getTotal();
+        Long getEntries();
+    }
+
+    @Query("select e.category as category, sum(e.amount) as total from Expense e "
+            + "where e.user = :user group by e.category")
+    List<CategoryTotal> sumExpensesByCategory(@Param("user") User user);
+
+    @Query("select e.category as category, sum(e.amount) as total from Expense e "
+            + "where e.user = :user and e.date between :start and :end group by e.category")
+    List<CategoryTotal> sumExpensesByCategory(@Param("user") User user,
+                                              @Param("start") LocalDate start,
+                                              @Param("end") LocalDate end);
+
+    @Query("select coalesce(sum(e.amount), 0.0) from Expense e "
+            + "where e.user = :user and e.date between :start and :end")
+    Double sumExpenses(@Param("user") User user, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("select coalesce(sum(i.amount), 0.0) from Income i "
+            + "where i.user = :user and i.date between :start and :end")
+    Double sumIncomes(@Param("user") User user, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("select year(e.date) as year, month(e.date) as month, sum(e.amount) as total from Expense e "
+            + "where e.user = :user and e.date between :start and :end "
+            + "group by year(e.date), month(e.date)")
+    List<MonthTotal> sumExpensesByMonth(@Param("user") User user,
+                                        @Param("start") LocalDate start,
+                                        @Param("end") LocalDate end);
+
+    @Query("select year(i.date) as year, month(i.date) as month, sum(i.amount) as total from Income i "
+            + "where i.user = :user and i.date between :start and :end "
+            + "group by year(i.date), month(i.date)")
+    List<MonthTotal> sumIncomesByMonth(@Param("user") User user,
+                                       @Param("start") LocalDate start,
+                                       @Param("end") LocalDate end);
+
+    @Query("select e.date as date, sum(e.amount) as total from Expense e "
+            + "where e.user = :user and e.date between :start and :end group by e.date")
+    List<DayTotal> sumExpensesByDay(@Param("user") User user,
+                                    @Param("start") LocalDate start,
+                                    @Param("end") LocalDate end);
+
+    @Query("select i.date as date, sum(i.amount) as total from Income i "
+            + "where i.user = :user and i.date between :start and :end group by i.date")
+    List<DayTotal> sumIncomesByDay(@Param("user") User user,
+                                   @Param("start") LocalDate start,
+                                   @Param("end") LocalDate end);
+
+    @Query("select year(e.date) as year, month(e.date) as month, e.category as category, "
+            + "sum(e.amount) as total, count(e) as entries from Expense e "
+            + "where e.user = :user group by year(e.date), month(e.date), e.category")
+    List<MonthGroup> groupExpensesByMonthAndCategory(@Param("user") User user);
+
+    @Query("select year(i.date) as year, month(i.date) as month, "
+            + "sum(i.amount) as total, count(i) as entries from Income i "
+            + "where i.user = :user group by year(i.date), month(i.date)")
+    List<MonthGroup> groupIncomesByMonth(@Param("user") User user);
+
+    @Query("select e.date as date, sum(e.amount) as total, count(e) as entries from Expense e "
+            + "where e.user = :user group by e.date")
+    List<DayGroup> groupExpensesByDay(@Param("user") User user);
+}
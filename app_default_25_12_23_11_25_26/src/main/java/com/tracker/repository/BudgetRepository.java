@@ -2,9 +2,16 @@ package com.tracker.repository;
 
 import com.tracker.model.Budget;
 import com.tracker.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 public interface BudgetRepository extends JpaRepository<Budget, Long> {
+    /** Served from the query and entity caches until a budget row changes. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Transactional(readOnly = true)
     Optional<Budget> findByUser(User user);
 }
@@ -1,13 +1,46 @@
 package com.tracker.repository;
 
+import com.tracker.model.Category;
 import com.tracker.model.Expense;
 import com.tracker.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseRepositoryCustom {
+
+    /** The columns of an expense that appear in a CSV export. */
+    interface ExportRow {
+        LocalDate getDate();
+        Category getCategory();
+        Double getAmount();
+        String getDescription();
+    }
 
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     List<Expense> findByUser(User user);
     List<Expense> findByUserOrderByDateDesc(User user);
     List<Expense> findByUserAndDateBetween(User user, LocalDate startDate, LocalDate endDate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select e.date as date, e.category as category, e.amount as amount, e.description as description "
+            + "from Expense e where e.user = :user and e.date between :start and :end "
+            + "order by e.date desc, e.id desc")
+    Stream<ExportRow> streamForExport(@Param("user") User user,
+                                      @Param("start") LocalDate start,
+                                      @Param("end") LocalDate end);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select e.date as date, e.category as category, e.amount as amount, e.description as description "
+            + "from Expense e where e.user = :user and e.date between :start and :end and e.category = :category "
+            + "order by e.date desc, e.id desc")
+    Stream<ExportRow> streamForExport(@Param("user") User user,
+                                      @Param("start") LocalDate start,
+                                      @Param("end") LocalDate end,
+                                      @Param("category") Category category);
 }
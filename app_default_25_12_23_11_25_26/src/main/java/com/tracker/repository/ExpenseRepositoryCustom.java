@@ -0,0 +1,11 @@
+package com.tracker.repository;
+
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ExpenseRepositoryCustom {
+    /** Up to {@code limit} expenses after the given (date, id) position, newest first; a null position starts at the top. */
+    List<Expense> findPage(User user, ListingFilter filter, LocalDate afterDate, Long afterId, int limit);
+}
@@ -0,0 +1,19 @@
+package com.tracker.repository;
+
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.List;
+
+class ExpenseRepositoryImpl implements ExpenseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Expense> findPage(User user, ListingFilter filter, LocalDate afterDate, Long afterId, int limit) {
+        return KeysetQueries.findPage(em, Expense.class, user, filter, afterDate, afterId, limit);
+    }
+}
@@ -6,7 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.time.LocalDate;
 import java.util.List;
 
-public interface IncomeRepository extends JpaRepository<Income, Long> {
+public interface IncomeRepository extends JpaRepository<Income, Long>, IncomeRepositoryCustom {
     List<Income> findByUser(User user);
     List<Income> findByUserAndDateBetween(User user, LocalDate startDate, LocalDate endDate);
 }
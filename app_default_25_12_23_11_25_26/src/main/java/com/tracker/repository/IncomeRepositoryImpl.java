@@ -0,0 +1,19 @@
+package com.tracker.repository;
+
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.List;
+
+class IncomeRepositoryImpl implements IncomeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Income> findPage(User user, ListingFilter filter, LocalDate afterDate, Long afterId, int limit) {
+        return KeysetQueries.findPage(em, Income.class, user, filter, afterDate, afterId, limit);
+    }
+}
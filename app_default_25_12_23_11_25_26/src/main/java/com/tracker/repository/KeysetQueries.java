@@ -0,0 +1,60 @@
+package com.tracker.repository;
+
+import com.tracker.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds seek-pagination queries ordered by (date desc, id desc). The position is passed
+ * as the last row of the previous page instead of an offset, so with the
+ * (user_id, date, id) index every page is an index range scan of {@code limit} rows.
+ */
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    static <T> List<T> findPage(EntityManager em, Class<T> entity, User user, ListingFilter filter,
+                                LocalDate afterDate, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("select x from ").append(entity.getSimpleName())
+                .append(" x where x.user = :user");
+        Map<String, Object> params = new HashMap<>();
+        params.put("user", user);
+
+        if (filter.getFrom() != null) {
+            jpql.append(" and x.date >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" and x.date <= :to");
+            params.put("to", filter.getTo());
+        }
+        if (filter.getCategory() != null) {
+            jpql.append(" and x.category = :category");
+            params.put("category", filter.getCategory());
+        }
+        if (filter.getMinAmount() != null) {
+            jpql.append(" and x.amount >= :minAmount");
+            params.put("minAmount", filter.getMinAmount());
+        }
+        if (filter.getMaxAmount() != null) {
+            jpql.append(" and x.amount <= :maxAmount");
+            params.put("maxAmount", filter.getMaxAmount());
+        }
+        if (afterDate != null) {
+            // The leading "date <=" bound lets the index seek; the OR only breaks ties on that date.
+            jpql.append(" and x.date <= :afterDate and (x.date < :afterDate or x.id < :afterId)");
+            params.put("afterDate", afterDate);
+            params.put("afterId", afterId);
+        }
+        jpql.append(" order by x.date desc, x.id desc");
+
+        TypedQuery<T> query = em.createQuery(jpql.toString(), entity);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,15 @@
+package com.tracker.repository;
+
+import com.tracker.model.Category;
+import lombok.*;
+import java.time.LocalDate;
+
+/** Optional filters for expense/income listings; null fields are not applied. */
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ListingFilter {
+    private LocalDate from;
+    private LocalDate to;
+    private Category category;
+    private Double minAmount;
+    private Double maxAmount;
+}
@@ -0,0 +1,84 @@
+package com.tracker.repository;
+
+import com.tracker.model.MonthlyRollup;
+import com.tracker.repository.AnalyticsRepository.CategoryTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
+
+public interface MonthlyRollupRepository extends JpaRepository<MonthlyRollup, Long> {
+
+    interface PeriodTotal {
+        Integer getPeriod();
+        Double getTotal();
+    }
+
+    List<MonthlyRollup> findByUserId(Long userId);
+
+    // The read-only lookups run in read-only transactions of their own when called outside
+    // one, so with read replicas the analytics reads are served by a replica.
+    @Transactional(readOnly = true)
+    List<MonthlyRollup> findByUserIdAndKindInAndPeriodBetween(Long userId, Collection<MonthlyRollup.Kind> kinds,
+                                                               int fromPeriod, int toPeriod);
+
+    // Native because Hibernate renders "total + :amount" with a cast H2 cannot parse.
+    @Modifying
+    @Query(nativeQuery = true, value = "update monthly_rollup set total = total + :amount, "
+            + "entry_count = entry_count + :entries "
+            + "where user_id = :userId and kind = 'EXPENSE' and period = :period and category = :category")
+    int addToExpenseGroup(@Param("userId") Long userId, @Param("period") int period,
+                          @Param("category") String category,
+                          @Param("amount") double amount, @Param("entries") long entries);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update monthly_rollup set total = total + :amount, "
+            + "entry_count = entry_count + :entries "
+            + "where user_id = :userId and kind = 'INCOME' and period = :period")
+    int addToIncomeGroup(@Param("userId") Long userId, @Param("period") int period,
+                         @Param("amount") double amount, @Param("entries") long entries);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update monthly_rollup set total = total + :amount, "
+            + "entry_count = entry_count + :entries "
+            + "where user_id = :userId and kind = 'EXPENSE_DAY' and period = :day")
+    int addToExpenseDay(@Param("userId") Long userId, @Param("day") int day,
+                        @Param("amount") double amount, @Param("entries") long entries);
+
+    @Modifying
+    @Query("delete from MonthlyRollup r where r.userId = :userId and r.entryCount = 0")
+    int deleteEmpty(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from MonthlyRollup r where r.userId = :userId")
+    int deleteAllForUser(@Param("userId") Long userId);
+
+    @Transactional(readOnly = true)
+    @Query("select r.category as category, sum(r.total) as total from MonthlyRollup r "
+            + "where r.userId = :userId and r.kind = :kind group by r.category")
+    List<CategoryTotal> sumByCategory(@Param("userId") Long userId, @Param("kind") MonthlyRollup.Kind kind);
+
+    @Transactional(readOnly = true)
+    @Query("select r.category as category, sum(r.total) as total from MonthlyRollup r "
+            + "where r.userId = :userId and r.kind = :kind "
+            + "and r.period between :fromPeriod and :toPeriod group by r.category")
+    List<CategoryTotal> sumByCategory(@Param("userId") Long userId, @Param("kind") MonthlyRollup.Kind kind,
+                                      @Param("fromPeriod") int fromPeriod,
+                                      @Param("toPeriod") int toPeriod);
+
+    @Transactional(readOnly = true)
+    @Query("select coalesce(sum(r.total), 0.0) from MonthlyRollup r "
+            + "where r.userId = :userId and r.kind = :kind and r.period between :fromPeriod and :toPeriod")
+    Double sumTotal(@Param("userId") Long userId, @Param("kind") MonthlyRollup.Kind kind,
+                    @Param("fromPeriod") int fromPeriod, @Param("toPeriod") int toPeriod);
+
+    @Transactional(readOnly = true)
+    @Query("select r.period as period, sum(r.total) as total from MonthlyRollup r "
+            + "where r.userId = :userId and r.kind = :kind and r.period between :fromPeriod and :toPeriod "
+            + "group by r.period")
+    List<PeriodTotal> sumByPeriod(@Param("userId") Long userId, @Param("kind") MonthlyRollup.Kind kind,
+                                  @Param("fromPeriod") int fromPeriod, @Param("toPeriod") int toPeriod);
+}
@@ -1,27 +1,24 @@
 package com.tracker.service;
 
 import com.tracker.model.User;
-import com.tracker.model.Budget;
-import com.tracker.repository.BudgetRepository;
-import com.tracker.repository.ExpenseRepository;
-import com.tracker.repository.IncomeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AiTipService {
 
     @Autowired
-    private ExpenseRepository expenseRepo;
+    private AnalyticsService analytics;
 
     @Autowired
-    private IncomeRepository incomeRepo;
+    private BudgetStatusService budgetStatus;
 
     @Autowired
-    private BudgetRepository budgetRepo;
+    private FanOut fanOut;
 
     public List<String> generateTips(User user) {
         List<String> tips = new ArrayList<>();
@@ -34,35 +31,43 @@ public class AiTipService {
         LocalDate start = LocalDate.of(currentYear, currentMonth, 1);
         LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
 
-        List<com.tracker.model.Expense> expenses = expenseRepo.findByUserAndDateBetween(user, start, end);
-        List<com.tracker.model.Income> incomes = incomeRepo.findByUserAndDateBetween(user, start, end);
+        // The budget status reads the database while the totals are summed here (from the ledger when it is loaded).
+        CompletableFuture<BudgetStatusService.BudgetStatus> status = fanOut.submit(() -> budgetStatus.status(user, now));
+        Map<String, Double> categorySpending = analytics.categoryTotals(user, start, end);
+        double totalIncome = analytics.incomeTotal(user, start, end);
 
-        double totalExpense = expenses.stream().mapToDouble(e -> e.getAmount()).sum();
-        double totalIncome = incomes.stream().mapToDouble(i -> i.getAmount()).sum();
+        double totalExpense = 0;
+        for (double spent : categorySpending.values()) {
+            totalExpense += spent;
+        }
 
         // Budget check
-        Budget budget = budgetRepo.findByUser(user).orElse(null);
-        double monthlyLimit = budget != null && budget.getMonthlyLimit() != null ? budget.getMonthlyLimit() : 0;
+        BudgetStatusService.BudgetStatus budget = FanOut.join(status);
 
         // Generate tips based on data
         if (totalExpense > totalIncome) {
             tips.add("💰 Your expenses exceed your income this month. Consider reviewing your spending habits.");
         }
 
-        if (monthlyLimit > 0 && totalExpense > monthlyLimit) {
+        if (budget.getMonthly().isExceeded()) {
             tips.add("⚠️ You've exceeded your monthly budget. Try to cut back on non-essential expenses.");
         }
 
+        if (budget.getDaily().isExceeded()) {
+            tips.add("📅 You've gone over your daily limit today. Consider holding off on further purchases.");
+        }
+
+        for (Map.Entry<String, BudgetStatusService.Usage> entry : budget.getCategories().entrySet()) {
+            if (entry.getValue().isExceeded()) {
+                tips.add("🚫 You're over your " + entry.getKey() + " budget for this month.");
+            }
+        }
+
         if (totalIncome > 0 && totalExpense / totalIncome < 0.7) {
             tips.add("🎯 Great job! You're spending less than 70% of your income. Keep up the good work!");
         }
 
         // Category-specific tips
-        Map<String, Double> categorySpending = new HashMap<>();
-        for (com.tracker.model.Expense e : expenses) {
-            categorySpending.put(e.getCategory().name(), categorySpending.getOrDefault(e.getCategory().name(), 0.0) + e.getAmount());
-        }
-
         for (Map.Entry<String, Double> entry : categorySpending.entrySet()) {
             String category = entry.getKey();
             double spent = entry.getValue();
@@ -0,0 +1,81 @@
+package com.tracker.service;
+
+import com.tracker.model.MonthlyRollup.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.AnalyticsRepository;
+import com.tracker.repository.AnalyticsRepository.CategoryTotal;
+import com.tracker.repository.MonthlyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Read side for expense and income totals. The user's cached {@link Ledger} answers any
+ * range in memory; without one, whole-month ranges are answered from the monthly rollups
+ * and other ranges fall back to grouped queries over the raw rows.
+ */
+@Service
+public class AnalyticsService {
+
+    @Autowired
+    private AnalyticsRepository analyticsRepo;
+
+    @Autowired
+    private MonthlyRollupRepository rollupRepo;
+
+    @Autowired
+    private LedgerCache ledgers;
+
+    public Map<String, Double> categoryTotals(User user) {
+        Ledger ledger = ledgers.get(user.getId());
+        if (ledger != null) {
+            return ledger.categoryTotals();
+        }
+        return toCategoryMap(rollupRepo.sumByCategory(user.getId(), Kind.EXPENSE));
+    }
+
+    public Map<String, Double> categoryTotals(User user, LocalDate start, LocalDate end) {
+        Ledger ledger = ledgers.get(user.getId());
+        if (ledger != null) {
+            return ledger.categoryTotals(start, end);
+        }
+        if (RollupService.coversWholeMonths(start, end)) {
+            return toCategoryMap(rollupRepo.sumByCategory(user.getId(), Kind.EXPENSE,
+                    RollupService.period(start), RollupService.period(end)));
+        }
+        return toCategoryMap(analyticsRepo.sumExpensesByCategory(user, start, end));
+    }
+
+    public double expenseTotal(User user, LocalDate start, LocalDate end) {
+        Ledger ledger = ledgers.get(user.getId());
+        if (ledger != null) {
+            return ledger.expenseTotal(start, end);
+        }
+        if (RollupService.coversWholeMonths(start, end)) {
+            return rollupRepo.sumTotal(user.getId(), Kind.EXPENSE, RollupService.period(start), RollupService.period(end));
+        }
+        return analyticsRepo.sumExpenses(user, start, end);
+    }
+
+    public double incomeTotal(User user, LocalDate start, LocalDate end) {
+        Ledger ledger = ledgers.get(user.getId());
+        if (ledger != null) {
+            return ledger.incomeTotal(start, end);
+        }
+        if (RollupService.coversWholeMonths(start, end)) {
+            return rollupRepo.sumTotal(user.getId(), Kind.INCOME, RollupService.period(start), RollupService.period(end));
+        }
+        return analyticsRepo.sumIncomes(user, start, end);
+    }
+
+    private Map<String, Double> toCategoryMap(List<CategoryTotal> totals) {
+        Map<String, Double> categorySums = new HashMap<>();
+        for (CategoryTotal t : totals) {
+            categorySums.put(t.getCategory().name(), t.getTotal());
+        }
+        return categorySums;
+    }
+
+}
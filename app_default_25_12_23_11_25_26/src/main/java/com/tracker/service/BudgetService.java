@@ -0,0 +1,80 @@
+package com.tracker.service;
+
+import com.tracker.event.BudgetChangedEvent;
+import com.tracker.model.Budget;
+import com.tracker.model.User;
+import com.tracker.repository.BudgetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Budget writes. Changes to the limits publish a {@link BudgetChangedEvent}; a write that
+ * leaves every limit as it was neither touches the row nor publishes anything.
+ */
+@Service
+public class BudgetService {
+
+    @Autowired
+    private BudgetRepository budgetRepo;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private Journal journal;
+
+    /** The user's budget, created with no limits on first access. */
+    @Transactional
+    public Budget get(User user) {
+        return budgetRepo.findByUser(user).orElseGet(() -> {
+            Budget b = new Budget();
+            b.setUser(user);
+            Budget saved = budgetRepo.save(b);
+            journal.budgetSaved(saved);
+            return saved;
+        });
+    }
+
+    @Transactional
+    public Budget update(User user, Budget budgetData) {
+        Budget budget = budgetRepo.findByUser(user).orElse(new Budget());
+        budget.setUser(user);
+        List<Object> before = limitsOf(budget);
+        budget.setMonthlyLimit(budgetData.getMonthlyLimit());
+        budget.setDailyLimit(budgetData.getDailyLimit());
+        // A body without category limits (e.g. just the monthly limit) leaves them as they are.
+        if (budgetData.getPackedCategoryLimits() != null) {
+            budget.setCategoryLimits(budgetData.getCategoryLimits());
+        }
+        return save(user, budget, before);
+    }
+
+    @Transactional
+    public Budget setCategoryLimits(User user, Map<String, Double> categoryLimits) {
+        Budget budget = budgetRepo.findByUser(user).orElse(new Budget());
+        budget.setUser(user);
+        List<Object> before = limitsOf(budget);
+        budget.setCategoryLimits(categoryLimits);
+        return save(user, budget, before);
+    }
+
+    private Budget save(User user, Budget budget, List<Object> before) {
+        if (budget.getId() != null && before.equals(limitsOf(budget))) {
+            return budget;
+        }
+        Budget saved = budgetRepo.save(budget);
+        journal.budgetSaved(saved);
+        events.publishEvent(new BudgetChangedEvent(user.getId()));
+        return saved;
+    }
+
+    private static List<Object> limitsOf(Budget budget) {
+        return Arrays.asList(budget.getDailyLimit(), budget.getMonthlyLimit(), budget.getPackedCategoryLimits());
+    }
+}
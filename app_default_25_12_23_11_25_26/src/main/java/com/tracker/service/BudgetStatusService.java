@@ -0,0 +1,123 @@
+package com.tracker.service;
+
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.MonthlyRollup.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.AnalyticsRepository.CategoryTotal;
+import com.tracker.repository.BudgetRepository;
+import com.tracker.repository.MonthlyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates a user's daily, monthly and per-category limits. The spend side comes from
+ * the rollup rows that every expense write already adjusts, so a check is a few indexed
+ * lookups no matter how much history the user has. A limit of 0 means "no limit".
+ */
+@Service
+public class BudgetStatusService {
+
+    @Autowired
+    private BudgetRepository budgetRepo;
+
+    @Autowired
+    private MonthlyRollupRepository rollupRepo;
+
+    @Transactional(readOnly = true)
+    public BudgetStatus status(User user, LocalDate date) {
+        Budget budget = budgetRepo.findByUser(user).orElseGet(Budget::new);
+        int period = RollupService.period(date);
+        int day = RollupService.day(date);
+
+        double daySpent = rollupRepo.sumTotal(user.getId(), Kind.EXPENSE_DAY, day, day);
+        Map<String, Double> byCategory = new LinkedHashMap<>();
+        for (CategoryTotal t : rollupRepo.sumByCategory(user.getId(), Kind.EXPENSE, period, period)) {
+            byCategory.put(t.getCategory().name(), t.getTotal());
+        }
+        return evaluate(budget, date, daySpent, byCategory);
+    }
+
+    /** Evaluates the limits against spend the caller already has: {@code date}'s total and its month by category. */
+    public BudgetStatus evaluate(Budget budget, LocalDate date, double daySpent, Map<String, Double> monthByCategory) {
+        double monthSpent = 0;
+        for (double spent : monthByCategory.values()) {
+            monthSpent += spent;
+        }
+        BudgetStatus status = new BudgetStatus(date, RollupService.period(date),
+                new Usage(limitOf(budget.getDailyLimit()), daySpent),
+                new Usage(limitOf(budget.getMonthlyLimit()), monthSpent));
+        for (Map.Entry<Category, Double> limit : budget.getCategoryLimits().entrySet()) {
+            String category = limit.getKey().name();
+            status.categories.put(category,
+                    new Usage(limitOf(limit.getValue()), monthByCategory.getOrDefault(category, 0.0)));
+        }
+        return status;
+    }
+
+    /** Whether the month's spend is over the monthly limit. */
+    @Transactional(readOnly = true)
+    public boolean monthlyLimitExceeded(User user, int period) {
+        double limit = budgetRepo.findByUser(user).map(b -> limitOf(b.getMonthlyLimit())).orElse(0.0);
+        return limit > 0 && rollupRepo.sumTotal(user.getId(), Kind.EXPENSE, period, period) > limit;
+    }
+
+    private static double limitOf(Double limit) {
+        return limit != null && limit > 0 ? limit : 0;
+    }
+
+    public static class BudgetStatus {
+        private final LocalDate date;
+        private final int period;
+        private final Usage daily;
+        private final Usage monthly;
+        private final Map<String, Usage> categories = new LinkedHashMap<>();
+
+        BudgetStatus(LocalDate date, int period, Usage daily, Usage monthly) {
+            this.date = date;
+            this.period = period;
+            this.daily = daily;
+            this.monthly = monthly;
+        }
+
+        public LocalDate getDate() { return date; }
+        public int getPeriod() { return period; }
+        public Usage getDaily() { return daily; }
+        public Usage getMonthly() { return monthly; }
+        public Map<String, Usage> getCategories() { return categories; }
+
+        public boolean isAnyExceeded() {
+            return daily.isExceeded() || monthly.isExceeded()
+                    || categories.values().stream().anyMatch(Usage::isExceeded);
+        }
+    }
+
+    /** Spend against one limit. Utilization and remaining are null when there is no limit. */
+    public static class Usage {
+        private final double limit;
+        private final double spent;
+
+        Usage(double limit, double spent) {
+            this.limit = limit;
+            this.spent = spent;
+        }
+
+        public double getLimit() { return limit; }
+        public double getSpent() { return spent; }
+        public boolean isExceeded() { return limit > 0 && spent > limit; }
+
+        public Double getRemaining() {
+            return limit > 0 ? Math.max(0, limit - spent) : null;
+        }
+
+        /** Percentage of the limit spent, rounded to one decimal. */
+        public Double getUtilization() {
+            return limit > 0 ? Math.round(spent / limit * 1000) / 10.0 : null;
+        }
+    }
+}
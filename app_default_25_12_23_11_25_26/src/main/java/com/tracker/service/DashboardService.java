@@ -0,0 +1,165 @@
+package com.tracker.service;
+
+import com.tracker.model.Budget;
+import com.tracker.model.MonthlyRollup;
+import com.tracker.model.MonthlyRollup.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.AnalyticsRepository.CategoryTotal;
+import com.tracker.repository.BudgetRepository;
+import com.tracker.repository.MonthlyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Everything the dashboard shows, in one call. The independent reads (the rollup rows of
+ * the whole period, the budget row, today's spend and the tips) run concurrently through
+ * {@link FanOut}. The summary, the income-vs-expense months, the category breakdown, the
+ * yearly trend and the budget evaluation are then all derived from that single rollup
+ * snapshot, so they agree with each other.
+ */
+@Service
+public class DashboardService {
+
+    public static final int DEFAULT_MONTHS = 3;
+    public static final int MAX_MONTHS = 24;
+
+    @Autowired
+    private MonthlyRollupRepository rollupRepo;
+
+    @Autowired
+    private BudgetRepository budgetRepo;
+
+    @Autowired
+    private BudgetStatusService budgetStatus;
+
+    @Autowired
+    private TipCache tipCache;
+
+    @Autowired
+    private FanOut fanOut;
+
+    public Dashboard load(User user, int year, int month, int months) {
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("months must be between 1 and " + MAX_MONTHS);
+        }
+        YearMonth selected = YearMonth.of(year, month);
+        YearMonth first = selected.minusMonths(months - 1);
+        int fromPeriod = Math.min(period(first), year * 100 + 1);
+        int toPeriod = Math.max(period(selected), year * 100 + 12);
+        LocalDate today = LocalDate.now();
+        int day = RollupService.day(today);
+        int todayPeriod = RollupService.period(today);
+        boolean todayInSnapshot = todayPeriod >= fromPeriod && todayPeriod <= toPeriod;
+
+        CompletableFuture<List<MonthlyRollup>> rollups = fanOut.submit(() -> rollupRepo.findByUserIdAndKindInAndPeriodBetween(
+                user.getId(), EnumSet.of(Kind.EXPENSE, Kind.INCOME), fromPeriod, toPeriod));
+        CompletableFuture<Budget> budget = fanOut.submit(() -> budgetRepo.findByUser(user).orElseGet(Budget::new));
+        CompletableFuture<Double> todaySpent = fanOut.submit(() -> rollupRepo.sumTotal(user.getId(), Kind.EXPENSE_DAY, day, day));
+        CompletableFuture<List<String>> tips = fanOut.submit(() -> tipCache.get(user));
+        // The budget is evaluated for today; its month is read separately only when the snapshot misses it.
+        CompletableFuture<Map<String, Double>> todayMonth = todayInSnapshot ? null : fanOut.submit(() -> {
+            Map<String, Double> byCategory = new LinkedHashMap<>();
+            for (CategoryTotal t : rollupRepo.sumByCategory(user.getId(), Kind.EXPENSE, todayPeriod, todayPeriod)) {
+                byCategory.put(t.getCategory().name(), t.getTotal());
+            }
+            return byCategory;
+        });
+
+        Snapshot snapshot = new Snapshot(FanOut.join(rollups));
+        Dashboard dashboard = new Dashboard();
+
+        Map<String, Double> categories = snapshot.categories(period(selected));
+        double totalSpent = sum(categories);
+        Budget limits = FanOut.join(budget);
+        double monthlyLimit = limits.getMonthlyLimit() != null ? limits.getMonthlyLimit() : 0;
+        dashboard.summary.putAll(categories);
+        dashboard.summary.put("totalSpent", totalSpent);
+        dashboard.summary.put("budgetExceeded", monthlyLimit > 0 && totalSpent > monthlyLimit);
+        dashboard.categorySpending.putAll(categories);
+
+        for (YearMonth m = first; !m.isAfter(selected); m = m.plusMonths(1)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("year", m.getYear());
+            entry.put("month", m.getMonthValue());
+            entry.put("income", snapshot.income(period(m)));
+            entry.put("expense", sum(snapshot.categories(period(m))));
+            dashboard.incomeVsExpense.add(entry);
+        }
+
+        List<String> labels = new ArrayList<>();
+        List<Double> expenses = new ArrayList<>();
+        List<Double> incomes = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            labels.add(Month.of(i).name().substring(0, 3));
+            expenses.add(sum(snapshot.categories(year * 100 + i)));
+            incomes.add(snapshot.income(year * 100 + i));
+        }
+        dashboard.trends.put("months", labels);
+        dashboard.trends.put("expenses", expenses);
+        dashboard.trends.put("incomes", incomes);
+
+        dashboard.budget = budgetStatus.evaluate(limits, today, FanOut.join(todaySpent),
+                todayInSnapshot ? snapshot.categories(todayPeriod) : FanOut.join(todayMonth));
+        dashboard.tips = FanOut.join(tips);
+        return dashboard;
+    }
+
+    private static int period(YearMonth m) {
+        return m.getYear() * 100 + m.getMonthValue();
+    }
+
+    private static double sum(Map<String, Double> values) {
+        double total = 0;
+        for (double v : values.values()) {
+            total += v;
+        }
+        return total;
+    }
+
+    /** Rollup rows of the requested period, indexed by month. */
+    private static class Snapshot {
+        private final Map<Integer, Map<String, Double>> expenses = new HashMap<>();
+        private final Map<Integer, Double> incomes = new HashMap<>();
+
+        Snapshot(List<MonthlyRollup> rows) {
+            for (MonthlyRollup r : rows) {
+                if (r.getKind() == Kind.INCOME) {
+                    incomes.merge(r.getPeriod(), r.getTotal(), Double::sum);
+                } else {
+                    expenses.computeIfAbsent(r.getPeriod(), p -> new LinkedHashMap<>())
+                            .merge(r.getCategory().name(), r.getTotal(), Double::sum);
+                }
+            }
+        }
+
+        Map<String, Double> categories(int period) {
+            return expenses.getOrDefault(period, Map.of());
+        }
+
+        double income(int period) {
+            return incomes.getOrDefault(period, 0.0);
+        }
+    }
+
+    public static class Dashboard {
+        private final Map<String, Object> summary = new LinkedHashMap<>();
+        private final List<Map<String, Object>> incomeVsExpense = new ArrayList<>();
+        private final Map<String, Double> categorySpending = new LinkedHashMap<>();
+        private final Map<String, Object> trends = new LinkedHashMap<>();
+        private BudgetStatusService.BudgetStatus budget;
+        private List<String> tips;
+
+        public Map<String, Object> getSummary() { return summary; }
+        public List<Map<String, Object>> getIncomeVsExpense() { return incomeVsExpense; }
+        public Map<String, Double> getCategorySpending() { return categorySpending; }
+        public Map<String, Object> getTrends() { return trends; }
+        public BudgetStatusService.BudgetStatus getBudget() { return budget; }
+        public List<String> getTips() { return tips; }
+    }
+}
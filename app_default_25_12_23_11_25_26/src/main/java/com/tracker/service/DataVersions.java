@@ -0,0 +1,50 @@
+package com.tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tracker.event.UserDataChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A per-user version changed after every committed expense, income or budget write, used
+ * to build ETags for the read endpoints. Versions live in memory, so {@link #epoch()}
+ * changes on every start to keep ETags from a previous run from matching.
+ *
+ * <p>Only recently active users are kept. Every version handed out is a new number from
+ * one sequence, so a user whose entry was dropped gets a version none of their ETags has
+ * had, and a client revalidating one just fetches the response again.
+ */
+@Component
+public class DataVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<Long, Long> versions;
+
+    public DataVersions(@Value("${tracker.data-versions.max-size:100000}") long maxSize,
+                        @Value("${tracker.data-versions.ttl:1h}") Duration ttl) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long current(Long userId) {
+        return versions.get(userId, id -> sequence.incrementAndGet());
+    }
+
+    // After commit: a reader can then never get the new version together with old data.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        versions.put(event.getUserId(), sequence.incrementAndGet());
+    }
+}
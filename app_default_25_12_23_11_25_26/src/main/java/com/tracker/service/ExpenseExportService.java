@@ -0,0 +1,118 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.model.User;
+import com.tracker.repository.ExpenseRepository;
+import com.tracker.repository.ExpenseRepository.ExportRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a user's expenses as CSV straight from a database cursor. Rows are read as
+ * projections (never managed entities) and formatted into one reused line buffer, so
+ * memory use does not grow with the number of rows exported.
+ */
+@Service
+public class ExpenseExportService {
+
+    public static final String HEADER = "Date,Category,Amount,Description";
+
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    /**
+     * Streams the matching expenses, newest first, to {@code out}. Any of {@code from},
+     * {@code to} and {@code category} may be null to leave that filter off.
+     */
+    @Transactional(readOnly = true)
+    public void writeCsv(User user, LocalDate from, LocalDate to, Category category, boolean gzip,
+                         OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        LocalDate start = from != null ? from : MIN_DATE;
+        LocalDate end = to != null ? to : MAX_DATE;
+
+        try (Stream<ExportRow> rows = category != null
+                ? expenseRepo.streamForExport(user, start, end, category)
+                : expenseRepo.streamForExport(user, start, end)) {
+            Iterator<ExportRow> it = rows.iterator();
+            if (!it.hasNext()) {
+                writer.write("No expenses found");
+            } else {
+                writer.write(HEADER);
+                writer.write('\n');
+                StringBuilder line = new StringBuilder(128);
+                while (it.hasNext()) {
+                    line.setLength(0);
+                    appendRow(line, it.next());
+                    writer.append(line);
+                }
+            }
+        }
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+    }
+
+    static void appendRow(StringBuilder line, ExportRow row) {
+        line.append(row.getDate()).append(',')
+            .append(row.getCategory().name()).append(',');
+        appendAmount(line, row.getAmount());
+        line.append(',');
+        appendField(line, row.getDescription());
+        line.append('\n');
+    }
+
+    /** Two decimal places with a '.' separator whatever the default locale. */
+    static void appendAmount(StringBuilder line, double amount) {
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            line.append('-');
+            cents = -cents;
+        }
+        line.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    /** RFC 4180 quoting: fields containing a comma, quote or line break are quoted, quotes doubled. */
+    static void appendField(StringBuilder line, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
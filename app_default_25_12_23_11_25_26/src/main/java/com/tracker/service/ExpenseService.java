@@ -0,0 +1,104 @@
+package com.tracker.service;
+
+import com.tracker.event.ExpenseChangedEvent;
+import com.tracker.event.Posting;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.SyncEntry;
+import com.tracker.model.User;
+import com.tracker.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Expense writes. Each method updates the raw row and the derived rollups in one transaction,
+ * records the row in the {@link Journal} and the {@link SyncLog} and publishes an {@link ExpenseChangedEvent}.
+ */
+@Service
+public class ExpenseService {
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private SyncLog syncLog;
+
+    @Transactional
+    public Expense add(User user, Expense expense) {
+        requireCategory(expense);
+        // Always a new row: an id in the request body must not overwrite an existing one.
+        expense.setId(null);
+        expense.setUser(user);
+        Expense saved = expenseRepo.save(expense);
+        rollups.addExpense(user.getId(), saved.getDate(), saved.getCategory(), saved.getAmount());
+        journal.expenseSaved(saved);
+        syncLog.saved(user.getId(), SyncEntry.Kind.EXPENSE, saved.getId());
+        events.publishEvent(new ExpenseChangedEvent(user.getId(), saved.getId(), null, posting(saved),
+                saved.getDescription()));
+        return saved;
+    }
+
+    @Transactional
+    public Optional<Expense> update(User user, Long id, Expense updatedExpense) {
+        requireCategory(updatedExpense);
+        Expense expense = expenseRepo.findById(id).orElse(null);
+        if (expense == null || !expense.getUser().getId().equals(user.getId())) {
+            return Optional.empty();
+        }
+        LocalDate oldDate = expense.getDate();
+        Category oldCategory = expense.getCategory();
+        double oldAmount = expense.getAmount();
+
+        expense.setAmount(updatedExpense.getAmount());
+        expense.setCategory(updatedExpense.getCategory());
+        expense.setDate(updatedExpense.getDate());
+        expense.setDescription(updatedExpense.getDescription());
+        Expense saved = expenseRepo.save(expense);
+        rollups.moveExpense(user.getId(), oldDate, oldCategory, oldAmount,
+                saved.getDate(), saved.getCategory(), saved.getAmount());
+        journal.expenseSaved(saved);
+        syncLog.saved(user.getId(), SyncEntry.Kind.EXPENSE, saved.getId());
+        events.publishEvent(new ExpenseChangedEvent(user.getId(), saved.getId(),
+                new Posting(oldDate, oldCategory, oldAmount), posting(saved), saved.getDescription()));
+        return Optional.of(saved);
+    }
+
+    @Transactional
+    public boolean delete(User user, Long id) {
+        Expense expense = expenseRepo.findById(id).orElse(null);
+        if (expense == null || !expense.getUser().getId().equals(user.getId())) {
+            return false;
+        }
+        expenseRepo.delete(expense);
+        rollups.removeExpense(user.getId(), expense.getDate(), expense.getCategory(), expense.getAmount());
+        journal.expenseDeleted(expense);
+        syncLog.deleted(user.getId(), SyncEntry.Kind.EXPENSE, expense.getId());
+        events.publishEvent(new ExpenseChangedEvent(user.getId(), expense.getId(), posting(expense), null, null));
+        return true;
+    }
+
+    // Checked before any write: the rollups file every expense under its category.
+    private static void requireCategory(Expense expense) {
+        if (expense.getCategory() == null) {
+            throw new IllegalArgumentException("category is required");
+        }
+    }
+
+    private static Posting posting(Expense expense) {
+        return new Posting(expense.getDate(), expense.getCategory(), expense.getAmount());
+    }
+}
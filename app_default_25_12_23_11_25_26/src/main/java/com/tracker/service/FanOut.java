@@ -0,0 +1,76 @@
+package com.tracker.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request's independent lookups concurrently on the application task executor.
+ * At most {@code tracker.fan-out.max-concurrent} lookups are in flight across the
+ * application, kept below the connection pool size so the request threads' own queries
+ * still get a connection. Past that limit, and on threads that are not serving a request
+ * (executor tasks such as a dashboard sub-query or a tip precompute), a lookup runs inline
+ * on the caller instead, so executor threads never wait for work queued behind them.
+ * Lookups run with the caller's security context, so they are routed as the same user.
+ *
+ * <p>With {@code spring.threads.virtual.enabled} (the {@code virtual} profile, Java 21)
+ * both the requests and these lookups run on virtual threads.
+ */
+@Component
+public class FanOut {
+
+    private final TaskExecutor executor;
+    private final boolean enabled;
+    private final Semaphore permits;
+
+    public FanOut(@Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                  @Value("${tracker.fan-out.enabled:true}") boolean enabled,
+                  @Value("${tracker.fan-out.max-concurrent:5}") int maxConcurrent) {
+        this.executor = executor;
+        this.enabled = enabled;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (enabled && RequestContextHolder.getRequestAttributes() != null && permits.tryAcquire()) {
+            SecurityContext context = SecurityContextHolder.getContext();
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    SecurityContextHolder.setContext(context);
+                    try {
+                        return task.get();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                        permits.release();
+                    }
+                }, executor);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+        try {
+            return CompletableFuture.completedFuture(task.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** The lookup's result, rethrowing its exception as is. */
+    public static <T> T join(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+}
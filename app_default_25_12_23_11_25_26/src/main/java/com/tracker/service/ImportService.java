@@ -0,0 +1,368 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracker.event.DataImportedEvent;
+import com.tracker.event.Posting;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.SyncEntry;
+import com.tracker.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Bulk import of expenses and incomes from CSV or NDJSON. The input is parsed one row at
+ * a time; valid rows are inserted as JDBC batches of {@code tracker.import.batch-size},
+ * each batch in its own transaction together with its rollup adjustments. Ids come from
+ * the entities' pooled sequences, so imported rows never collide with rows saved through
+ * JPA. Rows that fail validation are skipped and reported with their line number.
+ */
+@Service
+public class ImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.contains("ndjson") ? NDJSON : CSV;
+        }
+    }
+
+    /** Errors beyond this many are counted but not listed in the report. */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private static final String INSERT_EXPENSE =
+            "insert into expense (id, amount, category, date, description, user_id) values (?, ?, ?, ?, ?, ?)";
+    private static final int[] EXPENSE_TYPES =
+            {Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.BIGINT};
+    private static final String INSERT_INCOME =
+            "insert into income (id, amount, date, description, user_id) values (?, ?, ?, ?, ?)";
+    private static final int[] INCOME_TYPES =
+            {Types.BIGINT, Types.DOUBLE, Types.DATE, Types.VARCHAR, Types.BIGINT};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PooledIds ids;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private SyncLog syncLog;
+
+    @Value("${tracker.import.batch-size:1000}")
+    private int batchSize;
+
+    public ImportReport importExpenses(User user, InputStream in, Format format) throws IOException {
+        return run(user, in, format, true);
+    }
+
+    public ImportReport importIncomes(User user, InputStream in, Format format) throws IOException {
+        return run(user, in, format, false);
+    }
+
+    private ImportReport run(User user, InputStream in, Format format, boolean expenses) throws IOException {
+        long started = System.nanoTime();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == Format.NDJSON ? new NdjsonSource(reader, objectMapper) : new CsvSource(reader);
+        List<Object> batch = new ArrayList<>(batchSize);
+        List<Integer> lines = new ArrayList<>(batchSize);
+        RollupService.GroupTotals groups = new RollupService.GroupTotals();
+
+        while (true) {
+            Map<String, String> row;
+            try {
+                row = source.next();
+                if (row == null) {
+                    break;
+                }
+                batch.add(expenses ? toExpense(row) : toIncome(row));
+                lines.add(source.line());
+            } catch (IllegalArgumentException e) {
+                report.error(source.line(), e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                insert(user, batch, lines, groups, report);
+                batch.clear();
+                lines.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(user, batch, lines, groups, report);
+        }
+        report.elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        return report;
+    }
+
+    private void insert(User user, List<Object> batch, List<Integer> lines, RollupService.GroupTotals groups,
+                        ImportReport report) {
+        try {
+            insertBatch(user, batch, groups);
+        } catch (DataAccessException e) {
+            // The whole batch rolled back; report each of its rows so the caller can resubmit them.
+            for (Integer line : lines) {
+                report.error(line, "batch rejected by the database: " + e.getMostSpecificCause().getMessage());
+            }
+            return;
+        }
+        report.imported += batch.size();
+        report.batches++;
+    }
+
+    private void insertBatch(User user, List<Object> batch, RollupService.GroupTotals groups) {
+        transactionTemplate.executeWithoutResult(status -> {
+            groups.clear();
+            List<Posting> postings = new ArrayList<>(batch.size());
+            long[] saved = new long[batch.size()];
+            if (batch.get(0) instanceof Expense) {
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                for (Object o : batch) {
+                    Expense e = (Expense) o;
+                    long id = ids.next("expense_seq");
+                    saved[rows.size()] = id;
+                    rows.add(new Object[]{id, e.getAmount(), e.getCategory().name(),
+                            e.getDate(), e.getDescription(), user.getId()});
+                    journal.expenseSaved(id, user.getId(), e.getAmount(), e.getCategory(), e.getDate(),
+                            e.getDescription());
+                    groups.addExpense(e.getDate(), e.getCategory(), e.getAmount());
+                    postings.add(new Posting(e.getDate(), e.getCategory(), e.getAmount()));
+                }
+                jdbcTemplate.batchUpdate(INSERT_EXPENSE, rows, EXPENSE_TYPES);
+                syncLog.saved(user.getId(), SyncEntry.Kind.EXPENSE, saved);
+            } else {
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                for (Object o : batch) {
+                    Income i = (Income) o;
+                    long id = ids.next("income_seq");
+                    saved[rows.size()] = id;
+                    rows.add(new Object[]{id, i.getAmount(), i.getDate(),
+                            i.getDescription(), user.getId()});
+                    journal.incomeSaved(id, user.getId(), i.getAmount(), i.getDate(), i.getDescription());
+                    groups.addIncome(i.getDate(), i.getAmount());
+                    postings.add(new Posting(i.getDate(), null, i.getAmount()));
+                }
+                jdbcTemplate.batchUpdate(INSERT_INCOME, rows, INCOME_TYPES);
+                syncLog.saved(user.getId(), SyncEntry.Kind.INCOME, saved);
+            }
+            rollups.applyGroups(user.getId(), groups);
+            events.publishEvent(new DataImportedEvent(user.getId(), postings));
+        });
+    }
+
+    private static Expense toExpense(Map<String, String> row) {
+        Expense e = new Expense();
+        e.setDate(parseDate(row.get("date")));
+        e.setAmount(parseAmount(row.get("amount")));
+        e.setCategory(parseCategory(row.get("category")));
+        e.setDescription(parseDescription(row.get("description")));
+        return e;
+    }
+
+    private static Income toIncome(Map<String, String> row) {
+        Income i = new Income();
+        i.setDate(parseDate(row.get("date")));
+        i.setAmount(parseAmount(row.get("amount")));
+        i.setDescription(parseDescription(row.get("description")));
+        return i;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("date is required");
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("date must be yyyy-MM-dd: " + value);
+        }
+    }
+
+    private static double parseAmount(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("amount is required");
+        }
+        try {
+            double amount = Double.parseDouble(value.trim());
+            if (!Double.isFinite(amount)) {
+                throw new NumberFormatException();
+            }
+            return amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("amount is not a number: " + value);
+        }
+    }
+
+    private static Category parseCategory(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+        try {
+            return Category.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown category: " + value);
+        }
+    }
+
+    private static String parseDescription(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (value.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("description longer than " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private interface RowSource {
+        /**
+         * Next row keyed by lower-case field name, or null at end of input. Throws
+         * IllegalArgumentException for a row that cannot be parsed; reading may continue.
+         */
+        Map<String, String> next() throws IOException;
+
+        int line();
+    }
+
+    /** CSV with a header row naming the columns, e.g. the format produced by the export. */
+    private static class CsvSource implements RowSource {
+        private final CsvRecordReader records;
+        private String[] columns;
+
+        CsvSource(BufferedReader reader) {
+            this.records = new CsvRecordReader(reader);
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (columns == null) {
+                List<String> header = records.next();
+                if (header == null) {
+                    return null;
+                }
+                columns = new String[header.size()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = header.get(i).trim().toLowerCase(Locale.ROOT);
+                }
+            }
+            List<String> fields = records.next();
+            if (fields == null) {
+                return null;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < fields.size() && i < columns.length; i++) {
+                row.put(columns[i], fields.get(i));
+            }
+            return row;
+        }
+
+        @Override
+        public int line() {
+            return records.recordLine();
+        }
+    }
+
+    /** One JSON object per line. */
+    private static class NdjsonSource implements RowSource {
+        private final BufferedReader reader;
+        private final ObjectMapper mapper;
+        private int line;
+
+        NdjsonSource(BufferedReader reader, ObjectMapper mapper) {
+            this.reader = reader;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            JsonNode node;
+            try {
+                node = mapper.readTree(text);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("not a JSON object");
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("not a JSON object");
+            }
+            Map<String, String> row = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> f = fields.next();
+                row.put(f.getKey().toLowerCase(Locale.ROOT), f.getValue().isNull() ? null : f.getValue().asText());
+            }
+            return row;
+        }
+
+        @Override
+        public int line() {
+            return line;
+        }
+    }
+
+    public static class ImportReport {
+        private long imported;
+        private long failed;
+        private int batches;
+        private long elapsedMs;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void error(int line, String message) {
+            failed++;
+
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", line);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        public long getRowsRead() { return imported + failed; }
+        public long getImported() { return imported; }
+        public long getFailed() { return failed; }
+        public int getBatches() { return batches; }
+        public long getElapsedMs() { return elapsedMs; }
+        public long getRowsPerSecond() { return elapsedMs > 0 ? imported * 1000 / elapsedMs : imported; }
+        public List<Map<String, Object>> getErrors() { return errors; }
+    }
+}
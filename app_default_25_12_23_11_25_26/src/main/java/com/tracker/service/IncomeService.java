@@ -0,0 +1,64 @@
+package com.tracker.service;
+
+import com.tracker.event.IncomeChangedEvent;
+import com.tracker.event.Posting;
+import com.tracker.model.Income;
+import com.tracker.model.SyncEntry;
+import com.tracker.model.User;
+import com.tracker.repository.IncomeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Income writes. Each method updates the raw row and the derived rollups in one transaction,
+ * records the row in the {@link Journal} and the {@link SyncLog} and publishes an {@link IncomeChangedEvent}.
+ */
+@Service
+public class IncomeService {
+
+    @Autowired
+    private IncomeRepository incomeRepo;
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private SyncLog syncLog;
+
+    @Transactional
+    public Income add(User user, Income income) {
+        // Always a new row: an id in the request body must not overwrite an existing one.
+        income.setId(null);
+        income.setUser(user);
+        Income saved = incomeRepo.save(income);
+        rollups.addIncome(user.getId(), saved.getDate(), saved.getAmount());
+        journal.incomeSaved(saved);
+        syncLog.saved(user.getId(), SyncEntry.Kind.INCOME, saved.getId());
+        events.publishEvent(new IncomeChangedEvent(user.getId(), null, posting(saved)));
+        return saved;
+    }
+
+    @Transactional
+    public void delete(User user, Long id) {
+        Income income = incomeRepo.findById(id).orElseThrow();
+        if (income.getUser().getId().equals(user.getId())) {
+            incomeRepo.delete(income);
+            rollups.removeIncome(user.getId(), income.getDate(), income.getAmount());
+            journal.incomeDeleted(income);
+            syncLog.deleted(user.getId(), SyncEntry.Kind.INCOME, income.getId());
+            events.publishEvent(new IncomeChangedEvent(user.getId(), posting(income), null));
+        }
+    }
+
+    private static Posting posting(Income income) {
+        return new Posting(income.getDate(), null, income.getAmount());
+    }
+}
@@ -0,0 +1,325 @@
+package com.tracker.service;
+
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Durable storage for the in-memory database, enabled with {@code tracker.journal.enabled}
+ * (the {@code durable} profile). The write paths report each changed user, budget, expense
+ * and income row here. The rows a transaction changed are appended to a checksummed journal
+ * in {@code tracker.journal.dir} as one frame just before it commits, and the commit waits
+ * until that frame is forced to disk; frames of concurrent commits share one write and one
+ * fsync (see {@link JournalLog}). If the append fails, the transaction rolls back.
+ *
+ * <p>Once {@code tracker.journal.snapshot-after} of journal has built up, or when
+ * {@code tracker.journal.snapshot-interval} has passed with anything written, a compact
+ * {@link Snapshots snapshot} of the tables replaces the segments before it. On startup the
+ * tables are rebuilt from the latest snapshot and the journal written since
+ * ({@link JournalRestore}) before the application serves anything. Rollups are derived
+ * from the rows and are not journaled.
+ */
+@Component
+public class Journal implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final Path dir;
+    private final boolean fsync;
+    private final long snapshotAfter;
+    private final Duration snapshotInterval;
+    private final Timer commitTime;
+    private final Timer snapshotTime;
+    // Held for reading from a transaction's append until it completes, so a snapshot only
+    // starts a new segment once everything written to the old ones has committed.
+    private final ReentrantReadWriteLock rotation = new ReentrantReadWriteLock();
+    private ScheduledExecutorService snapshots;
+    private volatile JournalLog segments;
+    private long bytesBeforeSnapshot;
+    private long writtenAtSnapshot;
+    private long lastSnapshot;
+
+    public Journal(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                   @Value("${tracker.journal.enabled:false}") boolean enabled,
+                   @Value("${tracker.journal.dir:data/journal}") Path dir,
+                   @Value("${tracker.journal.fsync:true}") boolean fsync,
+                   @Value("${tracker.journal.snapshot-after:256MB}") DataSize snapshotAfter,
+                   @Value("${tracker.journal.snapshot-interval:1h}") Duration snapshotInterval,
+                   MeterRegistry registry) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        this.dir = dir;
+        this.fsync = fsync;
+        this.snapshotAfter = snapshotAfter.toBytes();
+        this.snapshotInterval = snapshotInterval;
+        this.commitTime = Timer.builder("journal.commit")
+                .description("Time a committing transaction waited for its journal frame to reach the disk")
+                .register(registry);
+        this.snapshotTime = Timer.builder("journal.snapshot")
+                .description("Time spent writing a snapshot")
+                .register(registry);
+        FunctionCounter.builder("journal.frames", this, j -> j.segments == null ? 0 : j.segments.frames())
+                .description("Transactions appended to the journal")
+                .register(registry);
+        FunctionCounter.builder("journal.syncs", this, j -> j.segments == null ? 0 : j.segments.syncs())
+                .description("Forces of the journal to disk, each covering one group of transactions")
+                .register(registry);
+    }
+
+    /** Restores the tables, then opens a new journal segment; runs before the web server starts. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            long started = System.nanoTime();
+            JournalRestore.Result restored = JournalRestore.restore(dir, dataSource);
+            if (restored.rows() > 0) {
+                log.info("Restored {} rows from {} ({} snapshot rows, {} journal records in {} bytes) in {} ms",
+                        restored.rows(), dir, restored.snapshotRows(), restored.tailRecords(), restored.tailBytes(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+            bytesBeforeSnapshot = restored.tailBytes();
+            lastSnapshot = System.nanoTime();
+            segments = new JournalLog(dir, restored.nextSegment(), fsync);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Could not restore from the journal in " + dir, e);
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshots.scheduleWithFixedDelay(this::snapshotIfDue, 10, 10, TimeUnit.SECONDS);
+    }
+
+    public void userSaved(User user) {
+        record(new JournalRecord.UserRow(user.getId(), user.getUsername(), user.getPassword()));
+    }
+
+    public void budgetSaved(Budget budget) {
+        record(new JournalRecord.BudgetRow(budget.getId(), budget.getUser().getId(), budget.getDailyLimit(),
+                budget.getMonthlyLimit(), budget.getPackedCategoryLimits()));
+    }
+
+    public void expenseSaved(Expense expense) {
+        expenseSaved(expense.getId(), expense.getUser().getId(), expense.getAmount(), expense.getCategory(),
+                expense.getDate(), expense.getDescription());
+    }
+
+    public void expenseSaved(long id, long userId, double amount, Category category, LocalDate date,
+                             String description) {
+        record(new JournalRecord.ExpenseRow(id, userId, amount, category, date, description));
+    }
+
+    public void expenseDeleted(Expense expense) {
+        record(new JournalRecord.ExpenseDeleted(expense.getId(), expense.getUser().getId()));
+    }
+
+    public void incomeSaved(Income income) {
+        incomeSaved(income.getId(), income.getUser().getId(), income.getAmount(), income.getDate(),
+                income.getDescription());
+    }
+
+    public void incomeSaved(long id, long userId, double amount, LocalDate date, String description) {
+        record(new JournalRecord.IncomeRow(id, userId, amount, date, description));
+    }
+
+    public void incomeDeleted(Income income) {
+        record(new JournalRecord.IncomeDeleted(income.getId(), income.getUser().getId()));
+    }
+
+    /**
+     * Writes a snapshot now and removes the journal segments and snapshots it replaces;
+     * returns the number of rows in it.
+     */
+    public synchronized long snapshot() {
+        if (segments == null) {
+            throw new IllegalStateException("The journal is not enabled");
+        }
+        long started = System.nanoTime();
+        long segment;
+        long written;
+        rotation.writeLock().lock();
+        try {
+            segment = segments.rotate().join();
+            written = segments.written();
+        } finally {
+            rotation.writeLock().unlock();
+        }
+        long rows;
+        try {
+            rows = Snapshots.write(dir, segment, dataSource);
+            for (long old : JournalLog.segments(dir)) {
+                if (old < segment) {
+                    Files.delete(JournalLog.file(dir, old));
+                }
+            }
+            for (long old : Snapshots.list(dir)) {
+                if (old < segment) {
+                    Files.delete(Snapshots.file(dir, old));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the tables for a snapshot", e);
+        }
+        bytesBeforeSnapshot = 0;
+        writtenAtSnapshot = written;
+        lastSnapshot = System.nanoTime();
+        long elapsed = System.nanoTime() - started;
+        snapshotTime.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Wrote a snapshot of {} rows to {} in {} ms", rows, Snapshots.file(dir, segment).getFileName(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return rows;
+    }
+
+    private synchronized void snapshotIfDue() {
+        long pending = bytesBeforeSnapshot + segments.written() - writtenAtSnapshot;
+        boolean due = pending >= snapshotAfter
+                || pending > 0 && System.nanoTime() - lastSnapshot >= snapshotInterval.toNanos();
+        if (!due) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            // The journal still holds everything; try again on the next check.
+            log.error("Snapshot failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+        if (segments != null) {
+            segments.close();
+        }
+    }
+
+    private void record(JournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rotation.readLock().lock();
+            try {
+                append(List.of(record));
+            } finally {
+                rotation.readLock().unlock();
+            }
+            return;
+        }
+        pending().records.add(record);
+    }
+
+    /** This transaction's records; looked up among its synchronizations, which a suspended outer one does not share. */
+    private Pending pending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Pending pending && pending.journal() == this) {
+                return pending;
+            }
+        }
+        Pending pending = new Pending();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void append(List<JournalRecord> records) {
+        JournalLog journal = segments;
+        if (journal == null) {
+            throw new IllegalStateException("The journal is not open yet");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * records.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (JournalRecord record : records) {
+                JournalRecord.write(out, record);
+            }
+            out.writeByte(JournalRecord.END);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long started = System.nanoTime();
+        try {
+            journal.append(bytes.toByteArray()).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        } finally {
+            commitTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** The records of one transaction, appended when it is about to commit. */
+    private class Pending implements TransactionSynchronization {
+        final List<JournalRecord> records = new ArrayList<>();
+        boolean locked;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Flush first, so a write the database rejects fails before it reaches the journal.
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(
+                    entityManagerFactory);
+            if (holder != null) {
+                holder.getEntityManager().flush();
+            }
+            rotation.readLock().lock();
+            locked = true;
+            append(records);
+        }
+
+        Journal journal() {
+            return Journal.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (locked) {
+                rotation.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.tracker.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * The append-only segment files of the {@link Journal}. A frame holds the records of one
+ * transaction: its payload length, a CRC32C of the payload, and the payload. Appends are
+ * group-committed: a single writer thread takes every frame queued since its last write,
+ * writes them with one channel write, forces the file once, and only then completes their
+ * futures. A failed write or force fails that group and every later append, since what
+ * reached the disk is no longer known.
+ *
+ * <p>Reading stops at the first frame that is cut short or fails its checksum, which is
+ * where a crash during a write leaves a segment; the frames before it are intact.
+ */
+final class JournalLog implements AutoCloseable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER = 8;
+    private static final int MAX_FRAME = 256 * 1024 * 1024;
+
+    private final Path dir;
+    private final boolean fsync;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private FileChannel channel;
+    private long segment;
+    private volatile IOException failure;
+    private boolean closed;
+
+    /** Starts a new, empty segment numbered {@code segment}; it must not exist yet. */
+    JournalLog(Path dir, long segment, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.fsync = fsync;
+        this.segment = segment;
+        this.channel = open(segment);
+        this.writer = new Thread(this::run, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Queues a frame with the encoded records of one transaction; completes once it is on disk. */
+    CompletableFuture<Void> append(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        Request request = new Request(Request.APPEND, frame);
+        submit(request);
+        return request.done.thenApply(segment -> null);
+    }
+
+    /**
+     * Closes the current segment after everything queued before this call and continues in
+     * the next one; completes with the number of the new segment.
+     */
+    CompletableFuture<Long> rotate() {
+        Request request = new Request(Request.ROTATE, null);
+        submit(request);
+        return request.done;
+    }
+
+    /** Bytes appended since this log was opened. */
+    long written() {
+        return written.get();
+    }
+
+    long frames() {
+        return frames.get();
+    }
+
+    long syncs() {
+        return syncs.get();
+    }
+
+    /** Writes what was appended before this call, then closes the segment; later appends fail. */
+    @Override
+    public void close() {
+        Request request = new Request(Request.CLOSE, null);
+        submit(request);
+        try {
+            request.done.join();
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Already failed; the segment keeps what was forced before the failure.
+        }
+    }
+
+    private synchronized void submit(Request request) {
+        if (closed) {
+            request.done.completeExceptionally(new IllegalStateException("Journal closed"));
+            return;
+        }
+        if (failure != null) {
+            request.done.completeExceptionally(new UncheckedIOException("Journal failed earlier", failure));
+            return;
+        }
+        closed = request.kind == Request.CLOSE;
+        queue.add(request);
+    }
+
+    private void run() {
+        List<Request> group = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+        while (true) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(group);
+            int from = 0;
+            for (int i = 0; i < group.size(); i++) {
+                Request request = group.get(i);
+                if (request.kind != Request.APPEND) {
+                    buffer = write(buffer, group.subList(from, i));
+                    from = i + 1;
+                    if (request.kind == Request.CLOSE) {
+                        closeNow(request);
+                        return;
+                    }
+                    rotateNow(request);
+                }
+            }
+            buffer = write(buffer, group.subList(from, group.size()));
+            group.clear();
+        }
+    }
+
+    /** Writes and forces the frames of {@code appends} as one group, then completes them. */
+    private ByteBuffer write(ByteBuffer buffer, List<Request> appends) {
+        if (appends.isEmpty()) {
+            return buffer;
+        }
+        if (failure != null) {
+            fail(appends, failure);
+            return buffer;
+        }
+        int bytes = 0;
+        for (Request request : appends) {
+            bytes += request.frame.remaining();
+        }
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+        }
+        buffer.clear();
+        for (Request request : appends) {
+            buffer.put(request.frame);
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+                syncs.incrementAndGet();
+            }
+        } catch (IOException e) {
+            failure = e;
+            fail(appends, e);
+            return buffer;
+        }
+        written.addAndGet(bytes);
+        frames.addAndGet(appends.size());
+        for (Request request : appends) {
+            request.done.complete(segment);
+        }
+        return buffer;
+    }
+
+    private void rotateNow(Request request) {
+        if (failure != null) {
+            request.done.completeExceptionally(new UncheckedIOException("Journal failed earlier", failure));
+            return;
+        }
+        try {
+            channel.force(true);
+            channel.close();
+            channel = open(segment + 1);
+            segment++;
+            request.done.complete(segment);
+        } catch (IOException e) {
+            failure = e;
+            request.done.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    private void closeNow(Request request) {
+        try {
+            channel.close();
+            request.done.complete(segment);
+        } catch (IOException e) {
+            request.done.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    private static void fail(List<Request> appends, IOException e) {
+        for (Request request : appends) {
+            request.done.completeExceptionally(new UncheckedIOException("Journal write failed", e));
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        FileChannel opened = FileChannel.open(file(dir, number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        // Make the new file's directory entry durable before anything relies on it.
+        forceDirectory(dir);
+        return opened;
+    }
+
+    static Path file(Path dir, long segment) {
+        return dir.resolve(String.format("%s%010d%s", PREFIX, segment, SUFFIX));
+    }
+
+    /** Numbers of the segments in {@code dir}, in order. */
+    static List<Long> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Passes every record of the segment's intact frames to {@code records}, and returns the
+     * number of bytes they span; anything after them is a torn write and is ignored.
+     */
+    static long read(Path file, Consumer<JournalRecord> records) throws IOException {
+        long valid = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1024 * 1024))) {
+            CRC32C crc = new CRC32C();
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_FRAME) {
+                        return valid;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return valid;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+                DataInputStream frame = new DataInputStream(new ByteArrayInputStream(payload));
+                JournalRecord record;
+                while ((record = JournalRecord.read(frame)) != null) {
+                    records.accept(record);
+                }
+                valid += HEADER + payload.length;
+            }
+        }
+    }
+
+    static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    private static final class Request {
+        static final int APPEND = 0;
+        static final int ROTATE = 1;
+        static final int CLOSE = 2;
+
+        final int kind;
+        final ByteBuffer frame;
+        /** Completes with the segment the request ended in. */
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        Request(int kind, ByteBuffer frame) {
+            this.kind = kind;
+            this.frame = frame;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * One row change in the {@link Journal}: the whole new state of a user, budget, expense or
+ * income row, or the deletion of an expense or income. Applying a record twice leaves the
+ * same row as applying it once, so a restore may replay records a snapshot already holds.
+ * The same encoding is used for the rows of a snapshot: a tag byte, then the fields with
+ * ids, dates and string lengths as variable-length integers.
+ */
+sealed interface JournalRecord {
+
+    long id();
+
+    long userId();
+
+    record UserRow(long id, String username, String password) implements JournalRecord {
+        @Override
+        public long userId() {
+            return id;
+        }
+    }
+
+    record BudgetRow(long id, long userId, Double dailyLimit, Double monthlyLimit, String categoryLimits)
+            implements JournalRecord {
+    }
+
+    record ExpenseRow(long id, long userId, double amount, Category category, LocalDate date, String description)
+            implements JournalRecord {
+    }
+
+    record ExpenseDeleted(long id, long userId) implements JournalRecord {
+    }
+
+    record IncomeRow(long id, long userId, double amount, LocalDate date, String description)
+            implements JournalRecord {
+    }
+
+    record IncomeDeleted(long id, long userId) implements JournalRecord {
+    }
+
+    /** Tag byte that ends a sequence of records. */
+    int END = 0;
+
+    Category[] CATEGORIES = Category.values();
+
+    static void write(DataOutput out, JournalRecord record) throws IOException {
+        if (record instanceof UserRow r) {
+            out.writeByte(1);
+            writeLong(out, r.id());
+            writeString(out, r.username());
+            writeString(out, r.password());
+        } else if (record instanceof BudgetRow r) {
+            out.writeByte(2);
+            writeLong(out, r.id());
+            writeLong(out, r.userId());
+            writeDouble(out, r.dailyLimit());
+            writeDouble(out, r.monthlyLimit());
+            writeString(out, r.categoryLimits());
+        } else if (record instanceof ExpenseRow r) {
+            out.writeByte(3);
+            writeLong(out, r.id());
+            writeLong(out, r.userId());
+            out.writeDouble(r.amount());
+            out.writeByte(r.category().ordinal());
+            writeLong(out, zigZag(r.date().toEpochDay()));
+            writeString(out, r.description());
+        } else if (record instanceof ExpenseDeleted r) {
+            out.writeByte(4);
+            writeLong(out, r.id());
+            writeLong(out, r.userId());
+        } else if (record instanceof IncomeRow r) {
+            out.writeByte(5);
+            writeLong(out, r.id());
+            writeLong(out, r.userId());
+            out.writeDouble(r.amount());
+            writeLong(out, zigZag(r.date().toEpochDay()));
+            writeString(out, r.description());
+        } else if (record instanceof IncomeDeleted r) {
+            out.writeByte(6);
+            writeLong(out, r.id());
+            writeLong(out, r.userId());
+        }
+    }
+
+    /** The next record, or null at an {@link #END} tag. */
+    static JournalRecord read(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        return switch (tag) {
+            case END -> null;
+            case 1 -> new UserRow(readLong(in), readString(in), readString(in));
+            case 2 -> new BudgetRow(readLong(in), readLong(in), readDouble(in), readDouble(in), readString(in));
+            case 3 -> new ExpenseRow(readLong(in), readLong(in), in.readDouble(), CATEGORIES[in.readUnsignedByte()],
+                    LocalDate.ofEpochDay(unZigZag(readLong(in))), readString(in));
+            case 4 -> new ExpenseDeleted(readLong(in), readLong(in));
+            case 5 -> new IncomeRow(readLong(in), readLong(in), in.readDouble(),
+                    LocalDate.ofEpochDay(unZigZag(readLong(in))), readString(in));
+            case 6 -> new IncomeDeleted(readLong(in), readLong(in));
+            default -> throw new IOException("Unknown journal record tag " + tag);
+        };
+    }
+
+    private static void writeLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** UTF-8 bytes after their length plus one; a length of 0 is null. */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        long length = readLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[Math.toIntExact(length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDouble(DataOutput out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
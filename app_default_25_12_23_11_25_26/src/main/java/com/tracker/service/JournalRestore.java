@@ -0,0 +1,358 @@
+package com.tracker.service;
+
+import com.tracker.service.JournalRecord.BudgetRow;
+import com.tracker.service.JournalRecord.ExpenseDeleted;
+import com.tracker.service.JournalRecord.ExpenseRow;
+import com.tracker.service.JournalRecord.IncomeDeleted;
+import com.tracker.service.JournalRecord.IncomeRow;
+import com.tracker.service.JournalRecord.UserRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loads the journaled tables into an empty database at startup: the latest snapshot, with
+ * the records of the journal segments from its own onwards applied on the way. The journal
+ * tail is read into memory first, keyed by row, keeping each row's last record. The
+ * snapshot's expenses and incomes then stream through one user at a time: a row with a
+ * later record is replaced or dropped, and the user's rows that only the tail has are
+ * added before moving on. The rollups of each user are summed from the rows as they are
+ * inserted, so none has to be recomputed afterwards. Sequences and identity columns are
+ * moved past the restored ids at the end.
+ */
+final class JournalRestore {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_USER = "insert into users (id, username, password) values (?, ?, ?)";
+    private static final String INSERT_BUDGET = "insert into budget (id, user_id, daily_limit, monthly_limit, "
+            + "category_limits) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_EXPENSE =
+            "insert into expense (id, amount, category, date, description, user_id) values (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_INCOME =
+            "insert into income (id, amount, date, description, user_id) values (?, ?, ?, ?, ?)";
+
+    /** What was restored, and the number of the first segment to write next. */
+    record Result(long nextSegment, long snapshotRows, long tailRecords, long tailBytes, long rows) {
+    }
+
+    private final Connection connection;
+    private final Tail tail = new Tail();
+    private final Map<String, Batch> batches = new HashMap<>();
+    private final RollupService.GroupTotals groups = new RollupService.GroupTotals();
+    private long rows;
+
+    private JournalRestore(Connection connection) {
+        this.connection = connection;
+    }
+
+    static Result restore(Path dir, DataSource dataSource) throws IOException, SQLException {
+        List<Long> snapshots = Snapshots.list(dir);
+        List<Long> segments = JournalLog.segments(dir);
+        long from = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        long next = Math.max(from, segments.isEmpty() ? 0 : segments.get(segments.size() - 1)) + 1;
+        if (snapshots.isEmpty() && segments.isEmpty()) {
+            return new Result(next, 0, 0, 0, 0);
+        }
+        // Each batch commits on its own: one transaction for everything would keep an undo log
+        // entry per row, and a failed restore stops the application anyway.
+        try (Connection connection = dataSource.getConnection()) {
+            JournalRestore restore = new JournalRestore(connection);
+            restore.checkEmpty();
+            long tailBytes = 0;
+            for (long segment : segments) {
+                if (segment >= from) {
+                    tailBytes += restore.readSegment(JournalLog.file(dir, segment));
+                }
+            }
+            long snapshotRows = 0;
+            if (!snapshots.isEmpty()) {
+                try (Snapshots.Reader reader = new Snapshots.Reader(Snapshots.file(dir, from))) {
+                    snapshotRows = restore.load(reader);
+                }
+            } else {
+                restore.load(null);
+            }
+            restore.resetIds();
+            return new Result(next, snapshotRows, restore.tail.records, tailBytes, restore.rows);
+        }
+    }
+
+    private void checkEmpty() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select exists (select 1 from users)")) {
+            rs.next();
+            if (rs.getBoolean(1)) {
+                throw new IllegalStateException("The journal can only be restored into an empty database");
+            }
+        }
+    }
+
+    private long readSegment(Path file) throws IOException {
+        long size = Files.size(file);
+        long valid = JournalLog.read(file, tail::add);
+        if (valid < size) {
+            log.warn("Ignoring {} bytes of a torn write at the end of {}", size - valid, file.getFileName());
+        }
+        return size;
+    }
+
+    /** Inserts the snapshot's rows merged with the tail; {@code reader} may be null for the tail alone. */
+    private long load(Snapshots.Reader reader) throws IOException, SQLException {
+        JournalRecord row = next(reader);
+        long snapshotRows = 0;
+        for (; row instanceof UserRow user; row = next(reader), snapshotRows++) {
+            if (!tail.users.containsKey(user.id())) {
+                insert(user);
+            }
+        }
+        for (UserRow user : tail.users.values()) {
+            insert(user);
+        }
+        flush(INSERT_USER);
+        for (; row instanceof BudgetRow budget; row = next(reader), snapshotRows++) {
+            if (!tail.budgets.containsKey(budget.id())) {
+                insert(budget);
+            }
+        }
+        for (BudgetRow budget : tail.budgets.values()) {
+            insert(budget);
+        }
+        flush(INSERT_BUDGET);
+
+        Long user = null;
+        for (; row instanceof ExpenseRow expense; row = next(reader), snapshotRows++) {
+            user = nextUser(user, expense.userId(), tail.expenses);
+            JournalRecord change = changeOf(tail.expenses, expense);
+            if (change == null) {
+                insert(expense);
+            } else if (change instanceof ExpenseRow changed) {
+                insert(changed);
+            }
+        }
+        nextUser(user, Long.MAX_VALUE, tail.expenses);
+        flush(INSERT_EXPENSE);
+
+        user = null;
+        for (; row instanceof IncomeRow income; row = next(reader), snapshotRows++) {
+            user = nextUser(user, income.userId(), tail.incomes);
+            JournalRecord change = changeOf(tail.incomes, income);
+            if (change == null) {
+                insert(income);
+            } else if (change instanceof IncomeRow changed) {
+                insert(changed);
+            }
+        }
+        nextUser(user, Long.MAX_VALUE, tail.incomes);
+        flush(INSERT_INCOME);
+        flush(RollupService.INSERT_GROUP);
+        if (row != null) {
+            throw new IOException("Snapshot rows are out of order at " + row);
+        }
+        return snapshotRows;
+    }
+
+    private static JournalRecord next(Snapshots.Reader reader) throws IOException {
+        return reader == null ? null : reader.next();
+    }
+
+    /** The tail's last record for the row, taken out of the tail, or null if it has none. */
+    private static JournalRecord changeOf(TreeMap<Long, Map<Long, JournalRecord>> changes, JournalRecord row) {
+        Map<Long, JournalRecord> ofUser = changes.get(row.userId());
+        return ofUser == null ? null : ofUser.remove(row.id());
+    }
+
+    /**
+     * Finishes {@code current} and every user before {@code next} that only the tail has rows
+     * for: inserts their remaining tail rows and their rollups. Returns {@code next}.
+     */
+    private Long nextUser(Long current, long next, TreeMap<Long, Map<Long, JournalRecord>> changes)
+            throws SQLException {
+        if (current != null && current == next) {
+            return current;
+        }
+        if (current != null) {
+            finishUser(current, changes.remove(current));
+        }
+        while (!changes.isEmpty() && changes.firstKey() < next) {
+            Map.Entry<Long, Map<Long, JournalRecord>> first = changes.pollFirstEntry();
+            finishUser(first.getKey(), first.getValue());
+        }
+        return next;
+    }
+
+    private void finishUser(long userId, Map<Long, JournalRecord> added) throws SQLException {
+        if (added != null) {
+            for (JournalRecord record : added.values()) {
+                if (record instanceof ExpenseRow expense) {
+                    insert(expense);
+                } else if (record instanceof IncomeRow income) {
+                    insert(income);
+                }
+            }
+        }
+        Batch rollups = batch(RollupService.INSERT_GROUP);
+        for (int slot : groups.slots()) {
+            Object[] values = groups.insertRow(userId, slot);
+            for (int i = 0; i < values.length; i++) {
+                rollups.statement.setObject(i + 1, values[i]);
+            }
+            rollups.add();
+        }
+        groups.clear();
+    }
+
+    private void insert(UserRow user) throws SQLException {
+        rows++;
+        Batch batch = batch(INSERT_USER);
+        batch.statement.setLong(1, user.id());
+        batch.statement.setString(2, user.username());
+        batch.statement.setString(3, user.password());
+        batch.add();
+    }
+
+    private void insert(BudgetRow budget) throws SQLException {
+        rows++;
+        Batch batch = batch(INSERT_BUDGET);
+        batch.statement.setLong(1, budget.id());
+        batch.statement.setLong(2, budget.userId());
+        batch.statement.setObject(3, budget.dailyLimit(), Types.DOUBLE);
+        batch.statement.setObject(4, budget.monthlyLimit(), Types.DOUBLE);
+        batch.statement.setString(5, budget.categoryLimits());
+        batch.add();
+    }
+
+    private void insert(ExpenseRow expense) throws SQLException {
+        rows++;
+        Batch batch = batch(INSERT_EXPENSE);
+        batch.statement.setLong(1, expense.id());
+        batch.statement.setDouble(2, expense.amount());
+        batch.statement.setString(3, expense.category().name());
+        batch.statement.setDate(4, Date.valueOf(expense.date()));
+        batch.statement.setString(5, expense.description());
+        batch.statement.setLong(6, expense.userId());
+        batch.add();
+        groups.addExpense(expense.date(), expense.category(), expense.amount());
+    }
+
+    private void insert(IncomeRow income) throws SQLException {
+        rows++;
+        Batch batch = batch(INSERT_INCOME);
+        batch.statement.setLong(1, income.id());
+        batch.statement.setDouble(2, income.amount());
+        batch.statement.setDate(3, Date.valueOf(income.date()));
+        batch.statement.setString(4, income.description());
+        batch.statement.setLong(5, income.userId());
+        batch.add();
+        groups.addIncome(income.date(), income.amount());
+    }
+
+    private Batch batch(String sql) throws SQLException {
+        Batch batch = batches.get(sql);
+        if (batch == null) {
+            batch = new Batch(connection.prepareStatement(sql));
+            batches.put(sql, batch);
+        }
+        return batch;
+    }
+
+    private void flush(String sql) throws SQLException {
+        Batch batch = batches.get(sql);
+        if (batch != null) {
+            batch.execute();
+        }
+    }
+
+    /** Moves the id generators past the restored rows; see {@link PooledIds} for the sequences. */
+    private void resetIds() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"expense", "income"}) {
+                long max = max(statement, table);
+                if (max > 0) {
+                    statement.execute("alter sequence " + table + "_seq restart with "
+                            + (max + PooledIds.ALLOCATION_SIZE + 1));
+                }
+            }
+            for (String table : new String[]{"users", "budget"}) {
+                long max = max(statement, table);
+                if (max > 0) {
+                    statement.execute("alter table " + table + " alter column id restart with " + (max + 1));
+                }
+            }
+        }
+        for (Batch batch : batches.values()) {
+            batch.statement.close();
+        }
+    }
+
+    private static long max(Statement statement, String table) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /** The tail's last record per row; expenses and incomes by user, then id. */
+    private static final class Tail {
+        final Map<Long, UserRow> users = new LinkedHashMap<>();
+        final Map<Long, BudgetRow> budgets = new LinkedHashMap<>();
+        final TreeMap<Long, Map<Long, JournalRecord>> expenses = new TreeMap<>();
+        final TreeMap<Long, Map<Long, JournalRecord>> incomes = new TreeMap<>();
+        long records;
+
+        void add(JournalRecord record) {
+            records++;
+            if (record instanceof UserRow user) {
+                users.put(user.id(), user);
+            } else if (record instanceof BudgetRow budget) {
+                budgets.put(budget.id(), budget);
+            } else if (record instanceof ExpenseRow || record instanceof ExpenseDeleted) {
+                expenses.computeIfAbsent(record.userId(), u -> new LinkedHashMap<>()).put(record.id(), record);
+            } else if (record instanceof IncomeRow || record instanceof IncomeDeleted) {
+                incomes.computeIfAbsent(record.userId(), u -> new LinkedHashMap<>()).put(record.id(), record);
+            }
+        }
+    }
+
+    private final class Batch {
+        final PreparedStatement statement;
+        int pending;
+
+        Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void add() throws SQLException {
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                execute();
+            }
+        }
+
+        void execute() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            statement.executeBatch();
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.tracker.service;
+
+import java.util.List;
+
+/** One page of a listing plus the cursor for the next one (null on the last page). */
+public class KeysetPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,308 @@
+package com.tracker.service;
+
+import com.tracker.event.Posting;
+import com.tracker.model.Category;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * One user's expenses and incomes as sorted primitive columns, for range sums without a
+ * database round trip. Each category's expenses, and the incomes, form a {@link Series}
+ * of days in ascending epoch-day order with the number of entries on that day and a
+ * running total in cents, so the sum over any date range is two binary searches and a
+ * subtraction. Amounts are kept to the cent. A Ledger is immutable: changes return a new
+ * one, so readers never see a half-applied write.
+ */
+public final class Ledger {
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final Series[] expenses;
+    private final Series incomes;
+
+    private Ledger(Series[] expenses, Series incomes) {
+        this.expenses = expenses;
+        this.incomes = incomes;
+    }
+
+    /** Expense totals by category name over the whole history, for the categories that have any. */
+    public Map<String, Double> categoryTotals() {
+        return categoryTotals(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** Expense totals by category name between the two dates inclusive, for the categories that have any. */
+    public Map<String, Double> categoryTotals(LocalDate start, LocalDate end) {
+        return categoryTotals(dayOf(start), dayOf(end) + 1);
+    }
+
+    public double expenseTotal(LocalDate start, LocalDate end) {
+        long cents = 0;
+        for (Series s : expenses) {
+            cents += s.sum(dayOf(start), dayOf(end) + 1);
+        }
+        return cents / 100.0;
+    }
+
+    public double incomeTotal(LocalDate start, LocalDate end) {
+        return incomes.sum(dayOf(start), dayOf(end) + 1) / 100.0;
+    }
+
+    /**
+     * The ledger with an expense added ({@code entries} 1) or removed (-1), or null if a
+     * removal does not match what the ledger holds and it should be reloaded instead.
+     */
+    public Ledger withExpense(LocalDate date, Category category, double amount, int entries) {
+        Series changed = expenses[category.ordinal()].plus(dayOf(date), centsOf(amount) * entries, entries);
+        if (changed == null) {
+            return null;
+        }
+        Series[] series = expenses.clone();
+        series[category.ordinal()] = changed;
+        return new Ledger(series, incomes);
+    }
+
+    /** Same as {@link #withExpense} for an income. */
+    public Ledger withIncome(LocalDate date, double amount, int entries) {
+        Series changed = incomes.plus(dayOf(date), centsOf(amount) * entries, entries);
+        return changed != null ? new Ledger(expenses, changed) : null;
+    }
+
+    /** The ledger with a batch of new expenses and incomes (postings without a category) merged in. */
+    public Ledger withAdded(List<Posting> postings) {
+        List<TreeMap<Integer, long[]>> byDay = new ArrayList<>(CATEGORIES.length + 1);
+        for (int i = 0; i <= CATEGORIES.length; i++) {
+            byDay.add(new TreeMap<>());
+        }
+        for (Posting p : postings) {
+            int series = p.getCategory() != null ? p.getCategory().ordinal() : CATEGORIES.length;
+            long[] day = byDay.get(series).computeIfAbsent(dayOf(p.getDate()), d -> new long[2]);
+            day[0]++;
+            day[1] += centsOf(p.getAmount());
+        }
+        Series[] series = expenses.clone();
+        for (int i = 0; i < series.length; i++) {
+            series[i] = series[i].merge(byDay.get(i));
+        }
+        return new Ledger(series, incomes.merge(byDay.get(CATEGORIES.length)));
+    }
+
+    /** Approximate heap footprint, used to weigh ledgers against the cache's memory budget. */
+    public long bytes() {
+        long bytes = 64 + incomes.bytes();
+        for (Series s : expenses) {
+            bytes += s.bytes();
+        }
+        return bytes;
+    }
+
+    private Map<String, Double> categoryTotals(int fromDay, int toDay) {
+        Map<String, Double> totals = new HashMap<>();
+        for (Category c : CATEGORIES) {
+            Series s = expenses[c.ordinal()];
+            if (s.any(fromDay, toDay)) {
+                totals.put(c.name(), s.sum(fromDay, toDay) / 100.0);
+            }
+        }
+        return totals;
+    }
+
+    private static int dayOf(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    static long centsOf(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /** Builds a ledger from rows arriving newest first, as read through the (user, date desc) indexes. */
+    public static class Builder {
+        private final SeriesBuilder[] expenses = new SeriesBuilder[CATEGORIES.length];
+        private final SeriesBuilder incomes = new SeriesBuilder();
+
+        public Builder() {
+            for (int i = 0; i < expenses.length; i++) {
+                expenses[i] = new SeriesBuilder();
+            }
+        }
+
+        public void expense(Category category, LocalDate date, double amount) {
+            expenses[category.ordinal()].add(dayOf(date), centsOf(amount));
+        }
+
+        public void income(LocalDate date, double amount) {
+            incomes.add(dayOf(date), centsOf(amount));
+        }
+
+        public Ledger build() {
+            Series[] series = new Series[expenses.length];
+            for (int i = 0; i < series.length; i++) {
+                series[i] = expenses[i].build();
+            }
+            return new Ledger(series, incomes.build());
+        }
+    }
+
+    /**
+     * Days with at least one entry, ascending. {@code prefix[i]} is the total in cents of
+     * the days before index i, so it has one element more than {@code days}.
+     */
+    static final class Series {
+        private final int[] days;
+        private final int[] entries;
+        private final long[] prefix;
+
+        Series(int[] days, int[] entries, long[] prefix) {
+            this.days = days;
+            this.entries = entries;
+            this.prefix = prefix;
+        }
+
+        /** Total in cents of the days in [fromDay, toDay). */
+        long sum(int fromDay, int toDay) {
+            return prefix[lowerBound(toDay)] - prefix[lowerBound(fromDay)];
+        }
+
+        boolean any(int fromDay, int toDay) {
+            return lowerBound(toDay) > lowerBound(fromDay);
+        }
+
+        /** The series with {@code cents} and {@code entries} added to {@code day}; null if that would leave a negative count. */
+        Series plus(int day, long cents, int entries) {
+            int n = days.length;
+            int i = lowerBound(day);
+            boolean present = i < n && days[i] == day;
+            int count = (present ? this.entries[i] : 0) + entries;
+            if (count < 0) {
+                return null;
+            }
+            if (count == 0) {
+                if (!present) {
+                    return this;
+                }
+                // Last entry of the day removed: drop the day.
+                int[] d = new int[n - 1];
+                int[] e = new int[n - 1];
+                long[] p = new long[n];
+                System.arraycopy(days, 0, d, 0, i);
+                System.arraycopy(days, i + 1, d, i, n - i - 1);
+                System.arraycopy(this.entries, 0, e, 0, i);
+                System.arraycopy(this.entries, i + 1, e, i, n - i - 1);
+                System.arraycopy(prefix, 0, p, 0, i + 1);
+                long dayCents = prefix[i + 1] - prefix[i];
+                for (int j = i + 1; j < n; j++) {
+                    p[j] = prefix[j + 1] - dayCents;
+                }
+                return new Series(d, e, p);
+            }
+            if (present) {
+                int[] e = this.entries.clone();
+                e[i] = count;
+                long[] p = prefix.clone();
+                for (int j = i + 1; j <= n; j++) {
+                    p[j] += cents;
+                }
+                return new Series(days, e, p);
+            }
+            int[] d = new int[n + 1];
+            int[] e = new int[n + 1];
+            long[] p = new long[n + 2];
+            System.arraycopy(days, 0, d, 0, i);
+            System.arraycopy(days, i, d, i + 1, n - i);
+            d[i] = day;
+            System.arraycopy(this.entries, 0, e, 0, i);
+            System.arraycopy(this.entries, i, e, i + 1, n - i);
+            e[i] = count;
+            System.arraycopy(prefix, 0, p, 0, i + 1);
+            for (int j = i + 1; j <= n + 1; j++) {
+                p[j] = prefix[j - 1] + cents;
+            }
+            return new Series(d, e, p);
+        }
+
+        /** The series with new entries merged in, given as day to {entries, cents}. */
+        Series merge(TreeMap<Integer, long[]> added) {
+            if (added.isEmpty()) {
+                return this;
+            }
+            int n = days.length;
+            int[] d = new int[n + added.size()];
+            int[] e = new int[d.length];
+            long[] p = new long[d.length + 1];
+            int i = 0;
+            int k = 0;
+            Iterator<Map.Entry<Integer, long[]>> it = added.entrySet().iterator();
+            Map.Entry<Integer, long[]> next = it.next();
+            while (i < n || next != null) {
+                if (next == null || (i < n && days[i] < next.getKey())) {
+                    d[k] = days[i];
+                    e[k] = entries[i];
+                    p[k + 1] = p[k] + prefix[i + 1] - prefix[i];
+                    i++;
+                } else {
+                    boolean same = i < n && days[i] == next.getKey();
+                    d[k] = next.getKey();
+                    e[k] = (same ? entries[i] : 0) + (int) next.getValue()[0];
+                    p[k + 1] = p[k] + (same ? prefix[i + 1] - prefix[i] : 0) + next.getValue()[1];
+                    if (same) {
+                        i++;
+                    }
+                    next = it.hasNext() ? it.next() : null;
+                }
+                k++;
+            }
+            return k == d.length ? new Series(d, e, p)
+                    : new Series(Arrays.copyOf(d, k), Arrays.copyOf(e, k), Arrays.copyOf(p, k + 1));
+        }
+
+        long bytes() {
+            return 48 + 4L * days.length + 4L * entries.length + 8L * prefix.length;
+        }
+
+        /** Index of the first day not before {@code day}. */
+        private int lowerBound(int day) {
+            int i = Arrays.binarySearch(days, day);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    private static class SeriesBuilder {
+        private int[] days = new int[16];
+        private int[] entries = new int[16];
+        private long[] cents = new long[16];
+        private int size;
+
+        void add(int day, long amount) {
+            if (size > 0 && days[size - 1] == day) {
+                entries[size - 1]++;
+                cents[size - 1] += amount;
+                return;
+            }
+            if (size > 0 && days[size - 1] < day) {
+                throw new IllegalStateException("rows must arrive newest first");
+            }
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+                cents = Arrays.copyOf(cents, size * 2);
+            }
+            days[size] = day;
+            entries[size] = 1;
+            cents[size] = amount;
+            size++;
+        }
+
+        /** Reverses the newest-first days into ascending order while summing the prefix. */
+        Series build() {
+            int[] d = new int[size];
+            int[] e = new int[size];
+            long[] prefix = new long[size + 1];
+            for (int i = 0; i < size; i++) {
+                int from = size - 1 - i;
+                d[i] = days[from];
+                e[i] = entries[from];
+                prefix[i + 1] = prefix[i] + cents[from];
+            }
+            return new Series(d, e, prefix);
+        }
+    }
+}
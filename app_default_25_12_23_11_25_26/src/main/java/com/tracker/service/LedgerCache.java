@@ -0,0 +1,203 @@
+package com.tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tracker.event.DataImportedEvent;
+import com.tracker.event.ExpenseChangedEvent;
+import com.tracker.event.IncomeChangedEvent;
+import com.tracker.event.Posting;
+import com.tracker.event.UserDataChangedEvent;
+import com.tracker.model.Category;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process {@link Ledger} per active user, loaded on first use and bounded by
+ * {@code tracker.ledger.max-size} in total, with cold users evicted first. Committed
+ * expense and income writes, including each bulk import batch, are applied to a cached
+ * ledger as they happen, so it is only read from the database once.
+ *
+ * <p>A ledger read from the database is only kept if no write for that user was in
+ * flight from the start of the load to its installation. Otherwise the load could have
+ * seen a commit whose change is applied again afterwards. Writes are counted when they
+ * publish their event, still inside their transaction, and again when it completes. A
+ * user's counts are dropped once none of their writes or loads is in progress, so they
+ * take no space for users who are not being written to.
+ * Returns null while disabled or while a write is in flight; callers then query the
+ * database directly.
+ */
+@Component
+public class LedgerCache {
+
+    // Newest first, the order of the (user_id, date desc, id desc) indexes, so the database does not sort.
+    private static final String EXPENSES = "select category, date, amount from expense where user_id = ? "
+            + "order by date desc, id desc";
+    private static final String INCOMES = "select date, amount from income where user_id = ? "
+            + "order by date desc, id desc";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Cache<Long, Ledger> cache;
+    private final ConcurrentHashMap<Long, Writes> writes = new ConcurrentHashMap<>();
+
+    public LedgerCache(JdbcTemplate jdbcTemplate,
+                       @Value("${tracker.ledger.enabled:true}") boolean enabled,
+                       @Value("${tracker.ledger.max-size:64MB}") DataSize maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long userId, Ledger ledger) -> (int) Math.min(Integer.MAX_VALUE, ledger.bytes()))
+                .build();
+    }
+
+    public Ledger get(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        Ledger cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long[] started = {-1};
+        writes.compute(userId, (id, w) -> {
+            w = w != null ? w : new Writes();
+            if (w.inFlight == 0) {
+                w.loads++;
+                started[0] = w.started;
+            }
+            return w;
+        });
+        if (started[0] < 0) {
+            return null;
+        }
+        Ledger loaded;
+        try {
+            loaded = load(userId);
+        } catch (RuntimeException e) {
+            loadDone(userId, started[0]);
+            throw e;
+        }
+        cache.asMap().compute(userId, (id, current) -> {
+            boolean unchanged = loadDone(userId, started[0]);
+            return current != null ? current : unchanged ? loaded : null;
+        });
+        return loaded;
+    }
+
+    // Synchronous, so it runs inside the writing transaction before it commits.
+    @EventListener
+    public void onWriteStarted(UserDataChangedEvent event) {
+        if (tracked(event)) {
+            writes.compute(event.getUserId(), (id, w) -> {
+                w = w != null ? w : new Writes();
+                w.started++;
+                w.inFlight++;
+                return w.idle() ? null : w;
+            });
+        }
+    }
+
+    // First, so the other listeners of the commit (tips, ETag versions, live updates) read the new ledger.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWriteCommitted(UserDataChangedEvent event) {
+        if (!tracked(event)) {
+            return;
+        }
+        cache.asMap().compute(event.getUserId(), (id, ledger) -> {
+            writeDone(id);
+            return ledger == null ? null : apply(ledger, event);
+        });
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onWriteRolledBack(UserDataChangedEvent event) {
+        if (tracked(event)) {
+            writeDone(event.getUserId());
+        }
+    }
+
+    /** Users with a write or load in progress, whose counts are kept. */
+    int tracking() {
+        return writes.size();
+    }
+
+    private void writeDone(Long userId) {
+        // Also counted if it comes first, as both listeners run at publication without a transaction.
+        writes.compute(userId, (id, w) -> {
+            w = w != null ? w : new Writes();
+            w.inFlight--;
+            return w.idle() ? null : w;
+        });
+    }
+
+    /** Ends a load that began after {@code started} writes; true if none has started since. */
+    private boolean loadDone(Long userId, long started) {
+        boolean[] unchanged = {false};
+        writes.computeIfPresent(userId, (id, w) -> {
+            unchanged[0] = w.started == started;
+            w.loads--;
+            return w.idle() ? null : w;
+        });
+        return unchanged[0];
+    }
+
+    private static boolean tracked(UserDataChangedEvent event) {
+        return event instanceof ExpenseChangedEvent || event instanceof IncomeChangedEvent
+                || event instanceof DataImportedEvent;
+    }
+
+    /** The ledger after the event, or null to drop it. */
+    private static Ledger apply(Ledger ledger, UserDataChangedEvent event) {
+        if (event instanceof ExpenseChangedEvent e) {
+            ledger = e.getRemoved() == null ? ledger : withExpense(ledger, e.getRemoved(), -1);
+            return e.getAdded() == null || ledger == null ? ledger : withExpense(ledger, e.getAdded(), 1);
+        }
+        if (event instanceof IncomeChangedEvent i) {
+            ledger = i.getRemoved() == null ? ledger : ledger.withIncome(i.getRemoved().getDate(), i.getRemoved().getAmount(), -1);
+            return i.getAdded() == null || ledger == null ? ledger
+                    : ledger.withIncome(i.getAdded().getDate(), i.getAdded().getAmount(), 1);
+        }
+        return ledger.withAdded(((DataImportedEvent) event).getAdded());
+    }
+
+    private static Ledger withExpense(Ledger ledger, Posting p, int entries) {
+        return ledger.withExpense(p.getDate(), p.getCategory(), p.getAmount(), entries);
+    }
+
+    private Ledger load(Long userId) {
+        Ledger.Builder builder = new Ledger.Builder();
+        jdbcTemplate.query(EXPENSES, rs -> {
+            builder.expense(Category.valueOf(rs.getString(1)), rs.getDate(2).toLocalDate(), rs.getDouble(3));
+        }, userId);
+        jdbcTemplate.query(INCOMES, rs -> {
+            builder.income(rs.getDate(1).toLocalDate(), rs.getDouble(2));
+        }, userId);
+        return builder.build();
+    }
+
+    /**
+     * One user's writes whose event was published, those whose transaction has not completed
+     * yet, and the loads in progress. Only read and changed inside {@code writes.compute}.
+     */
+    private static class Writes {
+        long started;
+        int inFlight;
+        int loads;
+
+        boolean idle() {
+            return inFlight == 0 && loads == 0;
+        }
+    }
+}
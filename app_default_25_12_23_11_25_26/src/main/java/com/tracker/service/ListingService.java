@@ -0,0 +1,68 @@
+package com.tracker.service;
+
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import com.tracker.repository.ExpenseRepository;
+import com.tracker.repository.IncomeRepository;
+import com.tracker.repository.ListingFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/** Cursor-paginated expense and income listings, newest first. */
+@Service
+public class ListingService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    @Autowired
+    private IncomeRepository incomeRepo;
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Expense> expenses(User user, ListingFilter filter, String cursor, int limit) {
+        checkLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<Expense> rows = expenseRepo.findPage(user, filter, afterDate(after), afterId(after), limit + 1);
+        return toPage(rows, limit, e -> new PageCursor(e.getDate(), e.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Income> incomes(User user, ListingFilter filter, String cursor, int limit) {
+        checkLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<Income> rows = incomeRepo.findPage(user, filter, afterDate(after), afterId(after), limit + 1);
+        return toPage(rows, limit, i -> new PageCursor(i.getDate(), i.getId()));
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    private static LocalDate afterDate(PageCursor after) {
+        return after != null ? after.getDate() : null;
+    }
+
+    private static Long afterId(PageCursor after) {
+        return after != null ? after.getId() : null;
+    }
+
+    /** {@code rows} holds one row more than the page when another page follows. */
+    private static <T> KeysetPage<T> toPage(List<T> rows, int limit, Function<T, PageCursor> position) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, position.apply(items.get(limit - 1)).encode());
+    }
+}
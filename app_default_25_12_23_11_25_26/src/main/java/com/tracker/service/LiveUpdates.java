@@ -0,0 +1,438 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracker.event.DataImportedEvent;
+import com.tracker.event.ExpenseChangedEvent;
+import com.tracker.event.IncomeChangedEvent;
+import com.tracker.event.Posting;
+import com.tracker.event.UserDataChangedEvent;
+import com.tracker.model.MonthlyRollup;
+import com.tracker.model.MonthlyRollup.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.MonthlyRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes each user's committed changes to their open {@code /api/stream} connections, so
+ * open dashboards update in place instead of refetching after every write. An "update"
+ * event carries the changed expenses, the new category and income totals of the months
+ * the changes touched, today's budget status and, when they changed, the tips.
+ *
+ * <p>Changes are collected per user and turned into one update after
+ * {@code tracker.stream.coalesce}, on the application task executor and as the user who
+ * subscribed (so sharded and replica routing apply), with a single rollup read however
+ * many writes, tabs or devices there are. An idle connection costs no thread: the
+ * container holds it and a few {@code stream-send} threads write to whichever clients
+ * have something queued. Each client has a queue of at most {@code tracker.stream.max-queued}
+ * events; one that overflows it, or whose write has not gone through within a heartbeat,
+ * is not keeping up and is dropped (counted in {@code stream.dropped}), after which the
+ * browser reconnects and reloads. A comment line every {@code tracker.stream.heartbeat}
+ * keeps proxies from closing idle connections and finds the ones the client has gone from.
+ */
+@Component
+public class LiveUpdates {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdates.class);
+
+    private final MonthlyRollupRepository rollupRepo;
+    private final BudgetStatusService budgetStatus;
+    private final TipCache tipCache;
+    private final ObjectMapper json;
+    private final TaskExecutor executor;
+    private final Duration timeout;
+    private final long heartbeatNanos;
+    private final Duration coalesce;
+    private final int maxQueued;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService timer;
+    private final ConcurrentHashMap<Long, Feed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger clients = new AtomicInteger();
+    private final Counter dropped;
+    private final Counter updates;
+
+    public LiveUpdates(MonthlyRollupRepository rollupRepo, BudgetStatusService budgetStatus, TipCache tipCache,
+                       ObjectMapper json,
+                       @Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                       @Value("${tracker.stream.timeout:30m}") Duration timeout,
+                       @Value("${tracker.stream.heartbeat:15s}") Duration heartbeat,
+                       @Value("${tracker.stream.coalesce:100ms}") Duration coalesce,
+                       @Value("${tracker.stream.max-queued:32}") int maxQueued,
+                       @Value("${tracker.stream.send-threads:4}") int sendThreads,
+                       MeterRegistry registry) {
+        this.rollupRepo = rollupRepo;
+        this.budgetStatus = budgetStatus;
+        this.tipCache = tipCache;
+        this.json = json;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.coalesce = coalesce;
+        this.maxQueued = maxQueued;
+        AtomicInteger sender = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(sendThreads, r -> {
+            Thread t = new Thread(r, "stream-send-" + sender.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stream-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+        Gauge.builder("stream.clients", clients, AtomicInteger::get)
+                .description("Open /api/stream connections")
+                .register(registry);
+        this.dropped = Counter.builder("stream.dropped")
+                .description("Stream clients dropped for not reading their events fast enough")
+                .register(registry);
+        this.updates = Counter.builder("stream.updates")
+                .description("Updates built for users with open streams, each sent to all of their clients")
+                .register(registry);
+    }
+
+    /** A stream of {@code user}'s updates; runs as the current authentication when building them. */
+    public SseEmitter subscribe(User user) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Client client = new Client(user.getId(), emitter);
+        feeds.compute(user.getId(), (id, feed) -> {
+            Feed f = feed != null ? feed : new Feed(user, auth);
+            f.clients.add(client);
+            return f;
+        });
+        clients.incrementAndGet();
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> remove(client));
+        emitter.onError(e -> remove(client));
+        client.offer(SseEmitter.event().name("ready").data("{}").build());
+        return emitter;
+    }
+
+    /** After commit, so an update never shows data a reader could not see yet. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        Feed feed = feeds.get(event.getUserId());
+        if (feed != null) {
+            feed.add(event);
+        }
+    }
+
+    private void remove(Client client) {
+        if (client.closed.compareAndSet(false, true)) {
+            clients.decrementAndGet();
+            feeds.computeIfPresent(client.userId, (id, feed) -> {
+                feed.clients.remove(client);
+                return feed.clients.isEmpty() ? null : feed;
+            });
+        }
+    }
+
+    private void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("").build();
+        long now = System.nanoTime();
+        for (Feed feed : feeds.values()) {
+            for (Client client : feed.clients) {
+                long sending = client.sendingSince;
+                if (sending != 0 && now - sending > heartbeatNanos) {
+                    client.drop();
+                } else if (client.queued.get() == 0) {
+                    client.offer(ping);
+                }
+            }
+        }
+    }
+
+    /** The update for {@code changes}, or null if there is nothing to tell. */
+    private Map<String, Object> update(Feed feed, List<UserDataChangedEvent> changes) {
+        Long userId = feed.user.getId();
+        List<Map<String, Object>> expenses = new ArrayList<>();
+        TreeSet<Integer> expensePeriods = new TreeSet<>();
+        TreeSet<Integer> incomePeriods = new TreeSet<>();
+        int imported = 0;
+        boolean budgetTouched = false;
+        for (UserDataChangedEvent change : changes) {
+            budgetTouched |= !(change instanceof IncomeChangedEvent);
+            if (change instanceof ExpenseChangedEvent e) {
+                expenses.add(expense(e));
+                touch(expensePeriods, e.getRemoved());
+                touch(expensePeriods, e.getAdded());
+            } else if (change instanceof IncomeChangedEvent i) {
+                touch(incomePeriods, i.getRemoved());
+                touch(incomePeriods, i.getAdded());
+            } else if (change instanceof DataImportedEvent d) {
+                imported += d.getAdded().size();
+                for (Posting p : d.getAdded()) {
+                    touch(p.getCategory() != null ? expensePeriods : incomePeriods, p);
+                }
+            }
+        }
+
+        Map<String, Object> update = new LinkedHashMap<>();
+        if (!expenses.isEmpty()) {
+            update.put("expenses", expenses);
+        }
+        if (imported > 0) {
+            update.put("imported", imported);
+        }
+        TreeSet<Integer> periods = new TreeSet<>(expensePeriods);
+        periods.addAll(incomePeriods);
+        if (!periods.isEmpty()) {
+            Map<String, Map<String, Double>> categoryTotals = new LinkedHashMap<>();
+            Map<String, Double> incomeTotals = new LinkedHashMap<>();
+            for (int p : expensePeriods) {
+                categoryTotals.put(String.valueOf(p), new LinkedHashMap<>());
+            }
+            for (int p : incomePeriods) {
+                incomeTotals.put(String.valueOf(p), 0.0);
+            }
+            for (MonthlyRollup r : rollupRepo.findByUserIdAndKindInAndPeriodBetween(userId,
+                    EnumSet.of(Kind.EXPENSE, Kind.INCOME), periods.first(), periods.last())) {
+                String period = String.valueOf(r.getPeriod());
+                if (r.getKind() == Kind.INCOME) {
+                    incomeTotals.computeIfPresent(period, (p, total) -> total + r.getTotal());
+                } else if (categoryTotals.containsKey(period)) {
+                    categoryTotals.get(period).merge(r.getCategory().name(), r.getTotal(), Double::sum);
+                }
+            }
+            if (!categoryTotals.isEmpty()) {
+                update.put("categoryTotals", categoryTotals);
+            }
+            if (!incomeTotals.isEmpty()) {
+                update.put("incomeTotals", incomeTotals);
+            }
+        }
+        if (budgetTouched) {
+            update.put("budget", budgetStatus.status(feed.user, LocalDate.now()));
+        }
+        List<String> tips = tipCache.get(feed.user);
+        if (!tips.equals(feed.tips)) {
+            feed.tips = tips;
+            update.put("tips", tips);
+        }
+        return update.isEmpty() ? null : update;
+    }
+
+    private static Map<String, Object> expense(ExpenseChangedEvent e) {
+        Map<String, Object> expense = new LinkedHashMap<>();
+        expense.put("id", e.getExpenseId());
+        Posting added = e.getAdded();
+        if (added == null) {
+            expense.put("deleted", true);
+        } else {
+            expense.put("date", added.getDate());
+            expense.put("category", added.getCategory());
+            expense.put("amount", added.getAmount());
+            expense.put("description", e.getDescription());
+        }
+        return expense;
+    }
+
+    private static void touch(Set<Integer> periods, Posting posting) {
+        if (posting != null) {
+            periods.add(RollupService.period(posting.getDate()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.shutdownNow();
+        senders.shutdownNow();
+        for (Feed feed : feeds.values()) {
+            for (Client client : feed.clients) {
+                // One mid-write is left to the container, which closes its connection anyway.
+                if (!client.draining.get()) {
+                    client.emitter.complete();
+                }
+            }
+        }
+    }
+
+    /** A user's open clients and the changes not yet sent to them. */
+    private class Feed {
+        final User user;
+        final Authentication auth;
+        final Set<Client> clients = ConcurrentHashMap.newKeySet();
+        final ConcurrentLinkedQueue<UserDataChangedEvent> pending = new ConcurrentLinkedQueue<>();
+        // Set from when a flush is scheduled until it has finished, so flushes of a feed never overlap.
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        // Only touched by flushes, which never overlap.
+        List<String> tips;
+
+        Feed(User user, Authentication auth) {
+            this.user = user;
+            this.auth = auth;
+        }
+
+        void add(UserDataChangedEvent change) {
+            pending.add(change);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                timer.schedule(() -> {
+                    try {
+                        executor.execute(this::flush);
+                    } catch (RuntimeException e) {
+                        // Rejected while shutting down; the next change tries again.
+                        scheduled.set(false);
+                    }
+                }, coalesce.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            try {
+                send();
+            } finally {
+                scheduled.set(false);
+            }
+            // Changes added while this flush ran go out with the next one.
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void send() {
+            List<UserDataChangedEvent> changes = new ArrayList<>();
+            for (UserDataChangedEvent change; (change = pending.poll()) != null; ) {
+                changes.add(change);
+            }
+            if (changes.isEmpty() || clients.isEmpty()) {
+                return;
+            }
+            SecurityContextHolder.getContext().setAuthentication(auth);
+            try {
+                Map<String, Object> update = update(this, changes);
+                if (update == null) {
+                    return;
+                }
+                updates.increment();
+                Set<DataWithMediaType> event = SseEmitter.event().name("update")
+                        .data(json.writeValueAsString(update)).build();
+                for (Client client : clients) {
+                    client.offer(event);
+                }
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Could not build the stream update for user {}", user.getId(), e);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+
+    /** One open stream, with the events queued for it; at most one sender drains it at a time. */
+    private class Client {
+        final Long userId;
+        final SseEmitter emitter;
+        final ConcurrentLinkedQueue<Set<DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile boolean slow;
+        // When the write in progress started, 0 if none is.
+        volatile long sendingSince;
+
+        Client(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (closed.get()) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                drop();
+                return;
+            }
+            queue.add(event);
+            drain();
+        }
+
+        /**
+         * Stops sending to a client that is not keeping up. Its sender completes the emitter once
+         * the write in progress gets through, as completing it here would wait for that write.
+         */
+        void drop() {
+            if (!closed.get()) {
+                slow = true;
+                dropped.increment();
+                remove(this);
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                for (Set<DataWithMediaType> event; !slow && (event = queue.poll()) != null; ) {
+                    queued.decrementAndGet();
+                    sendingSince = System.nanoTime();
+                    emitter.send(event);
+                    sendingSince = 0;
+                }
+                if (slow) {
+                    queue.clear();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the emitter's callbacks remove it.
+                queue.clear();
+                remove(this);
+            } finally {
+                sendingSince = 0;
+                draining.set(false);
+            }
+            if (!queue.isEmpty() && !closed.get()) {
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.tracker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position in a (date desc, id desc) listing: the date and id of the last row returned.
+ * Clients see it only as an opaque URL-safe token.
+ */
+public class PageCursor {
+    private final LocalDate date;
+    private final long id;
+
+    public PageCursor(LocalDate date, long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public LocalDate getDate() { return date; }
+    public long getId() { return id; }
+
+    public String encode() {
+        String raw = date.toEpochDay() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** Parses a token produced by {@link #encode()}; null or empty yields null (first page). */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int sep = raw.indexOf(':');
+            return new PageCursor(LocalDate.ofEpochDay(Long.parseLong(raw.substring(0, sep))),
+                    Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.tracker.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ids from the entities' pooled sequences for rows inserted over plain JDBC.
+ * Follows Hibernate's pooled optimizer: a sequence value {@code v} reserves the block
+ * {@code (v - ALLOCATION_SIZE, v]}, so blocks taken here and by JPA never overlap.
+ */
+@Component
+public class PooledIds {
+
+    /** Must match the allocationSize of the entities' @SequenceGenerator. */
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public PooledIds(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long next(String sequence) {
+        Block block = blocks.computeIfAbsent(sequence, s -> new Block());
+        synchronized (block) {
+            if (block.next > block.hi) {
+                long hi = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+                block.hi = hi;
+                // The sequence starts at 1, which Hibernate treats as a block of its own.
+                block.next = Math.max(1, hi - ALLOCATION_SIZE + 1);
+            }
+            return block.next++;
+        }
+    }
+
+    private static class Block {
+        long next = 1;
+        long hi = 0;
+    }
+}
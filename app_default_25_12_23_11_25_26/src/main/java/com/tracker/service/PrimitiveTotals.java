@@ -0,0 +1,126 @@
+package com.tracker.service;
+
+import java.util.Arrays;
+
+/**
+ * Sums and counts keyed by a non-negative long, kept in open-addressed primitive arrays.
+ * Adding to a key allocates nothing; only growing the table does, and {@link #clear} keeps
+ * the grown arrays, so a table reused across batches stops allocating after the first.
+ * Groups are read back by slot: {@code for (int s = t.next(0); s >= 0; s = t.next(s + 1))}.
+ */
+public final class PrimitiveTotals {
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private double[] totals;
+    private long[] counts;
+    private int size;
+
+    public PrimitiveTotals() {
+        this(64);
+    }
+
+    public PrimitiveTotals(int expectedKeys) {
+        allocate(Integer.highestOneBit(Math.max(8, expectedKeys * 2 - 1)) << 1);
+    }
+
+    public void add(long key, double amount) {
+        add(key, amount, 1);
+    }
+
+    public void add(long key, double amount, long entries) {
+        if (key < 0) {
+            throw new IllegalArgumentException("key must not be negative: " + key);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                if (size * 2 >= keys.length) {
+                    grow();
+                    add(key, amount, entries);
+                    return;
+                }
+                keys[slot] = key;
+                size++;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        totals[slot] += amount;
+        counts[slot] += entries;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Removes every group, keeping the current capacity. */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(totals, 0);
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /** First occupied slot at or after {@code slot}, or -1 when there is none. */
+    public int next(int slot) {
+        for (int s = slot; s < keys.length; s++) {
+            if (keys[s] != EMPTY) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public double totalAt(int slot) {
+        return totals[slot];
+    }
+
+    public long countAt(int slot) {
+        return counts[slot];
+    }
+
+    /** Occupied slots in table order, for callers that need indexed access to the groups. */
+    public int[] slots() {
+        int[] slots = new int[size];
+        int i = 0;
+        for (int s = next(0); s >= 0; s = next(s + 1)) {
+            slots[i++] = s;
+        }
+        return slots;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldTotals = totals;
+        long[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldKeys[s] != EMPTY) {
+                add(oldKeys[s], oldTotals[s], oldCounts[s]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        totals = new double[capacity];
+        counts = new long[capacity];
+        size = 0;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
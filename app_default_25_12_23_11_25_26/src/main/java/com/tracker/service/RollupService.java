@@ -0,0 +1,336 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.model.MonthlyRollup;
+import com.tracker.model.MonthlyRollup.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.AnalyticsRepository;
+import com.tracker.repository.AnalyticsRepository.DayGroup;
+import com.tracker.repository.AnalyticsRepository.MonthGroup;
+import com.tracker.repository.MonthlyRollupRepository;
+import com.tracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Maintains {@link MonthlyRollup} rows. The add/remove methods must run inside the
+ * transaction of the write they account for, so totals and raw rows commit together.
+ */
+@Service
+public class RollupService {
+
+    /** Parameters as built by {@link GroupTotals#insertRow}. */
+    static final String INSERT_GROUP = "insert into monthly_rollup (user_id, kind, period, category, total, entry_count) "
+            + "values (?, ?, ?, ?, ?, ?)";
+
+    /** Largest difference between a stored and a recomputed total that is not reported as drift. */
+    private static final double TOLERANCE = 0.005;
+
+    @Autowired
+    private MonthlyRollupRepository rollupRepo;
+
+    @Autowired
+    private AnalyticsRepository analyticsRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static int period(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    /** Period of an EXPENSE_DAY row: {@code yyyymmdd}. */
+    public static int day(LocalDate date) {
+        return period(date) * 100 + date.getDayOfMonth();
+    }
+
+    /** True when {@code start..end} is made of whole calendar months and can be answered from rollups. */
+    public static boolean coversWholeMonths(LocalDate start, LocalDate end) {
+        return start.getDayOfMonth() == 1 && end.getDayOfMonth() == end.lengthOfMonth() && !end.isBefore(start);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addExpense(Long userId, LocalDate date, Category category, double amount) {
+        applyExpense(userId, period(date), category, amount, 1);
+        applyExpenseDay(userId, day(date), amount, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeExpense(Long userId, LocalDate date, Category category, double amount) {
+        applyExpense(userId, period(date), category, -amount, -1);
+        applyExpenseDay(userId, day(date), -amount, -1);
+        rollupRepo.deleteEmpty(userId);
+    }
+
+    /** Applies an edit as a single adjustment per group the expense stays in. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moveExpense(Long userId, LocalDate oldDate, Category oldCategory, double oldAmount,
+                            LocalDate newDate, Category newCategory, double newAmount) {
+        if (period(oldDate) == period(newDate) && oldCategory == newCategory) {
+            applyExpense(userId, period(newDate), newCategory, newAmount - oldAmount, 0);
+        } else {
+            applyExpense(userId, period(oldDate), oldCategory, -oldAmount, -1);
+            applyExpense(userId, period(newDate), newCategory, newAmount, 1);
+        }
+        if (oldDate.equals(newDate)) {
+            applyExpenseDay(userId, day(newDate), newAmount - oldAmount, 0);
+        } else {
+            applyExpenseDay(userId, day(oldDate), -oldAmount, -1);
+            applyExpenseDay(userId, day(newDate), newAmount, 1);
+        }
+        rollupRepo.deleteEmpty(userId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addIncome(Long userId, LocalDate date, double amount) {
+        applyIncome(userId, period(date), amount, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeIncome(Long userId, LocalDate date, double amount) {
+        applyIncome(userId, period(date), -amount, -1);
+        rollupRepo.deleteEmpty(userId);
+    }
+
+    /**
+     * Applies many group adjustments at once, as written by a bulk import: one JDBC batch
+     * of increments, then inserts for the groups that did not exist yet.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyGroups(Long userId, GroupTotals groups) {
+        PrimitiveTotals sums = groups.sums;
+        if (sums.isEmpty()) {
+            return;
+        }
+        int[] slots = sums.slots();
+        int[] updated = increment(userId, sums, slots);
+        int[] missing = new int[slots.length];
+        int missingCount = 0;
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing[missingCount++] = slots[i];
+            }
+        }
+        if (missingCount == 0) {
+            return;
+        }
+        userRepo.lockById(userId);
+        missing = Arrays.copyOf(missing, missingCount);
+        int[] retried = increment(userId, sums, missing);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < retried.length; i++) {
+            if (retried[i] == 0) {
+                inserts.add(groups.insertRow(userId, missing[i]));
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_GROUP, inserts);
+    }
+
+    private int[] increment(Long userId, PrimitiveTotals sums, int[] slots) {
+        return jdbcTemplate.batchUpdate("update monthly_rollup set total = total + ?, entry_count = entry_count + ? "
+                        + "where user_id = ? and kind = ? and period = ? and category is not distinct from ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        long key = sums.keyAt(slots[i]);
+                        Category category = GroupTotals.categoryOf(key);
+                        ps.setDouble(1, sums.totalAt(slots[i]));
+                        ps.setLong(2, sums.countAt(slots[i]));
+                        ps.setLong(3, userId);
+                        ps.setString(4, GroupTotals.kindOf(key).name());
+                        ps.setInt(5, GroupTotals.periodOf(key));
+                        ps.setString(6, category == null ? null : category.name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return slots.length;
+                    }
+                });
+    }
+
+    private void applyExpense(Long userId, int period, Category category, double amount, long entries) {
+        if (rollupRepo.addToExpenseGroup(userId, period, category.name(), amount, entries) == 0) {
+            // First row for this group: lock the user so a concurrent write cannot insert it too.
+            userRepo.lockById(userId);
+            if (rollupRepo.addToExpenseGroup(userId, period, category.name(), amount, entries) == 0) {
+                rollupRepo.save(new MonthlyRollup(null, userId, Kind.EXPENSE, period, category, amount, entries));
+            }
+        }
+    }
+
+    private void applyExpenseDay(Long userId, int day, double amount, long entries) {
+        if (rollupRepo.addToExpenseDay(userId, day, amount, entries) == 0) {
+            userRepo.lockById(userId);
+            if (rollupRepo.addToExpenseDay(userId, day, amount, entries) == 0) {
+                rollupRepo.save(new MonthlyRollup(null, userId, Kind.EXPENSE_DAY, day, null, amount, entries));
+            }
+        }
+    }
+
+    private void applyIncome(Long userId, int period, double amount, long entries) {
+        if (rollupRepo.addToIncomeGroup(userId, period, amount, entries) == 0) {
+            userRepo.lockById(userId);
+            if (rollupRepo.addToIncomeGroup(userId, period, amount, entries) == 0) {
+                rollupRepo.save(new MonthlyRollup(null, userId, Kind.INCOME, period, null, amount, entries));
+            }
+        }
+    }
+
+    /** Compares the stored rollups of a user with totals recomputed from the raw rows. */
+    @Transactional(readOnly = true)
+    public DriftReport verify(User user) {
+        return compare(user, rollupRepo.findByUserId(user.getId()), recompute(user));
+    }
+
+    /** Replaces a user's rollups with totals recomputed from the raw rows, reporting what was wrong before. */
+    @Transactional
+    public DriftReport rebuild(User user) {
+        userRepo.lockById(user.getId());
+        List<MonthlyRollup> fresh = recompute(user);
+        DriftReport report = compare(user, rollupRepo.findByUserId(user.getId()), fresh);
+        rollupRepo.deleteAllForUser(user.getId());
+        rollupRepo.saveAll(fresh);
+        return report;
+    }
+
+    private List<MonthlyRollup> recompute(User user) {
+        List<MonthlyRollup> rollups = new ArrayList<>();
+        for (MonthGroup g : analyticsRepo.groupExpensesByMonthAndCategory(user)) {
+            rollups.add(new MonthlyRollup(null, user.getId(), Kind.EXPENSE, g.getYear() * 100 + g.getMonth(),
+                    g.getCategory(), g.getTotal(), g.getEntries()));
+        }
+        for (DayGroup g : analyticsRepo.groupExpensesByDay(user)) {
+            rollups.add(new MonthlyRollup(null, user.getId(), Kind.EXPENSE_DAY, day(g.getDate()),
+                    null, g.getTotal(), g.getEntries()));
+        }
+        for (MonthGroup g : analyticsRepo.groupIncomesByMonth(user)) {
+            rollups.add(new MonthlyRollup(null, user.getId(), Kind.INCOME, g.getYear() * 100 + g.getMonth(),
+                    null, g.getTotal(), g.getEntries()));
+        }
+        return rollups;
+    }
+
+    private DriftReport compare(User user, List<MonthlyRollup> stored, List<MonthlyRollup> actual) {
+        Map<String, MonthlyRollup> storedByKey = new HashMap<>();
+        for (MonthlyRollup r : stored) {
+            storedByKey.put(key(r), r);
+        }
+        DriftReport report = new DriftReport(user.getId(), actual.size());
+        for (MonthlyRollup a : actual) {
+            MonthlyRollup s = storedByKey.remove(key(a));
+            double storedTotal = s != null ? s.getTotal() : 0;
+            long storedEntries = s != null ? s.getEntryCount() : 0;
+            if (Math.abs(storedTotal - a.getTotal()) > TOLERANCE || storedEntries != a.getEntryCount()) {
+                report.add(a.getKind(), a.getPeriod(), a.getCategory(), storedTotal, a.getTotal(), storedEntries, a.getEntryCount());
+            }
+        }
+        for (MonthlyRollup s : storedByKey.values()) {
+            report.add(s.getKind(), s.getPeriod(), s.getCategory(), s.getTotal(), 0, s.getEntryCount(), 0);
+        }
+        return report;
+    }
+
+    private static String key(MonthlyRollup r) {
+        return r.getKind() + ":" + r.getPeriod() + ":" + r.getCategory();
+    }
+
+    public static class DriftReport {
+        private final Long userId;
+        private final int groupsChecked;
+        private final List<Map<String, Object>> drift = new ArrayList<>();
+
+        DriftReport(Long userId, int groupsChecked) {
+            this.userId = userId;
+            this.groupsChecked = groupsChecked;
+        }
+
+        void add(Kind kind, int period, Category category, double storedTotal, double actualTotal,
+                 long storedEntries, long actualEntries) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("kind", kind);
+            entry.put("period", period);
+            entry.put("category", category);
+            entry.put("storedTotal", storedTotal);
+            entry.put("actualTotal", actualTotal);
+            entry.put("storedEntries", storedEntries);
+            entry.put("actualEntries", actualEntries);
+            drift.add(entry);
+        }
+
+        public Long getUserId() { return userId; }
+        public int getGroupsChecked() { return groupsChecked; }
+        public boolean isConsistent() { return drift.isEmpty(); }
+        public List<Map<String, Object>> getDrift() { return drift; }
+    }
+
+    /**
+     * Sums and counts of many writes per rollup group, collected before touching the table.
+     * A group is keyed by its period times 16 plus a slot: the category ordinal for expense
+     * months, or the day and income slots below. Adding a row allocates nothing; reuse one
+     * instance across batches with {@link #clear} so the table is only sized once.
+     */
+    public static class GroupTotals {
+        private static final int DAY_SLOT = 14;
+        private static final int INCOME_SLOT = 15;
+        private static final Category[] CATEGORIES = Category.values();
+
+        private final PrimitiveTotals sums = new PrimitiveTotals();
+
+        /** Counts the expense in both its (month, category) group and its day group. */
+        public void addExpense(LocalDate date, Category category, double amount) {
+            add((long) RollupService.period(date) * 16 + category.ordinal(), amount);
+            add((long) RollupService.day(date) * 16 + DAY_SLOT, amount);
+        }
+
+        public void addIncome(LocalDate date, double amount) {
+            add((long) RollupService.period(date) * 16 + INCOME_SLOT, amount);
+        }
+
+        public void clear() {
+            sums.clear();
+        }
+
+        private void add(long key, double amount) {
+            sums.add(key, amount);
+        }
+
+        /** Slots of the groups, for {@link #insertRow}. */
+        int[] slots() {
+            return sums.slots();
+        }
+
+        /** Parameters of {@link #INSERT_GROUP} for the group in {@code slot}. */
+        Object[] insertRow(Long userId, int slot) {
+            long key = sums.keyAt(slot);
+            Category category = categoryOf(key);
+            return new Object[]{userId, kindOf(key).name(), periodOf(key), category == null ? null : category.name(),
+                    sums.totalAt(slot), sums.countAt(slot)};
+        }
+
+        static int periodOf(long key) {
+            return (int) (key / 16);
+        }
+
+        static Kind kindOf(long key) {
+            int slot = (int) (key % 16);
+            return slot == INCOME_SLOT ? Kind.INCOME : slot == DAY_SLOT ? Kind.EXPENSE_DAY : Kind.EXPENSE;
+        }
+
+        static Category categoryOf(long key) {
+            return kindOf(key) == Kind.EXPENSE ? CATEGORIES[(int) (key % 16)] : null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time copies of the journaled tables, named after the first journal segment they
+ * do not cover. A snapshot holds a header (magic, version, that segment), the users,
+ * budgets, expenses and incomes as {@link JournalRecord} rows, each table ending with an
+ * {@link JournalRecord#END} tag, and a trailer with the row count and a CRC32C of all the
+ * bytes before it. Expenses and incomes are grouped by user in the order of their
+ * (user_id, date desc, id desc) indexes, so writing one needs no sort and a restore can
+ * finish one user at a time. A snapshot is written to a temporary file and renamed into
+ * place once forced, so a visible snapshot is always complete.
+ */
+final class Snapshots {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final byte[] MAGIC = {'T', 'R', 'K', 'S', 'N', 'A', 'P'};
+    private static final int VERSION = 1;
+    private static final int TABLES = 4;
+
+    private static final String USERS = "select id, username, password from users order by id";
+    private static final String BUDGETS = "select id, user_id, daily_limit, monthly_limit, category_limits "
+            + "from budget order by id";
+    private static final String EXPENSES = "select id, user_id, amount, category, date, description from expense "
+            + "order by user_id, date desc, id desc";
+    private static final String INCOMES = "select id, user_id, amount, date, description from income "
+            + "order by user_id, date desc, id desc";
+
+    private Snapshots() {
+    }
+
+    static Path file(Path dir, long segment) {
+        return dir.resolve(String.format("%s%010d%s", PREFIX, segment, SUFFIX));
+    }
+
+    /** Segment numbers of the snapshots in {@code dir}, in order. */
+    static List<Long> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Writes the current rows as the snapshot for {@code segment} and returns how many there
+     * were. Every change made before that segment was started must have committed.
+     */
+    static long write(Path dir, long segment, DataSource dataSource) throws IOException, SQLException {
+        Path target = file(dir, segment);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             Connection connection = dataSource.getConnection()) {
+            CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32C());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 1024 * 1024));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(segment);
+            try (Statement statement = connection.createStatement()) {
+                // Stream the large tables instead of materializing the whole result first.
+                statement.execute("set lazy_query_execution true");
+                try {
+                    rows += copy(connection, USERS, out, rs -> new JournalRecord.UserRow(
+                            rs.getLong(1), rs.getString(2), rs.getString(3)));
+                    rows += copy(connection, BUDGETS, out, rs -> new JournalRecord.BudgetRow(
+                            rs.getLong(1), rs.getLong(2), rs.getObject(3, Double.class), rs.getObject(4, Double.class),
+                            rs.getString(5)));
+                    rows += copy(connection, EXPENSES, out, rs -> new JournalRecord.ExpenseRow(
+                            rs.getLong(1), rs.getLong(2), rs.getDouble(3), Category.valueOf(rs.getString(4)),
+                            rs.getObject(5, LocalDate.class), rs.getString(6)));
+                    rows += copy(connection, INCOMES, out, rs -> new JournalRecord.IncomeRow(
+                            rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getObject(4, LocalDate.class),
+                            rs.getString(5)));
+                } finally {
+                    statement.execute("set lazy_query_execution false");
+                }
+            }
+            out.writeLong(rows);
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        JournalLog.forceDirectory(dir);
+        return rows;
+    }
+
+    private static long copy(Connection connection, String sql, DataOutputStream out, RowMapper mapper)
+            throws SQLException, IOException {
+        long rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    JournalRecord.write(out, mapper.map(rs));
+                    rows++;
+                }
+            }
+        }
+        out.writeByte(JournalRecord.END);
+        return rows;
+    }
+
+    private interface RowMapper {
+        JournalRecord map(ResultSet rs) throws SQLException;
+    }
+
+    /** Reads a snapshot's rows in order, checking the trailer once the last table is read. */
+    static final class Reader implements AutoCloseable {
+        private final Path file;
+        private final BufferedInputStream buffered;
+        private final CheckedInputStream checked;
+        private final DataInputStream in;
+        private final long segment;
+        private int tables;
+        private long rows;
+
+        Reader(Path file) throws IOException {
+            this.file = file;
+            this.buffered = new BufferedInputStream(Files.newInputStream(file), 1024 * 1024);
+            // Checksums exactly the bytes read, not what the buffer has read ahead.
+            this.checked = new CheckedInputStream(buffered, new CRC32C());
+            this.in = new DataInputStream(checked);
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            int version = in.readUnsignedByte();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                in.close();
+                throw new IOException(file + " is not a version " + VERSION + " snapshot");
+            }
+            this.segment = in.readLong();
+        }
+
+        /** The first journal segment not covered by this snapshot. */
+        long segment() {
+            return segment;
+        }
+
+        /** The next row, or null after the last one. */
+        JournalRecord next() throws IOException {
+            while (tables < TABLES) {
+                JournalRecord record = JournalRecord.read(in);
+                if (record != null) {
+                    rows++;
+                    return record;
+                }
+                tables++;
+            }
+            if (tables == TABLES) {
+                tables++;
+                long expected = in.readLong();
+                int computed = (int) checked.getChecksum().getValue();
+                int stored = new DataInputStream(buffered).readInt();
+                if (expected != rows || stored != computed) {
+                    throw new IOException(file + " is corrupt: checksum or row count does not match");
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
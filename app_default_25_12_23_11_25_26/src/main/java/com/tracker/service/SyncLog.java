@@ -0,0 +1,236 @@
+package com.tracker.service;
+
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.SyncEntry;
+import com.tracker.model.SyncEntry.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.ExpenseRepository;
+import com.tracker.repository.IncomeRepository;
+import com.tracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user change log of expenses and incomes for delta sync ({@link SyncEntry}). The write
+ * methods must run inside the transaction of the write they record, like the rollups.
+ * A sync reads the entries after the client's {@code since} through the (user, seq) index,
+ * so its cost follows the number of changes, not the size of the history.
+ *
+ * <p>A user's log is started on their first write or sync: their existing rows are entered
+ * as upserts, numbered from the current time in microseconds. That is above any number
+ * handed out for the user before, e.g. before a durable-mode restore (which does not keep
+ * these tables), so cursors from then are told to reset rather than silently miss changes.
+ */
+@Service
+public class SyncLog {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 5000;
+    public static final int MAX_CLIENT_LENGTH = 64;
+
+    private static final String MERGE_ENTRY = "merge into sync_entry (user_id, kind, entity_id, seq, deleted) "
+            + "key (user_id, kind, entity_id) values (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    @Autowired
+    private IncomeRepository incomeRepo;
+
+    @Value("${tracker.sync.cursor-ttl:30d}")
+    private Duration cursorTtl;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saved(Long userId, Kind kind, long id) {
+        record(userId, kind, new long[]{id}, false);
+    }
+
+    /** Records many saved rows at once, as written by a bulk import. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saved(Long userId, Kind kind, long[] ids) {
+        if (ids.length > 0) {
+            record(userId, kind, ids, false);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(Long userId, Kind kind, long id) {
+        record(userId, kind, new long[]{id}, true);
+    }
+
+    private void record(Long userId, Kind kind, long[] ids, boolean deleted) {
+        long first = reserve(userId, ids.length) - ids.length + 1;
+        jdbcTemplate.batchUpdate(MERGE_ENTRY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, userId);
+                ps.setString(2, kind.name());
+                ps.setLong(3, ids[i]);
+                ps.setLong(4, first + i);
+                ps.setBoolean(5, deleted);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.length;
+            }
+        });
+    }
+
+    /** Takes the user's next {@code count} sequence numbers, returning the last; locks their state until commit. */
+    private long reserve(Long userId, int count) {
+        String next = "select seq from final table (update sync_state set seq = seq + ? where user_id = ?)";
+        List<Long> seq = jdbcTemplate.queryForList(next, Long.class, count, userId);
+        if (seq.isEmpty()) {
+            start(userId);
+            seq = jdbcTemplate.queryForList(next, Long.class, count, userId);
+        }
+        return seq.get(0);
+    }
+
+    /** Creates the user's state with an upsert entry for each of their current rows, unless another transaction did. */
+    private void start(Long userId) {
+        userRepo.lockById(userId);
+        if (!jdbcTemplate.queryForList("select seq from sync_state where user_id = ?", Long.class, userId).isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis() * 1000;
+        long entered = jdbcTemplate.update("insert into sync_entry (user_id, kind, entity_id, seq, deleted) "
+                + "select user_id, 'EXPENSE', id, ? + row_number() over (order by id), false "
+                + "from expense where user_id = ?", start, userId);
+        entered += jdbcTemplate.update("insert into sync_entry (user_id, kind, entity_id, seq, deleted) "
+                + "select user_id, 'INCOME', id, ? + row_number() over (order by id), false "
+                + "from income where user_id = ?", start + entered, userId);
+        jdbcTemplate.update("insert into sync_state (user_id, seq, pruned, horizon) values (?, ?, ?, ?)",
+                userId, start + entered, start, start);
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code since}. A {@code client} id records {@code since}
+     * as that client's cursor (the client has applied everything up to it), and tombstones
+     * behind the cursors of all clients seen within {@code tracker.sync.cursor-ttl} are pruned.
+     */
+    @Transactional
+    public SyncPage changes(User user, long since, int limit, String client) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (client != null && (client.isEmpty() || client.length() > MAX_CLIENT_LENGTH)) {
+            throw new IllegalArgumentException("client must be 1 to " + MAX_CLIENT_LENGTH + " characters");
+        }
+        Long userId = user.getId();
+        State state = state(userId);
+        if (since != 0 && (since < state.horizon || since > state.seq)) {
+            return SyncPage.reset();
+        }
+        if (client != null) {
+            track(userId, client, since, state);
+        }
+
+        // A client starting from scratch has nothing to delete.
+        List<Object[]> rows = jdbcTemplate.query("select kind, entity_id, seq, deleted from sync_entry "
+                        + "where user_id = ? and seq > ? and (? or not deleted) order by seq limit ?",
+                (rs, i) -> new Object[]{Kind.valueOf(rs.getString(1)), rs.getLong(2), rs.getLong(3), rs.getBoolean(4)},
+                userId, since, since > 0, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        List<Long> expenseIds = new ArrayList<>();
+        List<Long> incomeIds = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (!(boolean) row[3]) {
+                (row[0] == Kind.EXPENSE ? expenseIds : incomeIds).add((Long) row[1]);
+            }
+        }
+        Map<Long, Object> expenses = new HashMap<>();
+        Map<Long, Object> incomes = new HashMap<>();
+        if (!expenseIds.isEmpty()) {
+            for (Expense e : expenseRepo.findAllById(expenseIds)) {
+                expenses.put(e.getId(), e);
+            }
+        }
+        if (!incomeIds.isEmpty()) {
+            for (Income i : incomeRepo.findAllById(incomeIds)) {
+                incomes.put(i.getId(), i);
+            }
+        }
+
+        List<SyncPage.Change> changes = new ArrayList<>(rows.size());
+        long last = since;
+        for (Object[] row : rows) {
+            Kind kind = (Kind) row[0];
+            long id = (Long) row[1];
+            last = (Long) row[2];
+            boolean deleted = (boolean) row[3];
+            Object data = deleted ? null : (kind == Kind.EXPENSE ? expenses : incomes).get(id);
+            // Deleted after the entries were read; its tombstone comes with a later number.
+            if (deleted || data != null) {
+                changes.add(new SyncPage.Change(last, kind, id, deleted, data));
+            }
+        }
+        // Everything up to the state read first had committed, so the client can skip to it.
+        return new SyncPage(changes, hasMore ? last : Math.max(last, state.seq), hasMore, false);
+    }
+
+    private State state(Long userId) {
+        List<State> state = jdbcTemplate.query("select seq, pruned, horizon from sync_state where user_id = ?",
+                (rs, i) -> new State(rs.getLong(1), rs.getLong(2), rs.getLong(3)), userId);
+        if (state.isEmpty()) {
+            start(userId);
+            return state(userId);
+        }
+        return state.get(0);
+    }
+
+    private void track(Long userId, String client, long since, State state) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update("merge into sync_cursor (user_id, client, seq, seen_at) key (user_id, client) "
+                + "values (?, ?, ?, ?)", userId, client, since, now);
+        jdbcTemplate.update("delete from sync_cursor where user_id = ? and seen_at < ?",
+                userId, Timestamp.from(now.toInstant().minus(cursorTtl)));
+        long behind = jdbcTemplate.queryForObject("select min(seq) from sync_cursor where user_id = ?",
+                Long.class, userId);
+        if (behind <= state.pruned) {
+            return;
+        }
+        // Only the entries since the last prune are looked at.
+        Long newest = jdbcTemplate.queryForObject("select max(seq) from sync_entry "
+                + "where user_id = ? and seq > ? and seq <= ? and deleted", Long.class, userId, state.pruned, behind);
+        if (newest != null) {
+            jdbcTemplate.update("delete from sync_entry where user_id = ? and seq > ? and seq <= ? and deleted",
+                    userId, state.pruned, behind);
+        }
+        jdbcTemplate.update("update sync_state set pruned = greatest(pruned, ?), horizon = greatest(horizon, ?) "
+                + "where user_id = ?", behind, newest != null ? newest : 0, userId);
+    }
+
+    private record State(long seq, long pruned, long horizon) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.tracker.service;
+
+import com.tracker.model.SyncEntry;
+
+import java.util.List;
+
+/**
+ * Changes after a client's {@code since}, oldest first, and the {@code since} to ask with
+ * next. With {@code reset} the client's position can no longer be served (it is older than
+ * pruned deletes, or from before the server's sync state was rebuilt): it should drop what
+ * it has and sync again from 0.
+ */
+public class SyncPage {
+    private final List<Change> changes;
+    private final long next;
+    private final boolean hasMore;
+    private final boolean reset;
+
+    SyncPage(List<Change> changes, long next, boolean hasMore, boolean reset) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+        this.reset = reset;
+    }
+
+    static SyncPage reset() {
+        return new SyncPage(List.of(), 0, true, true);
+    }
+
+    public List<Change> getChanges() { return changes; }
+    public long getNext() { return next; }
+    public boolean isHasMore() { return hasMore; }
+    public boolean isReset() { return reset; }
+
+    /** The current state of one expense or income: its row, or a tombstone if it was deleted. */
+    public static class Change {
+        private final long seq;
+        private final SyncEntry.Kind type;
+        private final long id;
+        private final boolean deleted;
+        private final Object data;
+
+        Change(long seq, SyncEntry.Kind type, long id, boolean deleted, Object data) {
+            this.seq = seq;
+            this.type = type;
+            this.id = id;
+            this.deleted = deleted;
+            this.data = data;
+        }
+
+        public long getSeq() { return seq; }
+        public SyncEntry.Kind getType() { return type; }
+        public long getId() { return id; }
+        public boolean isDeleted() { return deleted; }
+        /** The expense or income; null for a tombstone. */
+        public Object getData() { return data; }
+    }
+}
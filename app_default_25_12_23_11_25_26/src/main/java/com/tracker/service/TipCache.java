@@ -0,0 +1,96 @@
+package com.tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tracker.config.AuthenticatedUser;
+import com.tracker.event.UserDataChangedEvent;
+import com.tracker.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-user cache of {@link AiTipService} results. Tips only change when the user's data
+ * does, so an entry stays until a {@link UserDataChangedEvent} for that user commits, the
+ * day rolls over (daily-limit tips depend on it), or the TTL passes.
+ *
+ * <p>Entries are loaded with Caffeine's per-key atomic get, and invalidation waits for an
+ * in-flight load of the same key. So a load that read pre-commit data is removed by the
+ * invalidation that follows the commit, never left behind it.
+ */
+@Component
+public class TipCache {
+
+    private final AiTipService aiTipService;
+    private final TaskExecutor executor;
+    private final boolean precompute;
+    private final Cache<Long, Entry> cache;
+
+    public TipCache(AiTipService aiTipService,
+                    @Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                    @Value("${tracker.tips.cache.max-size:10000}") long maxSize,
+                    @Value("${tracker.tips.cache.ttl:1h}") Duration ttl,
+                    @Value("${tracker.tips.precompute:true}") boolean precompute) {
+        this.aiTipService = aiTipService;
+        this.executor = executor;
+        this.precompute = precompute;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public List<String> get(User user) {
+        LocalDate today = LocalDate.now();
+        Entry entry = cache.get(user.getId(), id -> load(user, today));
+        if (!entry.day.equals(today)) {
+            cache.invalidate(user.getId());
+            entry = cache.get(user.getId(), id -> load(user, today));
+        }
+        return entry.tips;
+    }
+
+    /**
+     * Drops the user's tips once a write has committed. With precompute enabled, tips of a
+     * user who had an entry (i.e. is active) are rebuilt in the background right away, as
+     * the writer, so the rebuild reads the same shard or primary the write went to. A write
+     * made without that user's authentication only drops the entry.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        Long userId = event.getUserId();
+        if (cache.asMap().remove(userId) == null || !precompute) {
+            return;
+        }
+        Authentication writer = SecurityContextHolder.getContext().getAuthentication();
+        if (writer == null || !(writer.getPrincipal() instanceof AuthenticatedUser principal)
+                || !principal.getId().equals(userId)) {
+            return;
+        }
+        User user = principal.toUser();
+        executor.execute(() -> {
+            SecurityContextHolder.getContext().setAuthentication(writer);
+            try {
+                cache.get(userId, id -> load(user, LocalDate.now()));
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+    }
+
+    private Entry load(User user, LocalDate day) {
+        return new Entry(day, List.copyOf(aiTipService.generateTips(user)));
+    }
+
+    private record Entry(LocalDate day, List<String> tips) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.tracker.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expense and income totals over consecutive buckets of a date range. Bucket {@code i}
+ * covers {@code bucketStarts[i]} up to the day before {@code bucketStarts[i + 1]}.
+ */
+public class TrendSeries {
+    private final TrendService.Granularity granularity;
+    private final List<LocalDate> bucketStarts;
+    private final double[] expenses;
+    private final double[] incomes;
+
+    TrendSeries(TrendService.Granularity granularity, List<LocalDate> bucketStarts) {
+        this.granularity = granularity;
+        this.bucketStarts = bucketStarts;
+        this.expenses = new double[bucketStarts.size()];
+        this.incomes = new double[bucketStarts.size()];
+    }
+
+    public TrendService.Granularity getGranularity() { return granularity; }
+
+    public List<String> getLabels() {
+        List<String> labels = new ArrayList<>(bucketStarts.size());
+        for (LocalDate start : bucketStarts) {
+            labels.add(granularity.label(start));
+        }
+        return labels;
+    }
+
+    public List<LocalDate> getBucketStarts() { return bucketStarts; }
+    public double[] getExpenses() { return expenses; }
+    public double[] getIncomes() { return incomes; }
+}
@@ -0,0 +1,158 @@
+package com.tracker.service;
+
+import com.tracker.model.MonthlyRollup.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.AnalyticsRepository;
+import com.tracker.repository.AnalyticsRepository.DayTotal;
+import com.tracker.repository.AnalyticsRepository.MonthTotal;
+import com.tracker.repository.MonthlyRollupRepository;
+import com.tracker.repository.MonthlyRollupRepository.PeriodTotal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Builds expense/income trend series for any date range. With the user's {@link Ledger}
+ * cached, each bucket is a range sum in memory. Otherwise each series is read with one
+ * grouped query (against the monthly rollups when the range is made of whole months) and
+ * then spread over the buckets in memory, so the number of queries does not depend on how
+ * many buckets are requested.
+ */
+@Service
+public class TrendService {
+
+    /** Upper bound on buckets per request, which keeps a daily range over decades from being built. */
+    public static final int MAX_BUCKETS = 1000;
+
+    public enum Granularity {
+        DAILY, WEEKLY, MONTHLY, QUARTERLY;
+
+        LocalDate bucketStart(LocalDate date) {
+            switch (this) {
+                case WEEKLY: return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTHLY: return date.withDayOfMonth(1);
+                case QUARTERLY: return LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1);
+                default: return date;
+            }
+        }
+
+        LocalDate next(LocalDate bucketStart) {
+            switch (this) {
+                case WEEKLY: return bucketStart.plusWeeks(1);
+                case MONTHLY: return bucketStart.plusMonths(1);
+                case QUARTERLY: return bucketStart.plusMonths(3);
+                default: return bucketStart.plusDays(1);
+            }
+        }
+
+        /** Index of the bucket holding {@code date}, counted from the bucket starting at {@code first}. */
+        int index(LocalDate first, LocalDate date) {
+            switch (this) {
+                case WEEKLY: return (int) (ChronoUnit.DAYS.between(first, date) / 7);
+                case MONTHLY: return monthsBetween(first, date);
+                case QUARTERLY: return monthsBetween(first, date) / 3;
+                default: return (int) ChronoUnit.DAYS.between(first, date);
+            }
+        }
+
+        String label(LocalDate bucketStart) {
+            switch (this) {
+                case MONTHLY: return bucketStart.getYear() + "-" + String.format("%02d", bucketStart.getMonthValue());
+                case QUARTERLY: return bucketStart.getYear() + "-Q" + ((bucketStart.getMonthValue() - 1) / 3 + 1);
+                default: return bucketStart.toString();
+            }
+        }
+
+        private static int monthsBetween(LocalDate first, LocalDate date) {
+            return (date.getYear() - first.getYear()) * 12 + date.getMonthValue() - first.getMonthValue();
+        }
+    }
+
+    @Autowired
+    private AnalyticsRepository analyticsRepo;
+
+    @Autowired
+    private MonthlyRollupRepository rollupRepo;
+
+    @Autowired
+    private LedgerCache ledgers;
+
+    @Autowired
+    private FanOut fanOut;
+
+    public TrendSeries trends(User user, LocalDate start, LocalDate end, Granularity granularity) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        LocalDate first = granularity.bucketStart(start);
+        List<LocalDate> bucketStarts = new ArrayList<>();
+        for (LocalDate b = first; !b.isAfter(end); b = granularity.next(b)) {
+            if (bucketStarts.size() == MAX_BUCKETS) {
+                throw new IllegalArgumentException("Range too large: at most " + MAX_BUCKETS + " buckets per request");
+            }
+            bucketStarts.add(b);
+        }
+
+        TrendSeries series = new TrendSeries(granularity, bucketStarts);
+        Ledger ledger = ledgers.get(user.getId());
+        if (ledger != null) {
+            for (int i = 0; i < bucketStarts.size(); i++) {
+                // The first and last buckets may reach outside the requested range.
+                LocalDate from = bucketStarts.get(i).isBefore(start) ? start : bucketStarts.get(i);
+                LocalDate to = granularity.next(bucketStarts.get(i)).minusDays(1);
+                to = to.isAfter(end) ? end : to;
+                series.getExpenses()[i] = ledger.expenseTotal(from, to);
+                series.getIncomes()[i] = ledger.incomeTotal(from, to);
+            }
+            return series;
+        }
+        // Expenses and incomes are read concurrently.
+        boolean monthBuckets = granularity == Granularity.MONTHLY || granularity == Granularity.QUARTERLY;
+        if (monthBuckets && RollupService.coversWholeMonths(start, end)) {
+            int from = RollupService.period(start);
+            int to = RollupService.period(end);
+            CompletableFuture<List<PeriodTotal>> incomes = fanOut.submit(() -> rollupRepo.sumByPeriod(user.getId(), Kind.INCOME, from, to));
+            spreadPeriods(rollupRepo.sumByPeriod(user.getId(), Kind.EXPENSE, from, to), granularity, first, series.getExpenses());
+            spreadPeriods(FanOut.join(incomes), granularity, first, series.getIncomes());
+        } else if (monthBuckets) {
+            CompletableFuture<List<MonthTotal>> incomes = fanOut.submit(() -> analyticsRepo.sumIncomesByMonth(user, start, end));
+            spreadMonths(analyticsRepo.sumExpensesByMonth(user, start, end), granularity, first, series.getExpenses());
+            spreadMonths(FanOut.join(incomes), granularity, first, series.getIncomes());
+        } else {
+            CompletableFuture<List<DayTotal>> incomes = fanOut.submit(() -> analyticsRepo.sumIncomesByDay(user, start, end));
+            spreadDays(analyticsRepo.sumExpensesByDay(user, start, end), granularity, first, series.getExpenses());
+            spreadDays(FanOut.join(incomes), granularity, first, series.getIncomes());
+        }
+        return series;
+    }
+
+    /** Monthly series for a calendar year, the shape the dashboard's trend chart uses. */
+    public TrendSeries yearlyTrends(User user, int year) {
+        return trends(user, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31), Granularity.MONTHLY);
+    }
+
+    private void spreadDays(List<DayTotal> totals, Granularity granularity, LocalDate first, double[] buckets) {
+        for (DayTotal t : totals) {
+            buckets[granularity.index(first, t.getDate())] += t.getTotal();
+        }
+    }
+
+    private void spreadPeriods(List<PeriodTotal> totals, Granularity granularity, LocalDate first, double[] buckets) {
+        for (PeriodTotal t : totals) {
+            buckets[granularity.index(first, LocalDate.of(t.getPeriod() / 100, t.getPeriod() % 100, 1))] += t.getTotal();
+        }
+    }
+
+    private void spreadMonths(List<MonthTotal> totals, Granularity granularity, LocalDate first, double[] buckets) {
+        for (MonthTotal t : totals) {
+            buckets[granularity.index(first, LocalDate.of(t.getYear(), t.getMonth(), 1))] += t.getTotal();
+        }
+    }
+}
@@ -4,6 +4,11 @@ let categoryChart = null;
 let incomeExpenseChart = null;
 let isEditing = false;
 let editingId = null;
+let expenseCursor = null;
+const EXPENSE_PAGE_SIZE = 50;
+let dashboard = null;
+let streamLive = false;
+let alertOnBudget = false;
 
 if (!localStorage.getItem('token')) {
     window.location.href = 'index.html';
@@ -260,6 +265,12 @@ async function addExpense() {
             throw new Error(`Failed to save expense: ${res.status} ${res.statusText}`);
         }
 
+        if (streamLive) {
+            // The stream brings the row, totals and budget; the update checks the budget.
+            alertOnBudget = true;
+            return;
+        }
+
         // Check if expense exceeds budget after adding/updating
         const month = document.getElementById('monthSelect').value;
         const year = document.getElementById('yearSelect').value;
@@ -276,7 +287,6 @@ async function addExpense() {
 
         loadData();
         updateCharts();
-        loadBudgetSummary();
     } catch (error) {
         console.error('Error saving expense:', error);
         alert('Failed to save expense. Please check your connection and try again.');
@@ -301,7 +311,7 @@ async function addIncome() {
     document.getElementById('incomeAmount').value = '';
     document.getElementById('incomeDesc').value = '';
 
-    updateCharts();
+    if (!streamLive) updateCharts();
 }
 
 function trackMyExpense() {
@@ -310,19 +320,48 @@ function trackMyExpense() {
 
 async function loadData() {
     try {
-        const res = await fetch('/api/expenses', { headers: getHeaders() });
-        if (!res.ok) {
-            if (res.status === 401) {
-                logout();
-                return;
-            }
-            throw new Error(`Failed to load expenses: ${res.status} ${res.statusText}`);
+        const page = await fetchExpensePage(null);
+        if (!page) return;
+        document.querySelector('#expenseTable tbody').innerHTML = renderExpenseRows(page.items);
+        updateLoadMore(page);
+
+        fetchSummary();
+        loadBudget();
+    } catch (error) {
+        console.error('Error loading expenses:', error);
+        alert('Failed to load expenses. Please check your connection and try again.');
+    }
+}
+
+async function loadMoreExpenses() {
+    try {
+        const page = await fetchExpensePage(expenseCursor);
+        if (!page) return;
+        document.querySelector('#expenseTable tbody').insertAdjacentHTML('beforeend', renderExpenseRows(page.items));
+        updateLoadMore(page);
+    } catch (error) {
+        console.error('Error loading expenses:', error);
+        alert('Failed to load expenses. Please check your connection and try again.');
+    }
+}
+
+// Expenses come newest first, one page at a time; the cursor points past the last row shown.
+async function fetchExpensePage(cursor) {
+    const query = cursor ? `?limit=${EXPENSE_PAGE_SIZE}&cursor=${encodeURIComponent(cursor)}` : `?limit=${EXPENSE_PAGE_SIZE}`;
+    const res = await fetch('/api/expenses/page' + query, { headers: getHeaders() });
+    if (!res.ok) {
+        if (res.status === 401) {
+            logout();
+            return null;
         }
-        const expenses = await res.json();
-        const tbody = document.querySelector('#expenseTable tbody');
+        throw new Error(`Failed to load expenses: ${res.status} ${res.statusText}`);
+    }
+    return res.json();
+}
 
-        tbody.innerHTML = expenses.sort((a,b) => new Date(b.date) - new Date(a.date)).map(e => `
-            <tr>
+function renderExpenseRows(expenses) {
+    return expenses.map(e => `
+            <tr data-id="${e.id}" data-date="${e.date}">
                 <td>${e.date}</td>
                 <td>${e.category}</td>
                 <td>$${e.amount}</td>
@@ -333,14 +372,11 @@ async function loadData() {
                 </td>
             </tr>
         `).join('');
+}
 
-        fetchSummary();
-        loadBudget();
-        loadBudgetSummary();
-    } catch (error) {
-        console.error('Error loading expenses:', error);
-        alert('Failed to load expenses. Please check your connection and try again.');
-    }
+function updateLoadMore(page) {
+    expenseCursor = page.nextCursor;
+    document.getElementById('loadMoreExpenses').style.display = page.hasMore ? 'block' : 'none';
 }
 
 async function deleteExpense(id) {
@@ -357,8 +393,10 @@ async function deleteExpense(id) {
             }
             throw new Error(`Failed to delete expense: ${res.status} ${res.statusText}`);
         }
-        loadData();
-        updateCharts();
+        if (!streamLive) {
+            loadData();
+            updateCharts();
+        }
     } catch (error) {
         console.error('Error deleting expense:', error);
         alert('Failed to delete expense. Please check your connection and try again.');
@@ -380,8 +418,10 @@ async function updateBudget() {
     const completion = limit > 0 ? ((total / limit) * 100).toFixed(1) : 0;
 
     alert(`✅ Monthly Budget Updated Successfully!\n\nCurrent Spending: $${total.toFixed(2)} / $${limit} (${completion}% complete)`);
-    loadData();
-    updateCharts();
+    if (!streamLive) {
+        loadData();
+        updateCharts();
+    }
 }
 
 async function loadBudget() {
@@ -392,52 +432,38 @@ async function loadBudget() {
     document.getElementById('displayLimit').innerText = budget.monthlyLimit || 0;
 }
 
-async function loadBudgetSummary() {
-    try {
-        const month = document.getElementById('monthSelect').value;
-        const year = document.getElementById('yearSelect').value;
-        const res = await fetch('/api/budget', { headers: getHeaders() });
-        if (!res.ok) throw new Error('Failed to fetch budget');
-        const budget = await res.json();
-        const summaryRes = await fetch(`/api/expenses/summary?year=${year}&month=${month}`, { headers: getHeaders() });
-        if (!summaryRes.ok) throw new Error('Failed to fetch summary');
-        const summary = await summaryRes.json();
-
-        const totalBudget = budget.monthlyLimit || 0;
-        const spent = summary.totalSpent || 0;
-        const remaining = totalBudget - spent;
-
-        document.getElementById('totalBudget').innerText = '$' + totalBudget.toFixed(2);
-        document.getElementById('budgetSpent').innerText = '$' + spent.toFixed(2);
-        document.getElementById('remainingBudget').innerText = '$' + remaining.toFixed(2);
-
-        // Show alerts
-        const alertsDiv = document.getElementById('alerts');
-        const monthlyAlert = document.getElementById('monthlyAlert');
-        if (remaining < 0 && totalBudget > 0) {
-            monthlyAlert.style.display = 'block';
-            alertsDiv.style.display = 'block';
-        } else {
-            monthlyAlert.style.display = 'none';
-        }
+// Budget summary for the selected month, from the dashboard bundle's budget status and summary.
+function renderBudgetSummary(budget, summary) {
+    const totalBudget = budget.monthly.limit || 0;
+    const spent = summary.totalSpent || 0;
+    const remaining = totalBudget - spent;
+
+    document.getElementById('totalBudget').innerText = '$' + totalBudget.toFixed(2);
+    document.getElementById('budgetSpent').innerText = '$' + spent.toFixed(2);
+    document.getElementById('remainingBudget').innerText = '$' + remaining.toFixed(2);
+
+    // Show alerts
+    const alertsDiv = document.getElementById('alerts');
+    const monthlyAlert = document.getElementById('monthlyAlert');
+    if (remaining < 0 && totalBudget > 0) {
+        monthlyAlert.style.display = 'block';
+        alertsDiv.style.display = 'block';
+    } else {
+        monthlyAlert.style.display = 'none';
+    }
 
-        // Category alerts
-        const categoryAlerts = document.getElementById('categoryAlerts');
-        categoryAlerts.innerHTML = '';
-        const categoryBudgets = budget.categoryLimits || {};
-        for (const [category, limit] of Object.entries(categoryBudgets)) {
-            const spentCat = summary[category] || 0;
-            if (spentCat > limit) {
-                const alertDiv = document.createElement('div');
-                alertDiv.className = 'alert warning';
-                alertDiv.innerText = `${category} category budget exceeded!`;
-                categoryAlerts.appendChild(alertDiv);
-                alertsDiv.style.display = 'block';
-            }
+    // Category alerts
+    const categoryAlerts = document.getElementById('categoryAlerts');
+    categoryAlerts.innerHTML = '';
+    for (const [category, usage] of Object.entries(budget.categories || {})) {
+        const spentCat = summary[category] || 0;
+        if (usage.limit > 0 && spentCat > usage.limit) {
+            const alertDiv = document.createElement('div');
+            alertDiv.className = 'alert warning';
+            alertDiv.innerText = `${category} category budget exceeded!`;
+            categoryAlerts.appendChild(alertDiv);
+            alertsDiv.style.display = 'block';
         }
-    } catch (error) {
-        console.error('Error loading budget summary:', error);
-        alert('Failed to load budget summary. Please check your connection and try again.');
     }
 }
 
@@ -481,8 +507,10 @@ async function updateCategoryBudgets() {
     });
 
     alert(message);
-    loadData();
-    updateCharts();
+    if (!streamLive) {
+        loadData();
+        updateCharts();
+    }
 }
 
 // Initialize charts on load
@@ -505,69 +533,141 @@ async function updateCharts() {
     const year = document.getElementById('yearSelect').value;
 
     try {
-        // Fetch data for Income vs Expenses chart (last 3 months)
-        let incomeExpenseData = [];
-        for (let i = 2; i >= 0; i--) {
-            let m = parseInt(month) - i;
-            let y = parseInt(year);
-            if (m <= 0) {
-                m += 12;
-                y--;
-            }
-            const res = await fetch(`/api/expenses/income-vs-expense?year=${y}&month=${m}`, { headers: getHeaders() });
-            if (res.ok) {
-                const data = await res.json();
-                incomeExpenseData.push(data.expense || 0);
-            } else {
-                incomeExpenseData.push(0);
-            }
-        }
-
-        // Fetch data for Category chart
-        const categoryRes = await fetch(`/api/expenses/category-spending?year=${year}&month=${month}`, { headers: getHeaders() });
-        const categoryData = categoryRes.ok ? await categoryRes.json() : {};
-
-        // Fetch data for Monthly Spending chart (trends)
-        const trendsRes = await fetch(`/api/expenses/trends/${year}`, { headers: getHeaders() });
-        const trendsData = trendsRes.ok ? await trendsRes.json() : { months: [], expenses: [], incomes: [] };
-
-        // Update charts with real data (or empty data if API fails)
-        renderIncomeExpenseChart(incomeExpenseData);
-        renderCategoryChart(categoryData);
-        renderMonthlySpendingChart(trendsData, month);
-
-        // Update budget summary
-        loadBudgetSummary();
-
-        // Load AI tips
-        loadTips();
-
+        // One request for the charts (last 3 months of income vs expenses), budget summary and tips
+        const res = await fetch(`/api/dashboard?year=${year}&month=${month}&months=3`, { headers: getHeaders() });
+        if (res.status === 401) logout();
+        if (!res.ok) throw new Error('Failed to fetch dashboard');
+        dashboard = await res.json();
+        dashboard.year = Number(year);
+        dashboard.month = Number(month);
+        renderDashboard();
     } catch (error) {
+        dashboard = null;
         console.error('Error updating charts:', error);
         // Render charts with empty data on error
         renderIncomeExpenseChart([0, 0, 0]);
         renderCategoryChart({});
         renderMonthlySpendingChart({ months: [], expenses: [], incomes: [] }, month);
+        document.getElementById('tipsList').innerHTML = '<li>Unable to load tips at this time.</li>';
     }
 }
 
-async function loadTips() {
-    try {
-        const res = await fetch('/api/tips', { headers: getHeaders() });
-        if (res.status === 401) logout();
-        if (!res.ok) throw new Error('Failed to fetch tips');
-        const tips = await res.json();
-        const tipsList = document.getElementById('tipsList');
-        tipsList.innerHTML = tips.map(tip => `<li>${tip}</li>`).join('');
-    } catch (error) {
-        console.error('Error loading tips:', error);
-        document.getElementById('tipsList').innerHTML = '<li>Unable to load tips at this time.</li>';
+function renderDashboard() {
+    renderIncomeExpenseChart(dashboard.incomeVsExpense.map(m => m.expense || 0));
+    renderCategoryChart(dashboard.categorySpending);
+    renderMonthlySpendingChart(dashboard.trends, dashboard.month);
+    renderBudgetSummary(dashboard.budget, dashboard.summary);
+    renderTips(dashboard.tips);
+}
+
+// Changes to this user's data, from this tab or any other, pushed as they commit. While the
+// stream is up, writes don't refetch: the page is patched from the updates instead.
+function connectStream() {
+    if (!window.EventSource) return;
+    const source = new EventSource('/api/stream?token=' + encodeURIComponent(localStorage.getItem('token')));
+    let connected = false;
+    source.addEventListener('ready', () => {
+        // Reconnected: whatever changed in between was missed.
+        if (connected) {
+            loadData();
+            updateCharts();
+        }
+        connected = true;
+        streamLive = true;
+    });
+    source.addEventListener('update', event => applyUpdate(JSON.parse(event.data)));
+    source.onerror = () => {
+        streamLive = false;
+    };
+}
+
+function applyUpdate(update) {
+    (update.expenses || []).forEach(applyExpense);
+    // Imported rows are not sent one by one.
+    if (update.imported) loadData();
+
+    if (update.budget) {
+        renderBudget(update.budget);
+        if (dashboard) dashboard.budget = update.budget;
+    }
+    for (const [period, categories] of Object.entries(update.categoryTotals || {})) {
+        applyMonth(period, { categories, expense: Object.values(categories).reduce((a, b) => a + b, 0) });
+    }
+    for (const [period, income] of Object.entries(update.incomeTotals || {})) {
+        applyMonth(period, { income });
+    }
+    if (!dashboard) return;
+    if (update.tips) dashboard.tips = update.tips;
+    const monthlyLimit = dashboard.budget.monthly.limit || 0;
+    dashboard.summary.budgetExceeded = monthlyLimit > 0 && (dashboard.summary.totalSpent || 0) > monthlyLimit;
+    renderDashboard();
+
+    if (alertOnBudget && dashboard.summary.budgetExceeded) {
+        alert(`⚠️ Budget Exceeded! You have spent $${dashboard.summary.totalSpent.toFixed(2)} out of your monthly limit.`);
+    }
+    alertOnBudget = false;
+}
+
+// Expenses are listed newest first (date, then id); rows past the loaded pages come with "Load more".
+function applyExpense(expense) {
+    const tbody = document.querySelector('#expenseTable tbody');
+    const row = tbody.querySelector(`tr[data-id="${expense.id}"]`);
+    if (row) row.remove();
+    if (expense.deleted) return;
+    const html = renderExpenseRows([expense]);
+    const next = Array.from(tbody.rows).find(r => r.dataset.date < expense.date
+        || (r.dataset.date === expense.date && Number(r.dataset.id) < expense.id));
+    if (next) {
+        next.insertAdjacentHTML('beforebegin', html);
+    } else if (document.getElementById('loadMoreExpenses').style.display === 'none') {
+        tbody.insertAdjacentHTML('beforeend', html);
+    }
+}
+
+// Applies new totals of one month ("YYYYMM"): its expenses by category and their sum, or its income.
+function applyMonth(period, month) {
+    if (!dashboard) return;
+    const year = Number(period.slice(0, 4));
+    const monthOfYear = Number(period.slice(4));
+
+    if (dashboard.year === year && dashboard.month === monthOfYear && month.categories) {
+        dashboard.categorySpending = month.categories;
+        dashboard.summary = { ...month.categories, totalSpent: month.expense };
+    }
+    if (dashboard.year === year) {
+        if (month.expense !== undefined) dashboard.trends.expenses[monthOfYear - 1] = month.expense;
+        if (month.income !== undefined) dashboard.trends.incomes[monthOfYear - 1] = month.income;
+    }
+    for (const entry of dashboard.incomeVsExpense) {
+        if (entry.year === year && entry.month === monthOfYear) Object.assign(entry, {
+            ...(month.expense !== undefined && { expense: month.expense }),
+            ...(month.income !== undefined && { income: month.income })
+        });
     }
 }
 
+// Limits from a pushed budget status; inputs being edited are left alone.
+function renderBudget(budget) {
+    const inputs = { monthlyLimit: budget.monthly.limit || 0 };
+    for (const category of ['FOOD', 'RENT', 'TRAVEL', 'SHOPPING', 'UTILITIES']) {
+        const usage = (budget.categories || {})[category];
+        inputs[category.toLowerCase() + 'Budget'] = usage ? usage.limit : 0;
+    }
+    for (const [id, value] of Object.entries(inputs)) {
+        const input = document.getElementById(id);
+        if (input !== document.activeElement) input.value = value;
+    }
+}
+
+function renderTips(tips) {
+    const tipsList = document.getElementById('tipsList');
+    tipsList.innerHTML = tips.map(tip => `<li>${tip}</li>`).join('');
+}
+
 // Initial Load
 document.getElementById('date').valueAsDate = new Date();
 loadData();
+connectStream();
 
 async function downloadExpenses() {
     try {
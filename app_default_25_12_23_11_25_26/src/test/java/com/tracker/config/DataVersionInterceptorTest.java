@@ -0,0 +1,126 @@
+package com.tracker.config;
+
+import com.jayway.jsonpath.JsonPath;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:web-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@AutoConfigureMockMvc
+class DataVersionInterceptorTest {
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void answersAnUnchangedResourceWith304() throws Exception {
+        String auth = auth(user("etag-unchanged"));
+        String etag = etag(auth, "/api/expenses");
+
+        mvc.perform(get("/api/expenses").header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        // Reads do not move the version, and the other endpoints share it.
+        assertEquals(etag, etag(auth, "/api/expenses"));
+        mvc.perform(get("/api/budget").header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void changesTheETagAfterEveryWrite() throws Exception {
+        String auth = auth(user("etag-writes"));
+        String before = etag(auth, "/api/expenses");
+
+        String body = mvc.perform(post("/api/expenses").header("Authorization", auth)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\":\"2025-06-01\",\"category\":\"FOOD\",\"amount\":5}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String afterAdd = fetchedAgain(auth, before);
+
+        mvc.perform(post("/api/budget/categories").header("Authorization", auth)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"FOOD\":50}"))
+                .andExpect(status().isOk());
+        String afterBudget = fetchedAgain(auth, afterAdd);
+
+        Number id = JsonPath.read(body, "$.id");
+        mvc.perform(delete("/api/expenses/" + id).header("Authorization", auth))
+                .andExpect(status().is2xxSuccessful());
+        String afterDelete = fetchedAgain(auth, afterBudget);
+
+        assertNotEquals(before, afterDelete);
+        mvc.perform(get("/api/expenses").header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, afterDelete))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void keepsTheETagWhenAnotherUserWrites() throws Exception {
+        String auth = auth(user("etag-bystander"));
+        String other = auth(user("etag-writer"));
+        String etag = etag(auth, "/api/expenses");
+
+        mvc.perform(post("/api/expenses").header("Authorization", other)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\":\"2025-06-01\",\"category\":\"FOOD\",\"amount\":5}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/expenses").header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    /** Revalidates with the old ETag, expects the full response, and returns its new ETag. */
+    private String fetchedAgain(String auth, String oldEtag) throws Exception {
+        String etag = mvc.perform(get("/api/expenses").header("Authorization", auth)
+                        .header(HttpHeaders.IF_NONE_MATCH, oldEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(oldEtag, etag);
+        return etag;
+    }
+
+    private String etag(String auth, String path) throws Exception {
+        return mvc.perform(get(path).header("Authorization", auth))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private String auth(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        return "Bearer " + jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
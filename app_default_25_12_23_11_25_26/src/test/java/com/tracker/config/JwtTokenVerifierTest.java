@@ -0,0 +1,108 @@
+package com.tracker.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtTokenVerifierTest {
+
+    private static final String SECRET = "a-test-secret-that-is-long-enough-for-hmac-sha-256";
+    private static final String OTHER_SECRET = "another-test-secret-long-enough-for-hmac-sha-256!";
+
+    @Test
+    void rejectsAnExpiredTokenWhoseHashIsStillCached() throws InterruptedException {
+        JwtUtils jwtUtils = new JwtUtils(SECRET, 1500);
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtUtils, 100);
+        String token = token(jwtUtils, "alice");
+
+        assertEquals("alice", verifier.verify(token));
+        assertEquals(1, cached(verifier));
+        // Served from the cache now: the entry alone decides.
+        assertEquals("alice", verifier.verify(token));
+
+        // JWT expiry has whole seconds, so the token may lapse before the 1.5 s are up, never after.
+        Thread.sleep(1600);
+
+        assertNull(verifier.verify(token));
+        assertNull(verifier.verify(token));
+        assertEquals(0, cached(verifier));
+    }
+
+    @Test
+    void neverCachesATokenWithAForgedSignature() {
+        JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000);
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtUtils, 100);
+        String genuine = token(jwtUtils, "alice");
+        assertEquals("alice", verifier.verify(genuine));
+
+        String otherKey = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(OTHER_SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        String header = genuine.substring(0, genuine.indexOf('.'));
+        String payload = genuine.substring(genuine.indexOf('.') + 1, genuine.lastIndexOf('.'));
+        String signature = genuine.substring(genuine.lastIndexOf('.') + 1);
+        String otherPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"mallory\",\"exp\":9999999999}".getBytes(StandardCharsets.UTF_8));
+        String unsigned = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "." + payload + ".";
+
+        List<String> forged = List.of(
+                otherKey,
+                header + "." + otherPayload + "." + signature,
+                header + "." + payload + "." + flipFirst(signature),
+                unsigned);
+        for (String token : forged) {
+            assertNull(verifier.verify(token), token);
+            assertNull(verifier.verify(token), token);
+        }
+        assertEquals(1, cached(verifier));
+        assertEquals("alice", verifier.verify(genuine));
+    }
+
+    @Test
+    void rejectsMalformedTokensWithoutCachingThem() {
+        JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000);
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtUtils, 100);
+
+        for (String token : List.of("", "not-a-token", "a.b.c", "..")) {
+            assertNull(verifier.verify(token), token);
+        }
+        assertEquals(0, cached(verifier));
+    }
+
+    private static String token(JwtUtils jwtUtils, String username) {
+        UserDetails principal = User.withUsername(username).password("-").authorities(List.of()).build();
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static String flipFirst(String signature) {
+        char first = signature.charAt(0);
+        return (first == 'A' ? 'B' : 'A') + signature.substring(1);
+    }
+
+    private static Cache<?, ?> cache(JwtTokenVerifier verifier) {
+        return (Cache<?, ?>) ReflectionTestUtils.getField(verifier, "cache");
+    }
+
+    private static long cached(JwtTokenVerifier verifier) {
+        Cache<?, ?> cache = cache(verifier);
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+}
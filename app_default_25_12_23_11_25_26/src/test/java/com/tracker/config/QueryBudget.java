@@ -0,0 +1,30 @@
+package com.tracker.config;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Query-count assertions for code called directly in the application context, e.g.
+ * {@code QueryBudget.atMost(3, "getMonthlyTrends", () -> controller.getMonthlyTrends(2025, user))}.
+ * Needs the counting DataSource ({@code tracker.sql.count-header=true}); statements run on
+ * the task executor on the call's behalf are included.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /** Runs {@code call} and throws AssertionError if it sent more than {@code statements} SQL statements. */
+    public static <T> T atMost(int statements, String name, Callable<T> call) throws Exception {
+        if (!SqlStatements.installed()) {
+            throw new IllegalStateException("SQL statement counting is off; set tracker.sql.count-header=true");
+        }
+        try (SqlStatements.Scope scope = SqlStatements.open()) {
+            T result = call.call();
+            if (scope.count() > statements) {
+                throw new AssertionError(name + " sent " + scope.count() + " SQL statements, more than its budget of "
+                        + statements);
+            }
+            return result;
+        }
+    }
+}
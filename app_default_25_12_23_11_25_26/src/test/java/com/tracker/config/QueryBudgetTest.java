@@ -0,0 +1,128 @@
+package com.tracker.config;
+
+import com.tracker.controller.ExpenseController;
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import com.tracker.service.BudgetService;
+import com.tracker.service.DashboardService;
+import com.tracker.service.ExpenseService;
+import com.tracker.service.IncomeService;
+import com.tracker.service.SyncLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The statement budgets of the main read paths, the same ones the load test checks before its run. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget-test",
+        "tracker.sql.count-header=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class QueryBudgetTest {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 30);
+
+    @Autowired
+    private ExpenseController expenses;
+
+    @Autowired
+    private DashboardService dashboard;
+
+    @Autowired
+    private SyncLog syncLog;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private IncomeService incomeService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void keepsTheReadPathsWithinTheirBudgets() throws Exception {
+        User user = seeded("query-budget-reads");
+        // Starts the user's change log outside the budget.
+        syncLog.changes(user, 0, 1, null);
+        signIn(user);
+
+        // Once with a cold ledger, once warm.
+        for (int pass = 0; pass < 2; pass++) {
+            Map<String, Object> trends = QueryBudget.atMost(3, "getMonthlyTrends",
+                    () -> expenses.getMonthlyTrends(END.getYear(), user));
+            assertEquals(12, ((List<?>) trends.get("months")).size());
+            QueryBudget.atMost(5, "getSummary",
+                    () -> expenses.getSummary(END.getYear(), END.getMonthValue(), user));
+            QueryBudget.atMost(8, "dashboard",
+                    () -> dashboard.load(user, END.getYear(), END.getMonthValue(), DashboardService.DEFAULT_MONTHS));
+            QueryBudget.atMost(4, "sync", () -> syncLog.changes(user, 0, SyncLog.MAX_LIMIT, null));
+        }
+    }
+
+    @Test
+    void failsACallOverItsBudget() {
+        User user = seeded("query-budget-over");
+        signIn(user);
+
+        AssertionError error = assertThrows(AssertionError.class,
+                () -> QueryBudget.atMost(0, "getSummary",
+                        () -> expenses.getSummary(END.getYear(), END.getMonthValue(), user)));
+        assertTrue(error.getMessage().startsWith("getSummary sent "), error.getMessage());
+    }
+
+    /** Six months of expenses and incomes, and a budget with category limits. */
+    private User seeded(String name) {
+        User user = userRepo.save(new User(null, name, "-"));
+        Category[] categories = Category.values();
+        for (int m = 0; m < 6; m++) {
+            LocalDate month = END.withDayOfMonth(1).minusMonths(m);
+            for (int i = 0; i < 8; i++) {
+                Expense expense = new Expense();
+                expense.setDate(month.plusDays(i * 3));
+                expense.setCategory(categories[i % categories.length]);
+                expense.setAmount(10.0 + i);
+                expenseService.add(user, expense);
+            }
+            Income income = new Income();
+            income.setDate(month);
+            income.setAmount(3000.0);
+            incomeService.add(user, income);
+        }
+        Budget budget = new Budget();
+        budget.setDailyLimit(50.0);
+        budget.setMonthlyLimit(1500.0);
+        budget.setCategoryLimits(Map.of(Category.FOOD, 300.0, Category.RENT, 900.0));
+        budgetService.update(user, budget);
+        return user;
+    }
+
+    private static void signIn(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
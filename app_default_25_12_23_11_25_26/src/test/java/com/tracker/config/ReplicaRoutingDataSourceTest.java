@@ -0,0 +1,183 @@
+package com.tracker.config;
+
+import com.tracker.model.User;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routing between two H2 databases. Each one names itself in a {@code whoami} table, and
+ * the test plays the replication: the replica's heartbeat stamp is set by hand to make it
+ * current or lagging.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration READ_YOUR_WRITES = Duration.ofMillis(600);
+    private static final Duration HEALTH_INTERVAL = Duration.ofMillis(100);
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReadReplicas replicas;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate reads;
+    private TransactionTemplate writes;
+
+    @BeforeEach
+    void start() {
+        String run = UUID.randomUUID().toString();
+        primary = pool("primary", "jdbc:h2:mem:primary-" + run + ";DB_CLOSE_DELAY=-1", 2);
+        replica = pool("replica-1", "jdbc:h2:mem:replica-" + run + ";DB_CLOSE_DELAY=-1", 1);
+        for (HikariDataSource db : List.of(primary, replica)) {
+            new JdbcTemplate(db).execute("create table whoami (name varchar(20))");
+            new JdbcTemplate(db).update("insert into whoami values (?)", db.getPoolName());
+        }
+        new JdbcTemplate(replica).execute("create table " + ReadReplicas.HEARTBEAT
+                + " (id int primary key, millis bigint not null)");
+        replicaStamp(Long.MAX_VALUE / 2);
+
+        replicas = new ReadReplicas(primary, List.of(replica), READ_YOUR_WRITES, HEALTH_INTERVAL,
+                new SimpleMeterRegistry());
+        routing = new ReplicaRoutingDataSource(replicas, new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactions = new DataSourceTransactionManager(dataSource);
+        reads = new TransactionTemplate(transactions);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactions);
+        awaitUp(true);
+    }
+
+    @AfterEach
+    void stop() {
+        SecurityContextHolder.clearContext();
+        replicas.close();
+    }
+
+    @Test
+    void sendsReadOnlyTransactionsToTheReplicaAndTheRestToThePrimary() {
+        signIn(1L);
+
+        assertEquals("replica-1", reads.execute(status -> whoami()));
+        assertEquals("primary", writes.execute(status -> whoami()));
+        assertEquals("primary", whoami());
+    }
+
+    @Test
+    void keepsReadsWithoutAUserOnThePrimary() {
+        assertEquals("primary", reads.execute(status -> whoami()));
+    }
+
+    @Test
+    void keepsAWritersReadsOnThePrimaryForTheWindow() throws InterruptedException {
+        signIn(2L);
+        writes.executeWithoutResult(status -> jdbc.update("update whoami set name = name"));
+
+        assertEquals("primary", reads.execute(status -> whoami()));
+        signIn(3L);
+        assertEquals("replica-1", reads.execute(status -> whoami()));
+
+        Thread.sleep(READ_YOUR_WRITES.toMillis() + 200);
+        signIn(2L);
+        assertEquals("replica-1", reads.execute(status -> whoami()));
+    }
+
+    @Test
+    void takesALaggingReplicaOutOfRotationUntilItCatchesUp() {
+        signIn(4L);
+        replicaStamp(System.currentTimeMillis() - 60_000);
+        awaitUp(false);
+        assertEquals("primary", reads.execute(status -> whoami()));
+
+        replicaStamp(Long.MAX_VALUE / 2);
+        awaitUp(true);
+        assertEquals("replica-1", reads.execute(status -> whoami()));
+    }
+
+    @Test
+    void takesAFailingReplicaOutOfRotationUntilItAnswersAgain() throws SQLException {
+        signIn(5L);
+        // Holding the replica's only connection makes every other request for one time out.
+        try (Connection held = replica.getConnection()) {
+            assertEquals("primary", reads.execute(status -> whoami()));
+            assertFalse(replicas.named("replica-1").up);
+            assertEquals("primary", reads.execute(status -> whoami()));
+        }
+        awaitUp(true);
+        assertEquals("replica-1", reads.execute(status -> whoami()));
+    }
+
+    @Test
+    void passesCredentialsToTheTarget() {
+        // The pools take their credentials from their configuration, and say so.
+        assertThrows(SQLFeatureNotSupportedException.class, () -> routing.getConnection("sa", ""));
+        signIn(6L);
+        reads.executeWithoutResult(status ->
+                assertThrows(SQLFeatureNotSupportedException.class, () -> routing.getConnection("sa", "")));
+        // Not a failure of the replica.
+        assertTrue(replicas.named("replica-1").up);
+    }
+
+    private String whoami() {
+        return jdbc.queryForObject("select name from whoami", String.class);
+    }
+
+    private void replicaStamp(long millis) {
+        JdbcTemplate db = new JdbcTemplate(replica);
+        if (db.update("update " + ReadReplicas.HEARTBEAT + " set millis = ? where id = 1", millis) == 0) {
+            db.update("insert into " + ReadReplicas.HEARTBEAT + " (id, millis) values (1, ?)", millis);
+        }
+    }
+
+    private void awaitUp(boolean up) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (replicas.named("replica-1").up != up) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("replica-1 never " + (up ? "joined" : "left") + " the rotation");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static void signIn(Long userId) {
+        AuthenticatedUser principal = new AuthenticatedUser(new User(userId, "user-" + userId, "-"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static HikariDataSource pool(String name, String url, int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        pool.setPassword("");
+        pool.setMaximumPoolSize(size);
+        pool.setConnectionTimeout(250);
+        return pool;
+    }
+}
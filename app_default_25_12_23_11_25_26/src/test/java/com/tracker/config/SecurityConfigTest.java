@@ -0,0 +1,51 @@
+package com.tracker.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:web-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    private static final List<String> LOCAL_ONLY = List.of(
+            "/actuator/metrics", "/actuator/metrics/jvm.memory.used", "/actuator/prometheus", "/actuator/shards");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void refusesDeploymentEndpointsToRemoteClients() throws Exception {
+        for (String path : LOCAL_ONLY) {
+            mvc.perform(get(path).with(from("10.1.2.3"))).andExpect(status().isForbidden());
+            mvc.perform(get(path).with(from("::ffff:10.1.2.3"))).andExpect(status().isForbidden());
+        }
+        mvc.perform(get("/actuator/health").with(from("10.1.2.3"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void servesMetricsToLocalClients() throws Exception {
+        mvc.perform(get("/actuator/metrics").with(from("127.0.0.1"))).andExpect(status().isOk());
+        mvc.perform(get("/actuator/metrics/jvm.memory.used").with(from("::1"))).andExpect(status().isOk());
+        // Tests run without metrics export, so there is no scrape endpoint to reach here.
+        mvc.perform(get("/actuator/prometheus").with(from("127.0.0.1"))).andExpect(status().isNotFound());
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
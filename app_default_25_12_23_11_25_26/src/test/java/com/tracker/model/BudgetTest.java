@@ -0,0 +1,104 @@
+package com.tracker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BudgetTest {
+
+    @Test
+    void startsWithoutCategoryLimits() {
+        Budget budget = new Budget();
+        assertNull(budget.getPackedCategoryLimits());
+        assertTrue(budget.getCategoryLimits().isEmpty());
+    }
+
+    @Test
+    void roundTripsLimitsThroughOneSlotPerCategory() {
+        Map<Category, Double> limits = new EnumMap<>(Category.class);
+        limits.put(Category.FOOD, 200.0);
+        limits.put(Category.TRAVEL, 0.0);
+        limits.put(Category.UTILITIES, 50.5);
+        Budget budget = new Budget();
+
+        budget.setCategoryLimits(limits);
+
+        assertEquals("200.0;;0.0;;50.5", budget.getPackedCategoryLimits());
+        assertEquals(limits, budget.getCategoryLimits());
+    }
+
+    @Test
+    void dropsTrailingEmptySlots() {
+        Budget budget = new Budget();
+
+        budget.setCategoryLimits(Map.of(Category.RENT, 10));
+        assertEquals(";10.0", budget.getPackedCategoryLimits());
+        assertEquals(Map.of(Category.RENT, 10.0), budget.getCategoryLimits());
+
+        Map<Category, Double> removed = new HashMap<>();
+        removed.put(Category.RENT, null);
+        budget.setCategoryLimits(removed);
+        assertNull(budget.getPackedCategoryLimits());
+        assertTrue(budget.getCategoryLimits().isEmpty());
+    }
+
+    @Test
+    void packsTheSameLimitsTheSameWayWhateverTheKeysOrOrder() {
+        Map<String, Double> named = new LinkedHashMap<>();
+        named.put("shopping", 30.0);
+        named.put(" Food ", 12.25);
+        Map<Category, Double> enumKeyed = new LinkedHashMap<>();
+        enumKeyed.put(Category.FOOD, 12.25);
+        enumKeyed.put(Category.SHOPPING, 30.0);
+        Budget a = new Budget();
+        Budget b = new Budget();
+
+        a.setCategoryLimits(named);
+        b.setCategoryLimits(enumKeyed);
+
+        assertEquals("12.25;;;30.0", a.getPackedCategoryLimits());
+        assertEquals(a.getPackedCategoryLimits(), b.getPackedCategoryLimits());
+    }
+
+    @Test
+    void replacesRatherThanMerges() {
+        Budget budget = new Budget();
+        budget.setCategoryLimits(Map.of(Category.FOOD, 1.0, Category.RENT, 2.0));
+
+        budget.setCategoryLimits(Map.of(Category.TRAVEL, 3.0));
+
+        assertEquals(Map.of(Category.TRAVEL, 3.0), budget.getCategoryLimits());
+    }
+
+    @Test
+    void handsOutACopy() {
+        Budget budget = new Budget();
+        budget.setCategoryLimits(Map.of(Category.FOOD, 1.0));
+
+        budget.getCategoryLimits().put(Category.RENT, 2.0);
+
+        assertEquals("1.0", budget.getPackedCategoryLimits());
+    }
+
+    @Test
+    void rejectsUnknownCategoriesAndBadLimitsWithoutChangingAnything() {
+        Budget budget = new Budget();
+        budget.setCategoryLimits(Map.of(Category.FOOD, 1.0));
+
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> budget.setCategoryLimits(Map.of("SNACKS", 1.0)));
+        assertEquals("unknown category: SNACKS", unknown.getMessage());
+        for (double bad : new double[] {-1, Double.NaN, Double.POSITIVE_INFINITY}) {
+            assertThrows(IllegalArgumentException.class, () -> budget.setCategoryLimits(Map.of(Category.RENT, bad)));
+        }
+        assertEquals("1.0", budget.getPackedCategoryLimits());
+    }
+}
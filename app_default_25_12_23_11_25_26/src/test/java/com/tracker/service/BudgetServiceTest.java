@@ -0,0 +1,100 @@
+package com.tracker.service;
+
+import com.tracker.event.BudgetChangedEvent;
+import com.tracker.model.Budget;
+import com.tracker.model.User;
+import com.tracker.repository.BudgetRepository;
+import com.tracker.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@RecordApplicationEvents
+class BudgetServiceTest {
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private BudgetRepository budgetRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void skipsAnUpdateThatChangesNoLimit() {
+        User user = user("budget-unchanged");
+        budgetService.update(user, budget(20.0, 500.0, Map.of("FOOD", 100.0, "RENT", 400.0)));
+        assertEquals(1, changes());
+
+        long updates = statistics().getEntityUpdateCount();
+        Map<String, Double> reordered = new LinkedHashMap<>();
+        reordered.put("rent", 400.0);
+        reordered.put("Food", 100.0);
+        budgetService.update(user, budget(20.0, 500.0, reordered));
+        budgetService.setCategoryLimits(user, reordered);
+        // No category limits in the body keeps the stored ones.
+        budgetService.update(user, budget(20.0, 500.0, null));
+
+        assertEquals(updates, statistics().getEntityUpdateCount());
+        assertEquals(1, changes());
+    }
+
+    @Test
+    void savesAndAnnouncesAChangedLimit() {
+        User user = user("budget-changed");
+        budgetService.update(user, budget(20.0, 500.0, Map.of("FOOD", 100.0)));
+
+        long updates = statistics().getEntityUpdateCount();
+        budgetService.setCategoryLimits(user, Map.of("FOOD", 100.5));
+        budgetService.update(user, budget(25.0, 500.0, null));
+
+        assertEquals(updates + 2, statistics().getEntityUpdateCount());
+        assertEquals(3, changes());
+        Budget stored = budgetRepo.findByUser(user).orElseThrow();
+        assertEquals("100.5", stored.getPackedCategoryLimits());
+        assertEquals(25.0, stored.getDailyLimit());
+    }
+
+    private long changes() {
+        return events.stream(BudgetChangedEvent.class).count();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private static Budget budget(Double daily, Double monthly, Map<String, Double> categoryLimits) {
+        Budget budget = new Budget();
+        budget.setDailyLimit(daily);
+        budget.setMonthlyLimit(monthly);
+        if (categoryLimits != null) {
+            budget.setCategoryLimits(categoryLimits);
+        }
+        return budget;
+    }
+}
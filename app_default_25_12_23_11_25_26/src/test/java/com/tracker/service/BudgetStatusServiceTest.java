@@ -0,0 +1,159 @@
+package com.tracker.service;
+
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class BudgetStatusServiceTest {
+
+    private static final LocalDate MAR_10 = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private BudgetStatusService budgetStatus;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void measuresTheDayTheMonthAndEachCategory() {
+        User user = user("budget-status-usage");
+        budgetService.update(user, budget(50.0, 1000.0, Map.of("FOOD", 200.0, "RENT", 800.0)));
+        expenseService.add(user, expense(MAR_10, Category.FOOD, 20));
+        expenseService.add(user, expense(MAR_10, Category.TRAVEL, 10.5));
+        expenseService.add(user, expense(LocalDate.of(2025, 3, 1), Category.RENT, 900));
+        expenseService.add(user, expense(LocalDate.of(2025, 3, 31), Category.FOOD, 110.5));
+        // Other months count for neither the day nor the month.
+        expenseService.add(user, expense(LocalDate.of(2025, 2, 28), Category.FOOD, 999));
+        expenseService.add(user, expense(LocalDate.of(2025, 4, 10), Category.FOOD, 999));
+
+        BudgetStatusService.BudgetStatus status = budgetStatus.status(user, MAR_10);
+
+        assertEquals(202503, status.getPeriod());
+        assertUsage(status.getDaily(), 50, 30.5, 61.0, 19.5, false);
+        assertUsage(status.getMonthly(), 1000, 1041, 104.1, 0.0, true);
+        assertEquals(Set.of("FOOD", "RENT"), status.getCategories().keySet());
+        assertUsage(status.getCategories().get("FOOD"), 200, 130.5, 65.3, 69.5, false);
+        assertUsage(status.getCategories().get("RENT"), 800, 900, 112.5, 0.0, true);
+        assertTrue(status.isAnyExceeded());
+        assertTrue(budgetStatus.monthlyLimitExceeded(user, 202503));
+        assertFalse(budgetStatus.monthlyLimitExceeded(user, 202502));
+    }
+
+    @Test
+    void followsWritesToTheDay() {
+        User user = user("budget-status-writes");
+        budgetService.update(user, budget(25.0, 0.0, Map.of("FOOD", 25.0)));
+        Expense lunch = expenseService.add(user, expense(MAR_10, Category.FOOD, 20));
+        assertFalse(budgetStatus.status(user, MAR_10).isAnyExceeded());
+
+        expenseService.update(user, lunch.getId(), expense(MAR_10, Category.FOOD, 30));
+        BudgetStatusService.BudgetStatus over = budgetStatus.status(user, MAR_10);
+        assertUsage(over.getDaily(), 25, 30, 120.0, 0.0, true);
+        assertUsage(over.getCategories().get("FOOD"), 25, 30, 120.0, 0.0, true);
+
+        expenseService.update(user, lunch.getId(), expense(LocalDate.of(2025, 3, 11), Category.FOOD, 30));
+        BudgetStatusService.BudgetStatus moved = budgetStatus.status(user, MAR_10);
+        assertUsage(moved.getDaily(), 25, 0, 0.0, 25.0, false);
+        assertTrue(moved.getCategories().get("FOOD").isExceeded());
+    }
+
+    @Test
+    void treatsALimitOfZeroAsNoLimit() {
+        User user = user("budget-status-no-limit");
+        budgetService.update(user, budget(0.0, null, Map.of("FOOD", 0.0)));
+        expenseService.add(user, expense(MAR_10, Category.FOOD, 5000));
+
+        BudgetStatusService.BudgetStatus status = budgetStatus.status(user, MAR_10);
+
+        assertUsage(status.getDaily(), 0, 5000, null, null, false);
+        assertUsage(status.getMonthly(), 0, 5000, null, null, false);
+        assertUsage(status.getCategories().get("FOOD"), 0, 5000, null, null, false);
+        assertFalse(status.isAnyExceeded());
+        assertFalse(budgetStatus.monthlyLimitExceeded(user, 202503));
+    }
+
+    @Test
+    void treatsAUserWithoutABudgetAsUnlimited() {
+        User user = user("budget-status-no-budget");
+        expenseService.add(user, expense(MAR_10, Category.RENT, 700));
+
+        BudgetStatusService.BudgetStatus status = budgetStatus.status(user, MAR_10);
+
+        assertUsage(status.getDaily(), 0, 700, null, null, false);
+        assertUsage(status.getMonthly(), 0, 700, null, null, false);
+        assertTrue(status.getCategories().isEmpty());
+        assertFalse(budgetStatus.monthlyLimitExceeded(user, 202503));
+    }
+
+    @Test
+    void evaluatesSpendTheCallerAlreadyHas() {
+        Budget budget = budget(10.0, 100.0, Map.of("SHOPPING", 40.0));
+
+        BudgetStatusService.BudgetStatus status = budgetStatus.evaluate(budget, MAR_10, 10,
+                Map.of("SHOPPING", 40.0, "FOOD", 60.0));
+
+        // Exactly at a limit is not over it.
+        assertUsage(status.getDaily(), 10, 10, 100.0, 0.0, false);
+        assertUsage(status.getMonthly(), 100, 100, 100.0, 0.0, false);
+        assertUsage(status.getCategories().get("SHOPPING"), 40, 40, 100.0, 0.0, false);
+        assertFalse(status.isAnyExceeded());
+    }
+
+    private static void assertUsage(BudgetStatusService.Usage usage, double limit, double spent,
+                                    Double utilization, Double remaining, boolean exceeded) {
+        assertEquals(limit, usage.getLimit(), 1e-9);
+        assertEquals(spent, usage.getSpent(), 1e-9);
+        if (utilization == null) {
+            assertNull(usage.getUtilization());
+            assertNull(usage.getRemaining());
+        } else {
+            assertEquals(utilization, usage.getUtilization());
+            assertEquals(remaining, usage.getRemaining(), 1e-9);
+        }
+        assertEquals(exceeded, usage.isExceeded());
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private static Budget budget(Double daily, Double monthly, Map<String, Double> categoryLimits) {
+        Budget budget = new Budget();
+        budget.setDailyLimit(daily);
+        budget.setMonthlyLimit(monthly);
+        budget.setCategoryLimits(categoryLimits);
+        return budget;
+    }
+
+    private static Expense expense(LocalDate date, Category category, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setCategory(category);
+        expense.setAmount(amount);
+        return expense;
+    }
+}
@@ -0,0 +1,55 @@
+package com.tracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void readsPlainAndEmptyFields() throws IOException {
+        CsvRecordReader reader = reader("a,b,c\n1,,3\n,,\n");
+        assertEquals(List.of("a", "b", "c"), reader.next());
+        assertEquals(List.of("1", "", "3"), reader.next());
+        assertEquals(List.of("", "", ""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void keepsCommasQuotesAndLineBreaksInQuotedFields() throws IOException {
+        CsvRecordReader reader = reader("\"a, b\",\"say \"\"hi\"\"\",\"two\nlines\",\"\"\r\nnext,\"\"\"\"\n");
+        assertEquals(List.of("a, b", "say \"hi\"", "two\nlines", ""), reader.next());
+        assertEquals(1, reader.recordLine());
+        assertEquals(List.of("next", "\""), reader.next());
+        assertEquals(3, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void acceptsCrLfAndBareCrAndSkipsBlankLines() throws IOException {
+        CsvRecordReader reader = reader("a,b\r\n\r\n\nc,d\re,f");
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertEquals(List.of("e", "f"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuotedField() throws IOException {
+        CsvRecordReader reader = reader("ok\n\"never\nclosed");
+        assertEquals(List.of("ok"), reader.next());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals("Unterminated quoted field starting on line 2", e.getMessage());
+    }
+
+    private static CsvRecordReader reader(String text) {
+        return new CsvRecordReader(new StringReader(text));
+    }
+}
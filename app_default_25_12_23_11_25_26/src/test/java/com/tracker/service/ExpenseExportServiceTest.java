@@ -0,0 +1,184 @@
+package com.tracker.service;
+
+import com.tracker.config.AuthenticatedUser;
+import com.tracker.config.JwtUtils;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:web-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@AutoConfigureMockMvc
+class ExpenseExportServiceTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void quotesDescriptionsSoTheyReadBackUnchanged() throws Exception {
+        User user = user("export-quoting");
+        List<String> descriptions = List.of("plain", "a, b", "say \"hi\"", "two\nlines", "cr\r\nlf", "\"", ",", "");
+        for (int i = 0; i < descriptions.size(); i++) {
+            expenseService.add(user, expense(LocalDate.of(2025, 6, 1 + i), Category.FOOD, 1, descriptions.get(i)));
+        }
+
+        String csv = new String(download(user, ""), StandardCharsets.UTF_8);
+
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        assertEquals(List.of("Date", "Category", "Amount", "Description"), reader.next());
+        List<String> read = new ArrayList<>();
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            assertEquals(4, record.size());
+            read.add(record.get(3));
+        }
+        // Newest first.
+        List<String> expected = new ArrayList<>(descriptions);
+        Collections.reverse(expected);
+        assertEquals(expected, read);
+        assertEquals(List.of("2025-06-03,FOOD,1.00,\"say \"\"hi\"\"\"", "2025-06-02,FOOD,1.00,\"a, b\""),
+                csv.lines().filter(l -> l.startsWith("2025-06-03") || l.startsWith("2025-06-02")).toList());
+    }
+
+    @Test
+    void writesAmountsAsCents() throws Exception {
+        User user = user("export-cents");
+        double[] amounts = {12.5, 0.07, 1234.999, 0.1 + 0.2, 1_000_000, 0.004};
+        for (int i = 0; i < amounts.length; i++) {
+            expenseService.add(user, expense(LocalDate.of(2025, 6, 10 - i), Category.RENT, amounts[i], null));
+        }
+
+        String csv = new String(download(user, ""), StandardCharsets.UTF_8);
+
+        assertEquals(List.of(
+                "Date,Category,Amount,Description",
+                "2025-06-10,RENT,12.50,",
+                "2025-06-09,RENT,0.07,",
+                "2025-06-08,RENT,1235.00,",
+                "2025-06-07,RENT,0.30,",
+                "2025-06-06,RENT,1000000.00,",
+                "2025-06-05,RENT,0.00,"), csv.lines().toList());
+    }
+
+    @Test
+    void formatsAmountsTheSameInEveryLocale() {
+        Locale before = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            assertEquals("-3.46", amount(-3.456));
+            assertEquals("-0.05", amount(-0.05));
+            assertEquals("1234567.89", amount(1234567.891));
+            assertEquals("0.00", amount(-0.001));
+        } finally {
+            Locale.setDefault(before);
+        }
+    }
+
+    @Test
+    void gzipsTheSameBody() throws Exception {
+        User user = user("export-gzip");
+        expenseService.add(user, expense(LocalDate.of(2025, 6, 1), Category.FOOD, 3.5, "with, comma"));
+        expenseService.add(user, expense(LocalDate.of(2025, 6, 2), Category.TRAVEL, 80, null));
+
+        byte[] plain = download(user, "");
+        MvcResult started = mvc.perform(get("/api/expenses/download").param("gzip", "true")
+                        .header("Authorization", "Bearer " + token(user)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] zipped = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(zipped))) {
+            assertEquals(new String(plain, StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void filtersAndReportsAnEmptyResult() throws Exception {
+        User user = user("export-filters");
+        expenseService.add(user, expense(LocalDate.of(2025, 5, 31), Category.FOOD, 1, null));
+        expenseService.add(user, expense(LocalDate.of(2025, 6, 1), Category.FOOD, 2, null));
+        expenseService.add(user, expense(LocalDate.of(2025, 6, 2), Category.RENT, 3, null));
+
+        assertEquals(List.of("Date,Category,Amount,Description", "2025-06-01,FOOD,2.00,"),
+                new String(download(user, "?from=2025-06-01&category=FOOD"), StandardCharsets.UTF_8).lines().toList());
+        assertEquals("No expenses found",
+                new String(download(user, "?to=2025-01-01"), StandardCharsets.UTF_8));
+        MvcResult headers = mvc.perform(get("/api/expenses/download").header("Authorization", "Bearer " + token(user)))
+                .andReturn();
+        assertNull(headers.getResponse().getHeader("Content-Encoding"));
+    }
+
+    private byte[] download(User user, String query) throws Exception {
+        MvcResult started = mvc.perform(get("/api/expenses/download" + query)
+                        .header("Authorization", "Bearer " + token(user)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=expenses.csv"))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static String amount(double value) {
+        StringBuilder line = new StringBuilder();
+        ExpenseExportService.appendAmount(line, value);
+        return line.toString();
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private String token(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static Expense expense(LocalDate date, Category category, double amount, String description) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setCategory(category);
+        expense.setAmount(amount);
+        expense.setDescription(description);
+        return expense;
+    }
+}
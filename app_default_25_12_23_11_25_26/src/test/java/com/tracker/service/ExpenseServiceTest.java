@@ -0,0 +1,61 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.ExpenseRepository;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class ExpenseServiceTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void addIgnoresAnIdInTheBody() {
+        User owner = userRepo.save(new User(null, "expense-id-owner", "-"));
+        User other = userRepo.save(new User(null, "expense-id-other", "-"));
+        Expense existing = expenseService.add(owner, expense(10));
+
+        Expense body = expense(99);
+        body.setId(existing.getId());
+        Expense added = expenseService.add(other, body);
+
+        assertNotEquals(existing.getId(), added.getId());
+        Expense kept = expenseRepo.findById(existing.getId()).orElseThrow();
+        assertEquals(10, kept.getAmount());
+        assertEquals(owner.getId(), kept.getUser().getId());
+        assertTrue(rollups.verify(owner).isConsistent());
+        assertTrue(rollups.verify(other).isConsistent());
+    }
+
+    private static Expense expense(double amount) {
+        Expense expense = new Expense();
+        expense.setAmount(amount);
+        expense.setCategory(Category.FOOD);
+        expense.setDate(LocalDate.of(2025, 8, 1));
+        return expense;
+    }
+}
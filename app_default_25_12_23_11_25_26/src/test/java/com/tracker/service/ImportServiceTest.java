@@ -0,0 +1,194 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class ImportServiceTest {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importsCsvWithQuotedFields() throws IOException {
+        User user = user("import-csv");
+        String csv = "Date,Category,Amount,Description\r\n"
+                + "2025-04-01,food,12.50,\"lunch, with \"\"Sam\"\"\"\r\n"
+                + "2025-04-02,RENT,800,\"two\nlines\"\r\n"
+                + "2025-04-03,TRAVEL,9.99,\r\n";
+
+        ImportService.ImportReport report = importService.importExpenses(user, in(csv), ImportService.Format.CSV);
+
+        assertEquals(3, report.getImported());
+        assertEquals(0, report.getFailed());
+        assertEquals(List.of(
+                Map.of("DATE", Date.valueOf("2025-04-01"), "CATEGORY", "FOOD", "AMOUNT", 12.5,
+                        "DESCRIPTION", "lunch, with \"Sam\""),
+                Map.of("DATE", Date.valueOf("2025-04-02"), "CATEGORY", "RENT", "AMOUNT", 800.0,
+                        "DESCRIPTION", "two\nlines")), expenses(user).subList(0, 2));
+        assertNull(expenses(user).get(2).get("DESCRIPTION"));
+    }
+
+    @Test
+    void importsNdjson() throws IOException {
+        User user = user("import-ndjson");
+        String ndjson = "{\"date\":\"2025-04-01\",\"category\":\"FOOD\",\"amount\":3.25,\"description\":\"tea\"}\n"
+                + "\n"
+                + "{\"Date\":\"2025-04-02\",\"Category\":\"utilities\",\"Amount\":\"40\",\"description\":null}\n";
+
+        ImportService.ImportReport report = importService.importExpenses(user, in(ndjson), ImportService.Format.NDJSON);
+
+        assertEquals(2, report.getImported());
+        assertEquals(0, report.getFailed());
+        assertEquals(List.of(3.25, 40.0), expenses(user).stream().map(r -> r.get("AMOUNT")).toList());
+        assertEquals(List.of("FOOD", "UTILITIES"), expenses(user).stream().map(r -> r.get("CATEGORY")).toList());
+    }
+
+    @Test
+    void skipsBadRowsAndReportsTheirLines() throws IOException {
+        User user = user("import-bad-rows");
+        String csv = "date,category,amount\n"
+                + "2025-04-01,FOOD,1\n"
+                + "01/04/2025,FOOD,2\n"
+                + "2025-04-01,SNACKS,3\n"
+                + "2025-04-01,FOOD,lots\n"
+                + "2025-04-01,,4\n"
+                + "2025-04-01,FOOD,5\n";
+        ImportService.ImportReport csvReport = importService.importExpenses(user, in(csv), ImportService.Format.CSV);
+
+        assertEquals(2, csvReport.getImported());
+        assertEquals(4, csvReport.getFailed());
+        assertEquals(List.of(3, 4, 5, 6), csvReport.getErrors().stream().map(e -> e.get("line")).toList());
+        assertEquals("unknown category: SNACKS", csvReport.getErrors().get(1).get("message"));
+
+        String ndjson = "[1,2]\n{not json\n{\"date\":\"2025-04-01\",\"amount\":7}\n{\"date\":\"2025-04-01\"}\n";
+        ImportService.ImportReport incomeReport =
+                importService.importIncomes(user, in(ndjson), ImportService.Format.NDJSON);
+        assertEquals(1, incomeReport.getImported());
+        assertEquals(List.of(1, 2, 4), incomeReport.getErrors().stream().map(e -> e.get("line")).toList());
+        assertEquals("amount is required", incomeReport.getErrors().get(2).get("message"));
+        assertTrue(rollups.verify(user).isConsistent());
+    }
+
+    @Test
+    void keepsTheRollupsAcrossBatches() throws IOException {
+        User user = user("import-rollups");
+        expenseService.add(user, expense(LocalDate.of(2025, 4, 1), 100));
+        StringBuilder csv = new StringBuilder("date,category,amount\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append(LocalDate.of(2025, 3 + i % 3, 1 + i)).append(',')
+                    .append(Category.values()[i % 4]).append(',').append(i + 0.25).append('\n');
+        }
+        StringBuilder incomes = new StringBuilder("date,amount\n");
+        for (int i = 0; i < 7; i++) {
+            incomes.append(LocalDate.of(2025, 4, 1 + i)).append(',').append(1000 + i).append('\n');
+        }
+
+        ImportService.ImportReport report = withBatchSize(4,
+                () -> importService.importExpenses(user, in(csv.toString()), ImportService.Format.CSV));
+        withBatchSize(3, () -> importService.importIncomes(user, in(incomes.toString()), ImportService.Format.CSV));
+
+        assertEquals(25, report.getImported());
+        assertEquals(7, report.getBatches());
+        RollupService.DriftReport drift = rollups.verify(user);
+        assertTrue(drift.isConsistent(), drift.getDrift()::toString);
+        assertEquals(7021.0, jdbcTemplate.queryForObject("select sum(total) from monthly_rollup "
+                + "where user_id = ? and kind = 'INCOME'", Double.class, user.getId()));
+    }
+
+    @Test
+    void importedIdsNeverCollideWithIdsFromJpa() throws IOException {
+        User user = user("import-ids");
+        Set<Long> ids = new HashSet<>();
+        // Interleaved so both sides keep taking new blocks from the same sequence.
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 30; i++) {
+                ids.add(expenseService.add(user, expense(LocalDate.of(2025, 5, 1), i)).getId());
+            }
+            StringBuilder csv = new StringBuilder("date,category,amount\n");
+            for (int i = 0; i < 70; i++) {
+                csv.append("2025-05-02,FOOD,").append(i).append('\n');
+            }
+            ImportService.ImportReport report = withBatchSize(20,
+                    () -> importService.importExpenses(user, in(csv.toString()), ImportService.Format.CSV));
+            assertEquals(0, report.getFailed(), report.getErrors()::toString);
+        }
+
+        List<Long> stored = jdbcTemplate.queryForList("select id from expense where user_id = ?", Long.class,
+                user.getId());
+        assertEquals(300, stored.size());
+        assertEquals(300, new HashSet<>(stored).size());
+        assertTrue(stored.containsAll(ids));
+    }
+
+    private ImportService.ImportReport withBatchSize(int size, ImportCall call) throws IOException {
+        Object before = ReflectionTestUtils.getField(importService, "batchSize");
+        ReflectionTestUtils.setField(importService, "batchSize", size);
+        try {
+            return call.run();
+        } finally {
+            ReflectionTestUtils.setField(importService, "batchSize", before);
+        }
+    }
+
+    private interface ImportCall {
+        ImportService.ImportReport run() throws IOException;
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private List<Map<String, Object>> expenses(User user) {
+        return jdbcTemplate.queryForList("select date, category, amount, description from expense "
+                + "where user_id = ? order by date, id", user.getId());
+    }
+
+    private static ByteArrayInputStream in(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Expense expense(LocalDate date, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setAmount(amount);
+        expense.setCategory(Category.FOOD);
+        return expense;
+    }
+}
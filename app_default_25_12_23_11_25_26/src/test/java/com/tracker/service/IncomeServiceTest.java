@@ -0,0 +1,59 @@
+package com.tracker.service;
+
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import com.tracker.repository.IncomeRepository;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class IncomeServiceTest {
+
+    @Autowired
+    private IncomeService incomeService;
+
+    @Autowired
+    private IncomeRepository incomeRepo;
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void addIgnoresAnIdInTheBody() {
+        User owner = userRepo.save(new User(null, "income-id-owner", "-"));
+        User other = userRepo.save(new User(null, "income-id-other", "-"));
+        Income existing = incomeService.add(owner, income(10));
+
+        Income body = income(99);
+        body.setId(existing.getId());
+        Income added = incomeService.add(other, body);
+
+        assertNotEquals(existing.getId(), added.getId());
+        Income kept = incomeRepo.findById(existing.getId()).orElseThrow();
+        assertEquals(10, kept.getAmount());
+        assertEquals(owner.getId(), kept.getUser().getId());
+        assertTrue(rollups.verify(owner).isConsistent());
+        assertTrue(rollups.verify(other).isConsistent());
+    }
+
+    private static Income income(double amount) {
+        Income income = new Income();
+        income.setAmount(amount);
+        income.setDate(LocalDate.of(2025, 8, 1));
+        return income;
+    }
+}
@@ -0,0 +1,180 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.service.JournalRecord.BudgetRow;
+import com.tracker.service.JournalRecord.ExpenseDeleted;
+import com.tracker.service.JournalRecord.ExpenseRow;
+import com.tracker.service.JournalRecord.IncomeDeleted;
+import com.tracker.service.JournalRecord.IncomeRow;
+import com.tracker.service.JournalRecord.UserRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalLogTest {
+
+    private static final int HEADER = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackEveryKindOfRecordInOrder() throws IOException {
+        List<JournalRecord> first = List.of(
+                new UserRow(1, "alice", "$2a$10$hash"),
+                new BudgetRow(2, 1, 25.0, null, ";;120.5;"),
+                new ExpenseRow(3, 1, 12.34, Category.FOOD, LocalDate.of(2025, 3, 14), "lunch, \"out\" ☕"));
+        List<JournalRecord> second = List.of(
+                new ExpenseRow(1L << 41, 1, 0.01, Category.values()[Category.values().length - 1],
+                        LocalDate.of(1965, 1, 1), null),
+                new ExpenseDeleted(3, 1),
+                new IncomeRow(5, 1, 2500, LocalDate.of(2025, 3, 1), ""),
+                new IncomeDeleted(5, 1),
+                new BudgetRow(2, 1, null, null, null));
+        try (JournalLog log = new JournalLog(dir, 1, true)) {
+            log.append(frame(first)).join();
+            log.append(frame(second)).join();
+            assertEquals(2, log.frames());
+        }
+
+        List<JournalRecord> expected = new ArrayList<>(first);
+        expected.addAll(second);
+        assertEquals(expected, read(1));
+    }
+
+    @Test
+    void ignoresAFrameCutShort() throws IOException {
+        byte[] kept = frame(List.of(new ExpenseRow(1, 1, 10, Category.FOOD, LocalDate.of(2025, 1, 1), "kept")));
+        byte[] torn = frame(List.of(new ExpenseRow(2, 1, 20, Category.FOOD, LocalDate.of(2025, 1, 2), "torn")));
+        try (JournalLog log = new JournalLog(dir, 1, true)) {
+            log.append(kept).join();
+            log.append(torn).join();
+        }
+        Path file = JournalLog.file(dir, 1);
+        for (long cut = 1; cut < HEADER + torn.length; cut++) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(HEADER + kept.length + HEADER + torn.length - cut);
+            }
+            List<JournalRecord> records = new ArrayList<>();
+            assertEquals(HEADER + kept.length, JournalLog.read(file, records::add), "cut " + cut);
+            assertEquals(1, records.size(), "cut " + cut);
+        }
+    }
+
+    @Test
+    void stopsAtAFrameThatFailsItsChecksum() throws IOException {
+        byte[] kept = frame(List.of(new IncomeRow(1, 1, 100, LocalDate.of(2025, 1, 1), "kept")));
+        byte[] corrupt = frame(List.of(new IncomeRow(2, 1, 200, LocalDate.of(2025, 1, 2), "corrupt")));
+        byte[] after = frame(List.of(new IncomeRow(3, 1, 300, LocalDate.of(2025, 1, 3), "after")));
+        try (JournalLog log = new JournalLog(dir, 1, true)) {
+            log.append(kept).join();
+            log.append(corrupt).join();
+            log.append(after).join();
+        }
+        Path file = JournalLog.file(dir, 1);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[HEADER + kept.length + HEADER + 3] ^= 0x40;
+        Files.write(file, bytes);
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(HEADER + kept.length, JournalLog.read(file, records::add));
+        assertEquals(List.of(new IncomeRow(1, 1, 100, LocalDate.of(2025, 1, 1), "kept")), records);
+    }
+
+    @Test
+    void stopsAtAnImpossibleLength() throws IOException {
+        Path file = JournalLog.file(dir, 1);
+        Files.write(file, new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0, 0});
+        assertEquals(0, JournalLog.read(file, record -> {
+            throw new AssertionError("no record expected");
+        }));
+    }
+
+    @Test
+    void rotationContinuesInTheNextSegment() throws IOException {
+        JournalRecord before = new UserRow(1, "before", "x");
+        JournalRecord after = new UserRow(2, "after", "x");
+        try (JournalLog log = new JournalLog(dir, 4, true)) {
+            CompletableFuture<Void> appended = log.append(frame(List.of(before)));
+            assertEquals(5L, log.rotate().join());
+            appended.join();
+            log.append(frame(List.of(after))).join();
+        }
+        assertEquals(List.of(4L, 5L), JournalLog.segments(dir));
+        assertEquals(List.of(before), read(4));
+        assertEquals(List.of(after), read(5));
+    }
+
+    @Test
+    void groupsConcurrentAppends() throws IOException {
+        List<CompletableFuture<Void>> appends = new ArrayList<>();
+        try (JournalLog log = new JournalLog(dir, 1, true)) {
+            for (int i = 0; i < 500; i++) {
+                appends.add(log.append(frame(List.of(new IncomeDeleted(i, 1)))));
+            }
+            CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+            assertEquals(500, log.frames());
+            assertTrue(log.syncs() <= 500);
+        }
+        List<JournalRecord> records = read(1);
+        assertEquals(500, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i, records.get(i).id());
+        }
+    }
+
+    @Test
+    void rejectsAppendsAfterClose() throws IOException {
+        JournalLog log = new JournalLog(dir, 1, true);
+        log.close();
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> log.append(frame(List.of(new UserRow(1, "late", "x")))).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void neverReusesASegment() throws IOException {
+        new JournalLog(dir, 1, true).close();
+        assertThrows(IOException.class, () -> new JournalLog(dir, 1, true));
+    }
+
+    private List<JournalRecord> read(long segment) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        long valid = JournalLog.read(JournalLog.file(dir, segment), records::add);
+        assertEquals(Files.size(JournalLog.file(dir, segment)), valid);
+        return records;
+    }
+
+    /** The payload {@link Journal} appends for one transaction. */
+    private static byte[] frame(List<JournalRecord> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (JournalRecord record : records) {
+                JournalRecord.write(out, record);
+            }
+            out.writeByte(JournalRecord.END);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,220 @@
+package com.tracker.service;
+
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Durable mode end to end: what commits reaches the journal, and a restore rebuilds the same tables. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal-test",
+        "tracker.journal.enabled=true",
+        "tracker.journal.fsync=false",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class JournalTest {
+
+    private static final String[] TABLES = {
+            "select id, username, password from users order by id",
+            "select id, user_id, daily_limit, monthly_limit, category_limits from budget order by id",
+            "select id, user_id, amount, category, date, description from expense order by id",
+            "select id, user_id, amount, date, description from income order by id",
+            // Summed from the rows on restore, so only rows that still count anything, to the cent.
+            "select user_id, kind, period, category, round(total, 2), entry_count from monthly_rollup "
+                    + "where entry_count <> 0 order by user_id, kind, period, category"
+    };
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) {
+        registry.add("tracker.journal.dir", () -> dir.toString());
+    }
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private IncomeService incomeService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private TransactionTemplate transactions;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void onlyCommittedTransactionsReachTheJournal() throws IOException {
+        User user = user("journal-commits");
+        int before = records().size();
+
+        transactions.executeWithoutResult(status -> {
+            expenseService.add(user, expense(LocalDate.of(2025, 4, 1), 10));
+            status.setRollbackOnly();
+        });
+        assertThrows(IllegalStateException.class, () -> transactions.executeWithoutResult(status -> {
+            expenseService.add(user, expense(LocalDate.of(2025, 4, 2), 20));
+            throw new IllegalStateException("fails after the write");
+        }));
+        assertEquals(before, records().size());
+
+        Expense saved = expenseService.add(user, expense(LocalDate.of(2025, 4, 3), 30));
+        List<JournalRecord> after = records();
+        assertEquals(before + 1, after.size());
+        assertEquals(new JournalRecord.ExpenseRow(saved.getId(), user.getId(), 30, Category.FOOD,
+                LocalDate.of(2025, 4, 3), null), after.get(after.size() - 1));
+    }
+
+    @Test
+    void snapshotsReplaceTheJournalAndRestoreWithItsTail() throws IOException, SQLException {
+        User user = user("journal-snapshots");
+        Budget budget = new Budget();
+        budget.setMonthlyLimit(500.0);
+        budget.setDailyLimit(40.0);
+        budget.setCategoryLimits(Map.of("FOOD", 120.0));
+        budgetService.update(user, budget);
+        List<Expense> expenses = new ArrayList<>();
+        for (int day = 1; day <= 6; day++) {
+            expenses.add(expenseService.add(user, expense(LocalDate.of(2025, 5, day), day * 2.5)));
+        }
+        Income salary = incomeService.add(user, income(LocalDate.of(2025, 5, 1), 3000));
+        expenseService.delete(user, expenses.get(0).getId());
+
+        long firstRows = journal.snapshot();
+        assertTrue(firstRows >= 8);
+        List<Long> snapshots = Snapshots.list(dir);
+        assertEquals(1, snapshots.size());
+        assertEquals(snapshots, JournalLog.segments(dir));
+
+        // Changes to rows the snapshot has, and new ones.
+        expenseService.update(user, expenses.get(1).getId(), expense(LocalDate.of(2025, 6, 1), 99.75));
+        expenseService.delete(user, expenses.get(2).getId());
+        incomeService.delete(user, salary.getId());
+        incomeService.add(user, income(LocalDate.of(2025, 6, 1), 3100));
+        journal.snapshot();
+        expenseService.update(user, expenses.get(3).getId(), expense(LocalDate.of(2025, 5, 4), 11.25));
+        expenseService.delete(user, expenses.get(4).getId());
+        expenseService.add(user, expense(LocalDate.of(2025, 6, 2), 7.5));
+        User later = user("journal-tail-only");
+        expenseService.add(later, expense(LocalDate.of(2025, 6, 3), 1.25));
+
+        // The second snapshot replaced the first and the segments before it.
+        List<Long> remaining = Snapshots.list(dir);
+        assertEquals(1, remaining.size());
+        assertTrue(remaining.get(0) > snapshots.get(0));
+        assertEquals(remaining, JournalLog.segments(dir));
+        assertFalse(records().isEmpty());
+
+        DataSource restored = emptyCopy("journal-restored");
+        JournalRestore.Result result = JournalRestore.restore(dir, restored);
+        assertTrue(result.snapshotRows() > 0);
+        assertTrue(result.tailRecords() > 0);
+        assertEquals(remaining.get(0) + 1, result.nextSegment());
+        JdbcTemplate original = new JdbcTemplate(dataSource);
+        JdbcTemplate copy = new JdbcTemplate(restored);
+        for (String table : TABLES) {
+            assertEquals(original.queryForList(table), copy.queryForList(table), table);
+        }
+    }
+
+    @Test
+    void rejectsACorruptSnapshot() throws IOException {
+        user("journal-corrupt");
+        journal.snapshot();
+        Path snapshot = Snapshots.file(dir, Snapshots.list(dir).get(0));
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x01;
+        Path copy = dir.resolve("corrupt.bin");
+        Files.write(copy, bytes);
+
+        assertThrows(IOException.class, () -> {
+            try (Snapshots.Reader reader = new Snapshots.Reader(copy)) {
+                while (reader.next() != null) {
+                    // Reads to the trailer, where the checksum is compared.
+                }
+            }
+        });
+    }
+
+    private User user(String name) {
+        return transactions.execute(status -> {
+            User user = userRepo.save(new User(null, name, "-"));
+            journal.userSaved(user);
+            return user;
+        });
+    }
+
+    /** Every record in the journal segments now on disk. */
+    private static List<JournalRecord> records() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        for (long segment : JournalLog.segments(dir)) {
+            JournalLog.read(JournalLog.file(dir, segment), records::add);
+        }
+        return records;
+    }
+
+    /** A new in-memory database with the application's schema and no rows. */
+    private DataSource emptyCopy(String name) {
+        JdbcDataSource copy = new JdbcDataSource();
+        copy.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        copy.setUser("sa");
+        JdbcTemplate target = new JdbcTemplate(copy);
+        for (String statement : new JdbcTemplate(dataSource).queryForList("script nodata", String.class)) {
+            if (!statement.startsWith("CREATE USER")) {
+                target.execute(statement);
+            }
+        }
+        return copy;
+    }
+
+    private static Expense expense(LocalDate date, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setAmount(amount);
+        expense.setCategory(Category.FOOD);
+        return expense;
+    }
+
+    private static Income income(LocalDate date, double amount) {
+        Income income = new Income();
+        income.setDate(date);
+        income.setAmount(amount);
+        return income;
+    }
+}
@@ -0,0 +1,193 @@
+package com.tracker.service;
+
+import com.tracker.event.ExpenseChangedEvent;
+import com.tracker.event.Posting;
+import com.tracker.event.UserDataChangedEvent;
+import com.tracker.model.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** The guard that keeps a ledger read during a write out of the cache, against a database with no rows. */
+class LedgerCacheTest {
+
+    private static final Long USER = 7L;
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    private final StubJdbc jdbc = new StubJdbc();
+    private final LedgerCache cache = new LedgerCache(jdbc, true, DataSize.ofMegabytes(1));
+
+    @Test
+    void loadsOnceWithoutWrites() {
+        Ledger first = cache.get(USER);
+        assertNotNull(first);
+        assertSame(first, cache.get(USER));
+        assertEquals(1, jdbc.loads);
+        assertEquals(0, cache.tracking());
+    }
+
+    @Test
+    void committedWritesAreAppliedToTheCachedLedger() {
+        cache.get(USER);
+        ExpenseChangedEvent added = added(12.5);
+        cache.onWriteStarted(added);
+        cache.onWriteCommitted(added);
+        assertEquals(12.5, cache.get(USER).expenseTotal(DAY, DAY));
+        assertEquals(1, jdbc.loads);
+        assertEquals(0, cache.tracking());
+    }
+
+    @Test
+    void doesNotLoadWhileAWriteIsInFlight() {
+        ExpenseChangedEvent added = added(5);
+        cache.onWriteStarted(added);
+        assertNull(cache.get(USER));
+        assertEquals(0, jdbc.loads);
+
+        cache.onWriteCommitted(added);
+        assertNotNull(cache.get(USER));
+        assertEquals(1, jdbc.loads);
+        assertEquals(0, cache.tracking());
+    }
+
+    @Test
+    void doesNotKeepALoadThatAWriteStartedDuring() {
+        ExpenseChangedEvent added = added(5);
+        jdbc.duringLoad = () -> cache.onWriteStarted(added);
+        assertNotNull(cache.get(USER));
+        jdbc.duringLoad = null;
+
+        cache.onWriteCommitted(added);
+        cache.get(USER);
+        assertEquals(2, jdbc.loads);
+        assertEquals(0, cache.tracking());
+    }
+
+    @Test
+    void doesNotKeepALoadThatAWriteCompletedDuring() {
+        // The load may have read the committed row, which must not then be applied again.
+        ExpenseChangedEvent added = added(5);
+        jdbc.duringLoad = () -> {
+            cache.onWriteStarted(added);
+            cache.onWriteCommitted(added);
+        };
+        cache.get(USER);
+        jdbc.duringLoad = null;
+
+        cache.get(USER);
+        assertEquals(2, jdbc.loads);
+    }
+
+    @Test
+    void rolledBackWritesCountAsCompleted() {
+        ExpenseChangedEvent added = added(5);
+        cache.onWriteStarted(added);
+        cache.onWriteRolledBack(added);
+        assertEquals(0, cache.tracking());
+        assertNotNull(cache.get(USER));
+    }
+
+    @Test
+    void forgetsUsersWithNothingInProgress() {
+        for (long user = 1; user <= 100; user++) {
+            ExpenseChangedEvent added = new ExpenseChangedEvent(user, user, null,
+                    new Posting(DAY, Category.FOOD, 1), "x");
+            cache.onWriteStarted(added);
+            cache.onWriteCommitted(added);
+            cache.get(user);
+        }
+        assertEquals(0, cache.tracking());
+    }
+
+    @Test
+    void aFailedLoadIsNotLeftInProgress() {
+        jdbc.duringLoad = () -> {
+            throw new IllegalStateException("connection lost");
+        };
+        try {
+            cache.get(USER);
+        } catch (IllegalStateException expected) {
+            // The caller sees the failure; the user's counts must not stay behind.
+        }
+        assertEquals(0, cache.tracking());
+    }
+
+    @Test
+    void listenersOfTheCommitSeeTheUpdatedLedger() {
+        cache.get(USER);
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(TransactionalEventListenerFactory.class);
+            // Registered first, so it would also run first if the ledger's listener had no order.
+            context.registerBean(Probe.class, () -> new Probe(cache));
+            context.registerBean(LedgerCache.class, () -> cache);
+            context.refresh();
+
+            TransactionSynchronizationManager.initSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                context.publishEvent(added(12.5));
+                List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                        TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+            assertNotNull(context.getBean(Probe.class).seen);
+            assertEquals(12.5, context.getBean(Probe.class).seen.expenseTotal(DAY, DAY));
+        }
+        assertEquals(1, jdbc.loads);
+    }
+
+    private static ExpenseChangedEvent added(double amount) {
+        return new ExpenseChangedEvent(USER, 1L, null, new Posting(DAY, Category.FOOD, amount), "x");
+    }
+
+    /** An after-commit listener with the default order, like the tips, ETag versions and live updates. */
+    static class Probe {
+        private final LedgerCache cache;
+        Ledger seen;
+
+        Probe(LedgerCache cache) {
+            this.cache = cache;
+        }
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onUserDataChanged(UserDataChangedEvent event) {
+            seen = cache.get(event.getUserId());
+        }
+    }
+
+    /** Answers every query with no rows, counting the loads and running a hook in the first query of each. */
+    private static class StubJdbc extends JdbcTemplate {
+        int queries;
+        int loads;
+        Runnable duringLoad;
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            // A load is two queries, expenses then incomes.
+            if (queries++ % 2 == 0) {
+                loads++;
+                if (duringLoad != null) {
+                    duringLoad.run();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.tracker.service;
+
+import com.tracker.event.Posting;
+import com.tracker.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerTest {
+
+    private static final LocalDate D1 = LocalDate.of(2025, 1, 10);
+    private static final LocalDate D2 = LocalDate.of(2025, 1, 20);
+    private static final LocalDate D3 = LocalDate.of(2025, 2, 5);
+
+    @Test
+    void builderSumsRowsArrivingNewestFirst() {
+        Ledger.Builder builder = new Ledger.Builder();
+        builder.expense(Category.FOOD, D3, 1.10);
+        builder.expense(Category.FOOD, D2, 2.20);
+        builder.expense(Category.FOOD, D2, 3.30);
+        builder.expense(Category.RENT, D1, 500);
+        builder.income(D2, 1000);
+        Ledger ledger = builder.build();
+
+        assertEquals(5.50, ledger.expenseTotal(D2, D2));
+        assertEquals(506.60, ledger.expenseTotal(D1, D3));
+        assertEquals(Map.of("FOOD", 5.50, "RENT", 500.0), ledger.categoryTotals(D1, D2));
+        assertEquals(Map.of("FOOD", 1.10), ledger.categoryTotals(D3, D3));
+        assertEquals(1000.0, ledger.incomeTotal(D1, D3));
+        assertEquals(0.0, ledger.incomeTotal(D3, D3));
+    }
+
+    @Test
+    void builderRejectsRowsOutOfOrder() {
+        Ledger.Builder builder = new Ledger.Builder();
+        builder.expense(Category.FOOD, D1, 1);
+        assertThrows(IllegalStateException.class, () -> builder.expense(Category.FOOD, D2, 1));
+    }
+
+    @Test
+    void addingKeepsTheOldLedgerAsItWas() {
+        Ledger before = new Ledger.Builder().build();
+        Ledger after = before.withExpense(D2, Category.FOOD, 12.34, 1);
+        assertEquals(0.0, before.expenseTotal(D1, D3));
+        assertEquals(12.34, after.expenseTotal(D1, D3));
+        assertTrue(before.categoryTotals().isEmpty());
+    }
+
+    @Test
+    void addsDaysBeforeBetweenAndAfterExistingOnes() {
+        Ledger.Series s = series(D2, 200);
+        s = s.plus(day(D3), 300, 1);
+        s = s.plus(day(D1), 100, 1);
+        s = s.plus(day(D2) + 1, 50, 1);
+        assertEquals(650, s.sum(day(D1), day(D3) + 1));
+        assertEquals(100, s.sum(day(D1), day(D2)));
+        assertEquals(250, s.sum(day(D2), day(D2) + 2));
+        assertEquals(300, s.sum(day(D3), day(D3) + 1));
+    }
+
+    @Test
+    void addingToAnExistingDayShiftsTheLaterTotals() {
+        Ledger.Series s = series(D1, 100).plus(day(D2), 200, 1).plus(day(D3), 300, 1);
+        s = s.plus(day(D2), 25, 1);
+        assertEquals(225, s.sum(day(D2), day(D2) + 1));
+        assertEquals(525, s.sum(day(D2), day(D3) + 1));
+        assertEquals(625, s.sum(day(D1), day(D3) + 1));
+    }
+
+    @Test
+    void removingOneOfADaysEntriesKeepsTheDay() {
+        Ledger.Series s = series(D2, 200).plus(day(D2), 50, 1).plus(day(D3), 300, 1);
+        s = s.plus(day(D2), -50, -1);
+        assertTrue(s.any(day(D2), day(D2) + 1));
+        assertEquals(200, s.sum(day(D2), day(D2) + 1));
+        assertEquals(500, s.sum(day(D1), day(D3) + 1));
+    }
+
+    @Test
+    void removingTheLastEntryOfADayDropsIt() {
+        Ledger.Series s = series(D1, 100).plus(day(D2), 200, 1).plus(day(D3), 300, 1);
+        s = s.plus(day(D2), -200, -1);
+        assertFalse(s.any(day(D2), day(D2) + 1));
+        assertEquals(0, s.sum(day(D2), day(D2) + 1));
+        assertEquals(100, s.sum(day(D1), day(D2)));
+        assertEquals(300, s.sum(day(D2), day(D3) + 1));
+        assertEquals(400, s.sum(day(D1), day(D3) + 1));
+        // The first and the last day too.
+        s = s.plus(day(D1), -100, -1).plus(day(D3), -300, -1);
+        assertFalse(s.any(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, s.sum(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void removingWhatIsNotThereAsksForAReload() {
+        Ledger.Series s = series(D2, 200);
+        assertNull(s.plus(day(D1), -100, -1));
+        assertNull(s.plus(day(D2), -200, -2));
+        assertNull(new Ledger.Builder().build().withExpense(D1, Category.FOOD, 1, -1));
+        assertNull(new Ledger.Builder().build().withIncome(D1, 1, -1));
+    }
+
+    @Test
+    void zeroChangeToAnAbsentDayLeavesTheSeries() {
+        Ledger.Series s = series(D2, 200);
+        assertSame(s, s.plus(day(D1), 0, 0));
+    }
+
+    @Test
+    void mergesIntoAnEmptySeries() {
+        Ledger.Series empty = empty();
+        TreeMap<Integer, long[]> added = new TreeMap<>();
+        added.put(day(D2), new long[]{2, 500});
+        added.put(day(D1), new long[]{1, 100});
+        Ledger.Series s = empty.merge(added);
+        assertEquals(600, s.sum(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(100, s.sum(day(D1), day(D2)));
+        assertSame(empty, empty.merge(new TreeMap<>()));
+    }
+
+    @Test
+    void mergesNewAndExistingDaysInOrder() {
+        Ledger.Series s = series(D1, 100).plus(day(D3), 300, 1);
+        TreeMap<Integer, long[]> added = new TreeMap<>();
+        added.put(day(D1) - 1, new long[]{1, 1});
+        added.put(day(D1), new long[]{1, 10});
+        added.put(day(D2), new long[]{1, 20});
+        added.put(day(D3) + 1, new long[]{1, 30});
+        s = s.merge(added);
+        assertEquals(1, s.sum(day(D1) - 1, day(D1)));
+        assertEquals(110, s.sum(day(D1), day(D1) + 1));
+        assertEquals(20, s.sum(day(D2), day(D2) + 1));
+        assertEquals(300, s.sum(day(D3), day(D3) + 1));
+        assertEquals(461, s.sum(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        // Merged entries count: removing both of D1's leaves the day empty.
+        s = s.plus(day(D1), -110, -2);
+        assertFalse(s.any(day(D1), day(D1) + 1));
+    }
+
+    @Test
+    void addedPostingsGoToTheirCategoryOrTheIncomes() {
+        Ledger ledger = new Ledger.Builder().build().withAdded(List.of(
+                new Posting(D1, Category.FOOD, 1.5),
+                new Posting(D1, null, 100),
+                new Posting(D2, Category.RENT, 300)));
+        assertEquals(Map.of("FOOD", 1.5, "RENT", 300.0), ledger.categoryTotals());
+        assertEquals(100.0, ledger.incomeTotal(D1, D3));
+    }
+
+    @Test
+    void matchesARecomputedTotalAfterRandomChanges() {
+        Random random = new Random(42);
+        int base = day(D1);
+        Ledger.Series s = empty();
+        List<long[]> entries = new ArrayList<>();
+        for (int step = 0; step < 2000; step++) {
+            if (!entries.isEmpty() && random.nextInt(3) == 0) {
+                long[] removed = entries.remove(random.nextInt(entries.size()));
+                s = s.plus((int) removed[0], -removed[1], -1);
+            } else if (random.nextInt(10) == 0) {
+                TreeMap<Integer, long[]> added = new TreeMap<>();
+                for (int k = random.nextInt(5); k >= 0; k--) {
+                    long[] entry = {base + random.nextInt(60), random.nextInt(10_000)};
+                    entries.add(entry);
+                    long[] day = added.computeIfAbsent((int) entry[0], d -> new long[2]);
+                    day[0]++;
+                    day[1] += entry[1];
+                }
+                s = s.merge(added);
+            } else {
+                long[] entry = {base + random.nextInt(60), random.nextInt(10_000)};
+                entries.add(entry);
+                s = s.plus((int) entry[0], entry[1], 1);
+            }
+            int from = base + random.nextInt(70) - 5;
+            int to = from + random.nextInt(30);
+            long expected = 0;
+            for (long[] entry : entries) {
+                if (entry[0] >= from && entry[0] < to) {
+                    expected += entry[1];
+                }
+            }
+            assertEquals(expected, s.sum(from, to), "step " + step);
+        }
+    }
+
+    private static Ledger.Series series(LocalDate date, long cents) {
+        return empty().plus(day(date), cents, 1);
+    }
+
+    private static Ledger.Series empty() {
+        return new Ledger.Series(new int[0], new int[0], new long[1]);
+    }
+
+    private static int day(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+}
@@ -0,0 +1,160 @@
+package com.tracker.service;
+
+import com.tracker.config.AuthenticatedUser;
+import com.tracker.config.JwtUtils;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.ListingFilter;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:web-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@AutoConfigureMockMvc
+class ListingServiceTest {
+
+    private static final ListingFilter ALL = new ListingFilter(null, null, null, null, null);
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void pagesThroughRowsOfTheSameDateByIdWithoutGapsOrRepeats() {
+        User user = user("listing-same-date");
+        List<Expense> added = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            added.add(expenseService.add(user, expense(LocalDate.of(2025, 3, 10), i)));
+        }
+        added.add(expenseService.add(user, expense(LocalDate.of(2025, 3, 11), 100)));
+        added.add(expenseService.add(user, expense(LocalDate.of(2025, 3, 9), 200)));
+        added.add(expenseService.add(user, expense(LocalDate.of(2025, 3, 10), 300)));
+
+        for (int limit = 1; limit <= 4; limit++) {
+            List<Long> seen = new ArrayList<>();
+            String cursor = null;
+            do {
+                KeysetPage<Expense> page = listingService.expenses(user, ALL, cursor, limit);
+                assertTrue(page.getItems().size() <= limit);
+                page.getItems().forEach(e -> seen.add(e.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            List<Long> expected = added.stream()
+                    .sorted(Comparator.comparing(Expense::getDate).thenComparing(Expense::getId).reversed())
+                    .map(Expense::getId)
+                    .toList();
+            assertEquals(expected, seen, "limit " + limit);
+        }
+    }
+
+    @Test
+    void theLastPageHasNoCursor() {
+        User user = user("listing-last-page");
+        expenseService.add(user, expense(LocalDate.of(2025, 3, 10), 1));
+        expenseService.add(user, expense(LocalDate.of(2025, 3, 10), 2));
+
+        KeysetPage<Expense> exact = listingService.expenses(user, ALL, null, 2);
+        assertEquals(2, exact.getItems().size());
+        assertNull(exact.getNextCursor());
+        assertFalse(exact.isHasMore());
+        assertTrue(listingService.expenses(user, ALL, null, 1).isHasMore());
+    }
+
+    @Test
+    void rejectsLimitsOutsideOneToTwoHundred() {
+        User user = user("listing-limits");
+        for (int i = 0; i < 201; i++) {
+            expenseService.add(user, expense(LocalDate.of(2025, 1, 1).plusDays(i), i));
+        }
+        assertEquals(1, listingService.expenses(user, ALL, null, 1).getItems().size());
+        assertEquals(200, listingService.expenses(user, ALL, null, ListingService.MAX_LIMIT).getItems().size());
+        assertThrows(IllegalArgumentException.class, () -> listingService.expenses(user, ALL, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> listingService.incomes(user, ALL, null, 201));
+    }
+
+    @Test
+    void answersALimitOutOfRangeOrABadCursorWith400() throws Exception {
+        User user = user("listing-http");
+        expenseService.add(user, expense(LocalDate.of(2025, 3, 10), 1));
+        String auth = "Bearer " + token(user);
+
+        mvc.perform(get("/api/expenses/page").param("limit", "1").header("Authorization", auth))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+        mvc.perform(get("/api/expenses/page").param("limit", "200").header("Authorization", auth))
+                .andExpect(status().isOk());
+        for (String limit : List.of("0", "201", "-1")) {
+            mvc.perform(get("/api/expenses/page").param("limit", limit).header("Authorization", auth))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Error: limit must be between 1 and 200"));
+        }
+
+        List<String> cursors = List.of("not a cursor", "%%%", encode("20000"), encode("abc:5"), encode("20000:x"),
+                encode("99999999999999:1"));
+        for (String cursor : cursors) {
+            for (String path : List.of("/api/expenses/page", "/api/incomes/page")) {
+                mvc.perform(get(path).param("cursor", cursor).header("Authorization", auth))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(content().string("Error: Invalid cursor"));
+            }
+        }
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private String token(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Expense expense(LocalDate date, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setAmount(amount);
+        expense.setCategory(Category.FOOD);
+        return expense;
+    }
+}
@@ -0,0 +1,302 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracker.config.AuthenticatedUser;
+import com.tracker.event.UserDataChangedEvent;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import com.tracker.repository.MonthlyRollupRepository;
+import com.tracker.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams built on their own {@link LiveUpdates} with test timings, fed the events of real
+ * committed writes. Each emitter gets a recording handler in place of the servlet response.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@RecordApplicationEvents
+class LiveUpdatesTest {
+
+    private static final LocalDate JUNE_2 = LocalDate.of(2025, 6, 2);
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @Autowired
+    private MonthlyRollupRepository rollupRepo;
+
+    @Autowired
+    private BudgetStatusService budgetStatus;
+
+    @Autowired
+    private TipCache tipCache;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor executor;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private IncomeService incomeService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private LiveUpdates live;
+
+    @AfterEach
+    void close() {
+        SecurityContextHolder.clearContext();
+        if (live != null) {
+            live.close();
+        }
+    }
+
+    @Test
+    void combinesCommittedWritesIntoOneUpdatePerUser() throws Exception {
+        live = liveUpdates(NEVER, Duration.ofMillis(300), 32);
+        User user = user("stream-coalesce");
+        User other = user("stream-coalesce-other");
+        Client laptop = subscribe(user);
+        Client phone = subscribe(user);
+        Client bystander = subscribe(other);
+
+        signIn(user);
+        expenseService.add(user, expense(JUNE_2, Category.FOOD, 12.5));
+        expenseService.add(user, expense(JUNE_2, Category.FOOD, 7.5));
+        expenseService.add(user, expense(JUNE_2, Category.RENT, 800));
+        incomeService.add(user, income(JUNE_2, 3000));
+        forwardCommitted();
+
+        for (Client client : List.of(laptop, phone)) {
+            JsonNode update = client.nextUpdate();
+            assertEquals(3, update.get("expenses").size());
+            assertEquals(20.0, update.at("/categoryTotals/202506/FOOD").asDouble());
+            assertEquals(800.0, update.at("/categoryTotals/202506/RENT").asDouble());
+            assertEquals(3000.0, update.at("/incomeTotals/202506").asDouble());
+            assertTrue(update.has("budget"));
+            assertNull(client.next(400), "one update for all four writes");
+        }
+        assertNull(bystander.next(0));
+        assertEquals(1, registry.get("stream.updates").counter().count());
+    }
+
+    @Test
+    void dropsAClientWhoseQueueOverflows() throws Exception {
+        live = liveUpdates(NEVER, Duration.ofMillis(10), 2);
+        User user = user("stream-overflow");
+        Client fast = subscribe(user);
+        Client slow = subscribe(user);
+        slow.stallUpdates();
+
+        signIn(user);
+        // The first update stalls in its write; the next two fill the queue; the fourth overflows it.
+        update(user, fast);
+        assertTrue(slow.stalled.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            update(user, fast);
+        }
+
+        // Each update reaches the clients in turn, so the fast one can have it before the slow one is offered it.
+        assertTrue(waitFor(() -> registry.get("stream.dropped").counter().count() == 1));
+        assertEquals(1, registry.get("stream.clients").gauge().value());
+        update(user, fast);
+        slow.resume();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertNotNull(slow.next(0), "the stalled update");
+        assertNull(slow.next(0), "nothing after it");
+        assertFalse(fast.completed.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sendsHeartbeatsAndDropsAClientStuckForOne() throws Exception {
+        live = liveUpdates(Duration.ofMillis(100), Duration.ofMillis(10), 32);
+        User user = user("stream-heartbeat");
+        Client idle = subscribe(user);
+        Client stuck = subscribe(user);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(":", idle.next(1000).trim());
+        }
+        assertEquals(0, registry.get("stream.dropped").counter().count());
+
+        stuck.stallUpdates();
+        signIn(user);
+        update(user, idle);
+        assertTrue(waitFor(() -> registry.get("stream.dropped").counter().count() == 1));
+        assertEquals(1, registry.get("stream.clients").gauge().value());
+        stuck.resume();
+        assertTrue(stuck.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(":", idle.next(1000).trim());
+    }
+
+    /** Writes an expense and waits for its update to reach {@code client}. */
+    private void update(User user, Client client) throws Exception {
+        expenseService.add(user, expense(JUNE_2, Category.TRAVEL, 1));
+        forwardCommitted();
+        assertNotNull(client.nextUpdate());
+    }
+
+    /** Hands the events of the writes since the last call to the stream, as the listener does after commit. */
+    private void forwardCommitted() {
+        events.stream(UserDataChangedEvent.class).forEach(live::onUserDataChanged);
+        events.clear();
+    }
+
+    private LiveUpdates liveUpdates(Duration heartbeat, Duration coalesce, int maxQueued) {
+        return new LiveUpdates(rollupRepo, budgetStatus, tipCache, json, executor, NEVER, heartbeat, coalesce,
+                maxQueued, 2, registry);
+    }
+
+    private Client subscribe(User user) throws Exception {
+        signIn(user);
+        SseEmitter emitter = live.subscribe(user);
+        SecurityContextHolder.clearContext();
+        Client client = new Client();
+        Class<?> handlerType = Class.forName(ResponseBodyEmitter.class.getName() + "$Handler");
+        Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "send" -> client.received(args);
+                        case "complete", "completeWithError" -> client.completed.countDown();
+                        default -> {
+                        }
+                    }
+                    return null;
+                });
+        ReflectionTestUtils.invokeMethod(emitter, "initialize", handler);
+        assertTrue(client.next(1000).contains("event:ready"));
+        return client;
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private static void signIn(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static Expense expense(LocalDate date, Category category, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setCategory(category);
+        expense.setAmount(amount);
+        return expense;
+    }
+
+    private static Income income(LocalDate date, double amount) {
+        Income income = new Income();
+        income.setDate(date);
+        income.setAmount(amount);
+        return income;
+    }
+
+    /** What one stream's response would have carried: each event as its text. */
+    private class Client {
+        final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final CountDownLatch stalled = new CountDownLatch(1);
+        volatile CountDownLatch stall;
+
+        void received(Object[] args) throws InterruptedException {
+            StringBuilder text = new StringBuilder();
+            if (args.length == 1) {
+                for (Object item : (Set<?>) args[0]) {
+                    text.append(((ResponseBodyEmitter.DataWithMediaType) item).getData());
+                }
+            } else {
+                text.append(args[0]);
+            }
+            CountDownLatch gate = stall;
+            if (gate != null && text.indexOf("event:update") >= 0) {
+                stalled.countDown();
+                gate.await();
+            }
+            sent.add(text.toString());
+        }
+
+        /** Holds every update's write until {@link #resume}, like a client that stopped reading. */
+        void stallUpdates() {
+            stall = new CountDownLatch(1);
+        }
+
+        void resume() {
+            stall.countDown();
+        }
+
+        String next(long timeoutMillis) throws InterruptedException {
+            return sent.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /** The next update's data, skipping heartbeats. */
+        JsonNode nextUpdate() throws Exception {
+            List<String> skipped = new ArrayList<>();
+            for (String event; (event = next(5_000)) != null; ) {
+                if (event.contains("event:update")) {
+                    String data = event.substring(event.indexOf("data:") + "data:".length()).trim();
+                    return json.readTree(data);
+                }
+                skipped.add(event);
+            }
+            throw new AssertionError("no update, only " + skipped);
+        }
+    }
+}
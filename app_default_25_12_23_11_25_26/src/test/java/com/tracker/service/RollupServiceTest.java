@@ -0,0 +1,197 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.User;
+import com.tracker.repository.ExpenseRepository;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The rollups kept by the expense and income writes, checked against the rows and each other. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:service-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class RollupServiceTest {
+
+    private static final LocalDate JAN_15 = LocalDate.of(2025, 1, 15);
+    private static final LocalDate JAN_31 = LocalDate.of(2025, 1, 31);
+    private static final LocalDate FEB_1 = LocalDate.of(2025, 2, 1);
+
+    @Autowired
+    private RollupService rollups;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private IncomeService incomeService;
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movesAnExpenseAcrossMonthsAndCategories() {
+        User user = user("rollup-move");
+        Expense moved = expenseService.add(user, expense(JAN_31, Category.FOOD, 10));
+        expenseService.add(user, expense(JAN_15, Category.FOOD, 5));
+
+        expenseService.update(user, moved.getId(), expense(FEB_1, Category.RENT, 12));
+
+        assertEquals(Map.of(
+                "EXPENSE:202501:FOOD", List.of(5.0, 1L),
+                "EXPENSE:202502:RENT", List.of(12.0, 1L),
+                "EXPENSE_DAY:20250115:null", List.of(5.0, 1L),
+                "EXPENSE_DAY:20250201:null", List.of(12.0, 1L)), rows(user));
+        assertTrue(rollups.verify(user).isConsistent());
+    }
+
+    @Test
+    void adjustsAnEditThatStaysInItsGroupsInPlace() {
+        User user = user("rollup-edit");
+        Expense edited = expenseService.add(user, expense(JAN_15, Category.FOOD, 10));
+        expenseService.add(user, expense(JAN_15, Category.FOOD, 5));
+
+        expenseService.update(user, edited.getId(), expense(JAN_15, Category.FOOD, 7.5));
+        // Same month, other category: the day stays, the month moves.
+        Expense recategorized = expenseService.add(user, expense(JAN_31, Category.TRAVEL, 20));
+        expenseService.update(user, recategorized.getId(), expense(JAN_31, Category.SHOPPING, 20));
+
+        assertEquals(Map.of(
+                "EXPENSE:202501:FOOD", List.of(12.5, 2L),
+                "EXPENSE:202501:SHOPPING", List.of(20.0, 1L),
+                "EXPENSE_DAY:20250115:null", List.of(12.5, 2L),
+                "EXPENSE_DAY:20250131:null", List.of(20.0, 1L)), rows(user));
+        assertTrue(rollups.verify(user).isConsistent());
+    }
+
+    @Test
+    void removesAGroupWithItsLastExpense() {
+        User user = user("rollup-remove");
+        Expense first = expenseService.add(user, expense(JAN_15, Category.FOOD, 10));
+        Expense second = expenseService.add(user, expense(JAN_15, Category.FOOD, 5));
+
+        expenseService.delete(user, first.getId());
+        assertEquals(Map.of(
+                "EXPENSE:202501:FOOD", List.of(5.0, 1L),
+                "EXPENSE_DAY:20250115:null", List.of(5.0, 1L)), rows(user));
+        expenseService.delete(user, second.getId());
+        assertTrue(rows(user).isEmpty());
+    }
+
+    @Test
+    void rejectsAnExpenseWithoutACategoryBeforeWriting() {
+        User user = user("rollup-null-category");
+        Expense kept = expenseService.add(user, expense(JAN_15, Category.FOOD, 10));
+        Map<String, List<Object>> before = rows(user);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.add(user, expense(JAN_15, null, 5)));
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.update(user, kept.getId(), expense(FEB_1, null, 5)));
+
+        assertEquals(before, rows(user));
+        assertEquals(Category.FOOD, expenseRepo.findById(kept.getId()).orElseThrow().getCategory());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from expense where user_id = ?",
+                Integer.class, user.getId()));
+    }
+
+    @Test
+    void keepsIncomesPerMonth() {
+        User user = user("rollup-income");
+        Income first = incomeService.add(user, income(JAN_15, 1000));
+        incomeService.add(user, income(JAN_31, 250.5));
+        Income february = incomeService.add(user, income(FEB_1, 300));
+
+        assertEquals(Map.of(
+                "INCOME:202501:null", List.of(1250.5, 2L),
+                "INCOME:202502:null", List.of(300.0, 1L)), rows(user));
+        incomeService.delete(user, first.getId());
+        incomeService.delete(user, february.getId());
+        assertEquals(Map.of("INCOME:202501:null", List.of(250.5, 1L)), rows(user));
+        assertTrue(rollups.verify(user).isConsistent());
+    }
+
+    @Test
+    void verifyReportsDriftAndRebuildRepairsIt() {
+        User user = user("rollup-drift");
+        expenseService.add(user, expense(JAN_15, Category.FOOD, 10));
+        expenseService.add(user, expense(FEB_1, Category.RENT, 800));
+        incomeService.add(user, income(JAN_15, 1000));
+        Map<String, List<Object>> correct = rows(user);
+        assertTrue(rollups.verify(user).isConsistent());
+
+        // A wrong total, a missing group and a group with no rows behind it.
+        jdbcTemplate.update("update monthly_rollup set total = total + 1 where user_id = ? and kind = 'EXPENSE' "
+                + "and category = 'FOOD'", user.getId());
+        jdbcTemplate.update("delete from monthly_rollup where user_id = ? and kind = 'INCOME'", user.getId());
+        jdbcTemplate.update(RollupService.INSERT_GROUP, user.getId(), "EXPENSE", 202503, "TRAVEL", 50.0, 1);
+
+        RollupService.DriftReport drift = rollups.verify(user);
+        assertFalse(drift.isConsistent());
+        Map<String, Map<String, Object>> byGroup = new HashMap<>();
+        for (Map<String, Object> entry : drift.getDrift()) {
+            byGroup.put(entry.get("kind") + ":" + entry.get("period") + ":" + entry.get("category"), entry);
+        }
+        assertEquals(3, byGroup.size());
+        assertEquals(11.0, byGroup.get("EXPENSE:202501:FOOD").get("storedTotal"));
+        assertEquals(10.0, byGroup.get("EXPENSE:202501:FOOD").get("actualTotal"));
+        assertEquals(0L, byGroup.get("INCOME:202501:null").get("storedEntries"));
+        assertEquals(1000.0, byGroup.get("INCOME:202501:null").get("actualTotal"));
+        assertEquals(0.0, byGroup.get("EXPENSE:202503:TRAVEL").get("actualTotal"));
+
+        assertEquals(drift.getDrift(), rollups.rebuild(user).getDrift());
+        assertEquals(correct, rows(user));
+        assertTrue(rollups.verify(user).isConsistent());
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    /** The user's rollup rows as "kind:period:category" to [total, entries]. */
+    private Map<String, List<Object>> rows(User user) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        jdbcTemplate.query("select kind, period, category, total, entry_count from monthly_rollup where user_id = ?",
+                rs -> {
+                    rows.put(rs.getString(1) + ":" + rs.getInt(2) + ":" + rs.getString(3),
+                            List.of(rs.getDouble(4), rs.getLong(5)));
+                }, user.getId());
+        return rows;
+    }
+
+    private static Expense expense(LocalDate date, Category category, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setCategory(category);
+        expense.setAmount(amount);
+        return expense;
+    }
+
+    private static Income income(LocalDate date, double amount) {
+        Income income = new Income();
+        income.setDate(date);
+        income.setAmount(amount);
+        return income;
+    }
+}
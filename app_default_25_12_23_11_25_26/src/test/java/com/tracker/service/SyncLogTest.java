@@ -0,0 +1,209 @@
+package com.tracker.service;
+
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.Income;
+import com.tracker.model.SyncEntry.Kind;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:synclog-test",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class SyncLogTest {
+
+    @Autowired
+    private SyncLog syncLog;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private IncomeService incomeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deliversADeleteMadeAfterTheClientsCursor() {
+        User user = user("sync-delete");
+        Expense kept = expenseService.add(user, expense(10));
+        Expense deleted = expenseService.add(user, expense(20));
+
+        SyncPage first = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, "phone");
+        assertEquals(2, first.getChanges().size());
+        long cursor = first.getNext();
+        assertTrue(syncLog.changes(user, cursor, SyncLog.DEFAULT_LIMIT, "phone").getChanges().isEmpty());
+
+        expenseService.delete(user, deleted.getId());
+        // Another client syncing past the delete must not prune the tombstone the phone has yet to see.
+        SyncPage laptop = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, "laptop");
+        assertEquals(List.of(kept.getId()), ids(laptop));
+        syncLog.changes(user, laptop.getNext(), SyncLog.DEFAULT_LIMIT, "laptop");
+
+        SyncPage delta = syncLog.changes(user, cursor, SyncLog.DEFAULT_LIMIT, "phone");
+        assertFalse(delta.isReset());
+        assertEquals(1, delta.getChanges().size());
+        SyncPage.Change change = delta.getChanges().get(0);
+        assertEquals(deleted.getId(), change.getId());
+        assertEquals(Kind.EXPENSE, change.getType());
+        assertTrue(change.isDeleted());
+        assertTrue(change.getSeq() > cursor);
+        assertEquals(change.getSeq(), delta.getNext());
+    }
+
+    @Test
+    void resetsAnUntrackedClientOnceItsDeleteIsPruned() {
+        User user = user("sync-untracked");
+        expenseService.add(user, expense(10));
+        Expense deleted = expenseService.add(user, expense(20));
+        long untracked = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, null).getNext();
+
+        expenseService.delete(user, deleted.getId());
+        long tracked = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, "tracked").getNext();
+        syncLog.changes(user, tracked, SyncLog.DEFAULT_LIMIT, "tracked");
+        assertEquals(0, tombstones(user));
+
+        // It would otherwise never hear of the delete.
+        assertTrue(syncLog.changes(user, untracked, SyncLog.DEFAULT_LIMIT, null).isReset());
+        SyncPage again = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, null);
+        assertFalse(again.isReset());
+        assertEquals(1, again.getChanges().size());
+        // Cursors from after the pruned delete are still served.
+        assertFalse(syncLog.changes(user, tracked, SyncLog.DEFAULT_LIMIT, null).isReset());
+    }
+
+    @Test
+    void forgetsClientsNotSeenWithinTheCursorTtl() {
+        User user = user("sync-stale");
+        Expense deleted = expenseService.add(user, expense(20));
+        long stale = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, "stale").getNext();
+        syncLog.changes(user, stale, SyncLog.DEFAULT_LIMIT, "stale");
+
+        expenseService.delete(user, deleted.getId());
+        long fresh = syncLog.changes(user, 0, SyncLog.DEFAULT_LIMIT, "fresh").getNext();
+        syncLog.changes(user, fresh, SyncLog.DEFAULT_LIMIT, "fresh");
+        assertEquals(1, tombstones(user));
+
+        jdbcTemplate.update("update sync_cursor set seen_at = ? where user_id = ? and client = 'stale'",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(31))), user.getId());
+        syncLog.changes(user, fresh, SyncLog.DEFAULT_LIMIT, "fresh");
+        assertEquals(0, tombstones(user));
+        assertTrue(syncLog.changes(user, stale, SyncLog.DEFAULT_LIMIT, "stale").isReset());
+    }
+
+    @Test
+    void aPagedFullSyncEndsWithTheCurrentRowsDespiteWritesBetweenPages() {
+        User user = user("sync-paged");
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            expenses.add(expenseService.add(user, expense(i)));
+        }
+        List<Income> incomes = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            incomes.add(incomeService.add(user, income(1000 * i)));
+        }
+
+        // Each page is followed by writes to rows already sent, rows not sent yet and new rows.
+        List<Runnable> writes = List.of(
+                () -> expenseService.update(user, expenses.get(0).getId(), expense(100)),
+                () -> expenseService.delete(user, expenses.get(9).getId()),
+                () -> expenseService.add(user, expense(55)),
+                () -> expenseService.delete(user, expenses.get(1).getId()),
+                () -> expenseService.update(user, expenses.get(11).getId(), expense(120)),
+                () -> incomeService.delete(user, incomes.get(3).getId()),
+                () -> incomeService.add(user, income(7000)),
+                () -> expenseService.update(user, expenses.get(2).getId(), expense(300)));
+
+        Map<String, Double> client = new HashMap<>();
+        long since = 0;
+        int pages = 0;
+        SyncPage page;
+        do {
+            page = syncLog.changes(user, since, 2, "pager");
+            assertFalse(page.isReset());
+            for (SyncPage.Change change : page.getChanges()) {
+                assertTrue(change.getSeq() > since);
+                String key = change.getType() + ":" + change.getId();
+                if (change.isDeleted()) {
+                    client.remove(key);
+                } else {
+                    client.put(key, change.getData() instanceof Expense e ? e.getAmount()
+                            : ((Income) change.getData()).getAmount());
+                }
+            }
+            since = page.getNext();
+            if (page.isHasMore() && pages < writes.size()) {
+                writes.get(pages).run();
+            }
+            pages++;
+        } while (page.isHasMore());
+
+        assertTrue(pages > writes.size());
+        assertEquals(rows(user), client);
+        assertTrue(syncLog.changes(user, since, 2, "pager").getChanges().isEmpty());
+    }
+
+    private User user(String name) {
+        return userRepo.save(new User(null, name, "-"));
+    }
+
+    private int tombstones(User user) {
+        return jdbcTemplate.queryForObject("select count(*) from sync_entry where user_id = ? and deleted",
+                Integer.class, user.getId());
+    }
+
+    /** The user's expenses and incomes as the client keys them. */
+    private Map<String, Double> rows(User user) {
+        Map<String, Double> rows = new HashMap<>();
+        jdbcTemplate.query("select id, amount from expense where user_id = ?",
+                rs -> {
+                    rows.put(Kind.EXPENSE + ":" + rs.getLong(1), rs.getDouble(2));
+                }, user.getId());
+        jdbcTemplate.query("select id, amount from income where user_id = ?",
+                rs -> {
+                    rows.put(Kind.INCOME + ":" + rs.getLong(1), rs.getDouble(2));
+                }, user.getId());
+        return rows;
+    }
+
+    private static List<Long> ids(SyncPage page) {
+        return page.getChanges().stream().map(SyncPage.Change::getId).toList();
+    }
+
+    private static Expense expense(double amount) {
+        Expense expense = new Expense();
+        expense.setDate(LocalDate.of(2025, 7, 1));
+        expense.setAmount(amount);
+        expense.setCategory(Category.FOOD);
+        return expense;
+    }
+
+    private static Income income(double amount) {
+        Income income = new Income();
+        income.setDate(LocalDate.of(2025, 7, 1));
+        income.setAmount(amount);
+        return income;
+    }
+}
@@ -0,0 +1,98 @@
+package com.tracker.service;
+
+import com.tracker.config.AuthenticatedUser;
+import com.tracker.model.Budget;
+import com.tracker.model.Category;
+import com.tracker.model.Expense;
+import com.tracker.model.User;
+import com.tracker.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tips rebuilt in the background after a write must read the writer's shard, not the directory. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tipcache-directory",
+        "tracker.shards.enabled=true",
+        "tracker.shards.urls=jdbc:h2:mem:tipcache-shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:tipcache-shard2;DB_CLOSE_DELAY=-1",
+        "tracker.tips.precompute=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class TipCacheShardingTest {
+
+    private static final String OVER_BUDGET =
+            "⚠️ You've exceeded your monthly budget. Try to cut back on non-essential expenses.";
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TipCache tipCache;
+
+    @Autowired
+    private LedgerCache ledgerCache;
+
+    @Autowired
+    private ThreadPoolTaskExecutor applicationTaskExecutor;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void precomputedTipsReadTheWritersShard() throws InterruptedException {
+        User user = signIn(userRepo.save(new User(null, "tips-sharded", "-")));
+        LocalDate today = LocalDate.now();
+        Budget budget = new Budget();
+        budget.setMonthlyLimit(100.0);
+        budgetService.update(user, budget);
+        assertTrue(tipCache.get(user).stream().noneMatch(OVER_BUDGET::equals));
+
+        Expense expense = new Expense();
+        expense.setAmount(250.0);
+        expense.setCategory(Category.FOOD);
+        expense.setDate(today);
+        expenseService.add(user, expense);
+        awaitExecutor();
+
+        // Served from the entry the precompute left; nothing after the write loaded it again.
+        SecurityContextHolder.clearContext();
+        List<String> tips = tipCache.get(user);
+        assertTrue(tips.contains(OVER_BUDGET), tips::toString);
+        signIn(user);
+        assertEquals(250.0, ledgerCache.get(user.getId()).expenseTotal(today.withDayOfMonth(1), today));
+    }
+
+    private static User signIn(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return principal.toUser();
+    }
+
+    private void awaitExecutor() throws InterruptedException {
+        ThreadPoolExecutor pool = applicationTaskExecutor.getThreadPoolExecutor();
+        for (int i = 0; i < 500 && pool.getCompletedTaskCount() < pool.getTaskCount(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(pool.getTaskCount(), pool.getCompletedTaskCount(), "background tasks still running");
+    }
+}